@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# 啟動時間量測：從啟動 JVM 到第一個成功（HTTP 2xx）的請求，重複多次後取中位數
+#
+# 用法：
+#   mvn -B -Pfast package -DskipTests     # 一次建置即可比較兩種模式
+#   scripts/measure-startup.sh default    # 一般 fat jar（不使用 AOT / CDS）
+#   scripts/measure-startup.sh fast       # 解開後的 jar + AOT + CDS 檔案 + fast 設定檔
+#
+# 環境變數：
+#   RUNS=5                     量測次數
+#   PORT=18080                 測試用埠號
+#   PROBE_PATH=/actuator/health  第一個請求的路徑（例：/currencies）
+#   每次都使用全新的記憶體 DB、關閉暖啟動，結果不受 data/ 內容影響
+set -euo pipefail
+
+MODE="${1:-default}"
+RUNS="${RUNS:-5}"
+PORT="${PORT:-18080}"
+PROBE_PATH="${PROBE_PATH:-/actuator/health}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR_NAME="coindesk-0.0.1-SNAPSHOT.jar"
+APP_ARGS=(--server.port="$PORT" --spring.datasource.url=jdbc:h2:mem:startup --coindesk.warm-start.enabled=false)
+
+case "$MODE" in
+  default)
+    CMD=(java -jar "$ROOT/target/$JAR_NAME")
+    ;;
+  fast)
+    if [[ ! -f "$ROOT/target/app/coindesk.jsa" ]]; then
+      echo "找不到 target/app/coindesk.jsa，請先執行 mvn -Pfast package" >&2
+      exit 1
+    fi
+    CMD=(java -XX:SharedArchiveFile="$ROOT/target/app/coindesk.jsa" -Dspring.aot.enabled=true
+         -Dspring.profiles.active=fast -jar "$ROOT/target/app/$JAR_NAME")
+    ;;
+  *)
+    echo "用法：$0 default|fast" >&2
+    exit 1
+    ;;
+esac
+
+now_ms() { date +%s%3N; }
+
+results=()
+for ((i = 1; i <= RUNS; i++)); do
+  start=$(now_ms)
+  "${CMD[@]}" "${APP_ARGS[@]}" >/dev/null 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT$PROBE_PATH"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "應用程式啟動失敗（第 $i 次）" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  results+=("$elapsed")
+  echo "第 $i 次：${elapsed} ms"
+done
+
+median=$(printf '%s\n' "${results[@]}" | sort -n | awk '{ a[NR] = $1 } END { print (NR % 2) ? a[(NR + 1) / 2] : int((a[NR / 2] + a[NR / 2 + 1]) / 2) }')
+echo "$MODE：${RUNS} 次中位數 ${median} ms（至第一個成功的 $PROBE_PATH）"
@@ -0,0 +1,82 @@
+package com.example.coindesk.service; // 與 Service 同套件
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體（Stub Repository 的資料）
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repository
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper
+import org.openjdk.jmh.annotations.Benchmark; // 匯入 @Benchmark，標記基準測試方法
+import org.openjdk.jmh.annotations.BenchmarkMode; // 匯入 @BenchmarkMode，指定量測模式
+import org.openjdk.jmh.annotations.Fork; // 匯入 @Fork，指定獨立 JVM 數量
+import org.openjdk.jmh.annotations.Level; // 匯入 Level，指定 @Setup 執行時機
+import org.openjdk.jmh.annotations.Measurement; // 匯入 @Measurement，正式量測回合設定
+import org.openjdk.jmh.annotations.Mode; // 匯入 Mode，吞吐量模式
+import org.openjdk.jmh.annotations.OperationsPerInvocation; // 匯入 @OperationsPerInvocation，以「筆」為單位回報
+import org.openjdk.jmh.annotations.OutputTimeUnit; // 匯入 @OutputTimeUnit，結果時間單位
+import org.openjdk.jmh.annotations.Param; // 匯入 @Param，JSON 陣列 / NDJSON
+import org.openjdk.jmh.annotations.Scope; // 匯入 Scope，State 共用範圍
+import org.openjdk.jmh.annotations.Setup; // 匯入 @Setup，準備測試資料
+import org.openjdk.jmh.annotations.State; // 匯入 @State，保存測試資料
+import org.openjdk.jmh.annotations.Warmup; // 匯入 @Warmup，預熱回合設定
+
+import java.io.ByteArrayInputStream; // 匯入 ByteArrayInputStream，模擬請求內容
+import java.io.OutputStream; // 匯入 OutputStream，丟棄輸出
+import java.lang.reflect.Proxy; // 匯入 Proxy，建立只實作 findAll 的 Stub Repository
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.List; // 匯入 List
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+
+/**
+ * ===========================================
+ * 批次換算基準測試 (BatchConvertBenchmark)
+ * ===========================================
+ * 量測 POST /convert/batch 核心（讀取 → 換算 → 寫出）的單執行緒吞吐量，單位為「筆 / 秒」
+ * - 輸入：100,000 筆、10 種幣別隨機組合
+ * - format：array（JSON 陣列）或 ndjson
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchConvertBenchmark {
+    private static final int ROWS = 100_000; // 每次呼叫的筆數
+    private static final String[] CODES = {"USD", "EUR", "GBP", "JPY", "TWD", "CNY", "HKD", "AUD", "CAD", "BTC"};
+
+    @Param({"array", "ndjson"})
+    public String format; // 輸入 / 輸出格式
+
+    private byte[] body; // 請求內容
+    private BatchConvertService service; // 測試目標
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ExchangeRate> rows = new ArrayList<>();
+        for (int i = 0; i < CODES.length - 1; i++) {
+            rows.add(new ExchangeRate(CODES[i], BigDecimal.valueOf(20000 + i * 1234.5678), LocalDateTime.now()));
+        }
+        ExchangeRateRepository repo = (ExchangeRateRepository) Proxy.newProxyInstance(
+                ExchangeRateRepository.class.getClassLoader(), new Class<?>[]{ExchangeRateRepository.class},
+                (proxy, method, args) -> "findAll".equals(method.getName()) ? rows : null); // 只需要 findAll
+        service = new BatchConvertService(new CrossRateService(repo), new ObjectMapper());
+
+        boolean ndjson = "ndjson".equals(format);
+        StringBuilder sb = new StringBuilder(ROWS * 48);
+        sb.append(ndjson ? "" : "[");
+        for (int i = 0; i < ROWS; i++) {
+            if (i > 0) sb.append(ndjson ? "\n" : ",");
+            sb.append("{\"from\":\"").append(CODES[i % CODES.length])
+                    .append("\",\"to\":\"").append(CODES[(i * 7 + 3) % CODES.length])
+                    .append("\",\"amount\":").append(i % 1000).append('.').append(i % 100).append('}');
+        }
+        body = sb.append(ndjson ? "\n" : "]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long convert() throws Exception {
+        return service.convert(new ByteArrayInputStream(body), OutputStream.nullOutputStream(), "ndjson".equals(format));
+    }
+}
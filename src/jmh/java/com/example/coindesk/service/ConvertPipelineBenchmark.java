@@ -0,0 +1,163 @@
+package com.example.coindesk.service; // 與 Service 同套件，才能使用 package-private 的 MOCK_JSON
+
+import com.example.coindesk.config.CoinDeskProperties; // 匯入 CoinDesk 設定（建立 Stub 服務用）
+import com.example.coindesk.dto.ConvertedDtos; // 匯入轉換後回應 DTO
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，序列化回應
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry; // 匯入 SimpleMeterRegistry，Stub 服務的指標
+import org.openjdk.jmh.annotations.Benchmark; // 匯入 @Benchmark，標記基準測試方法
+import org.openjdk.jmh.annotations.BenchmarkMode; // 匯入 @BenchmarkMode，指定量測模式
+import org.openjdk.jmh.annotations.Fork; // 匯入 @Fork，指定獨立 JVM 數量
+import org.openjdk.jmh.annotations.Level; // 匯入 Level，指定 @Setup 執行時機
+import org.openjdk.jmh.annotations.Measurement; // 匯入 @Measurement，正式量測回合設定
+import org.openjdk.jmh.annotations.Mode; // 匯入 Mode，吞吐量模式
+import org.openjdk.jmh.annotations.OutputTimeUnit; // 匯入 @OutputTimeUnit，結果時間單位
+import org.openjdk.jmh.annotations.Param; // 匯入 @Param，小 / 大兩種 payload
+import org.openjdk.jmh.annotations.Scope; // 匯入 Scope，State 共用範圍
+import org.openjdk.jmh.annotations.Setup; // 匯入 @Setup，準備測試資料
+import org.openjdk.jmh.annotations.State; // 匯入 @State，保存測試資料
+import org.openjdk.jmh.annotations.Warmup; // 匯入 @Warmup，預熱回合設定
+import org.openjdk.jmh.infra.Blackhole; // 匯入 Blackhole，避免 JIT 消除無用結果
+
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.time.Duration; // 匯入 Duration，Stub 服務設定
+import java.util.HashMap; // 匯入 HashMap，組裝中文名稱對照表
+import java.util.Map; // 匯入 Map
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+
+/**
+ * ===========================================
+ * 轉換管線基準測試 (ConvertPipelineBenchmark)
+ * ===========================================
+ * 量測 /coindesk/converted 各階段的吞吐量與配置量：
+ * - parse：上游位元組 → RateSnapshot（串流解析）
+ * - resolveNames：逐一查詢幣別中文名稱
+ * - convert：RateSnapshot → ConvertedDtos.Response
+ * - serialize：getConvertedJson() 的 render 路徑（RateSnapshot → JSON 位元組 + ETag，不建立 DTO）
+ * - pipeline：parse + render（等同快照刷新後的第一次請求）
+ * <p>
+ * serialize / pipeline 每次呼叫都換上一份新的快照物件，getConvertedJson() 以物件參考判斷版本，
+ * 因此每次都會真正 render，不會命中已序列化的結果
+ * <p>
+ * payload：
+ * - small：作業提供的 MOCK_JSON（3 個幣別）
+ * - large：合成 payload（500 個幣別）
+ * <p>
+ * 執行：mvn -Pjmh test-compile exec:exec@jmh（預設附帶 -prof gc）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConvertPipelineBenchmark {
+
+    @Param({"small", "large"})
+    public String payload; // 測試資料大小
+
+    private byte[] body; // 上游原始位元組
+    private RateSnapshot snapshot; // 解析後的快照
+    private CoinDeskPayloadParser parser; // 串流解析器
+    private CurrencyNameCache nameCache; // 中文名稱對照（固定內容，不連 DB）
+    private FixedSnapshotService coinDeskService; // 可替換快照的 Stub 服務
+    private CoinDeskConvertService convertService; // 轉換服務
+    private ObjectMapper mapper; // JSON 序列化器
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String json = "small".equals(payload) ? CoinDeskService.MOCK_JSON : syntheticPayload(500);
+        body = json.getBytes(StandardCharsets.UTF_8);
+        mapper = new ObjectMapper();
+        parser = new CoinDeskPayloadParser(mapper);
+        snapshot = parser.parse(body);
+
+        Map<String, String> names = new HashMap<>();
+        for (RateSnapshot.Rate r : snapshot.rates()) {
+            names.put(r.code(), "幣別" + r.code()); // 每個幣別都有中文名稱
+        }
+        nameCache = new FixedNameCache(Map.copyOf(names));
+        coinDeskService = new FixedSnapshotService(snapshot);
+        convertService = new CoinDeskConvertService(coinDeskService, nameCache, mapper);
+    }
+
+    @Benchmark
+    public RateSnapshot parse() throws Exception {
+        return parser.parse(body);
+    }
+
+    @Benchmark
+    public void resolveNames(Blackhole bh) {
+        for (RateSnapshot.Rate r : snapshot.rates()) {
+            bh.consume(nameCache.nameOf(r.code()));
+        }
+    }
+
+    @Benchmark
+    public ConvertedDtos.Response convert() {
+        return convertService.toResponse(snapshot);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        coinDeskService.snapshot = new RateSnapshot(snapshot.updatedIso(), snapshot.updated(), snapshot.rates()); // 新的快照物件 → 重新 render
+        return convertService.getConvertedJson().body();
+    }
+
+    @Benchmark
+    public byte[] pipeline() throws Exception {
+        coinDeskService.snapshot = parser.parse(body); // 每次解析都產生新的快照物件 → 重新 render
+        return convertService.getConvertedJson().body();
+    }
+
+    /**
+     * 合成 payload：n 個幣別，格式與 CoinDesk 回應相同
+     */
+    static String syntheticPayload(int n) {
+        StringBuilder sb = new StringBuilder("{\"time\":{\"updated\":\"Aug 3, 2022 20:25:00 UTC\",\"updatedISO\":\"2022-08-03T20:25:00+00:00\"},\"bpi\":{");
+        for (int i = 0; i < n; i++) {
+            String code = "C" + i;
+            if (i > 0) sb.append(',');
+            sb.append('"').append(code).append("\":{\"code\":\"").append(code)
+                    .append("\",\"symbol\":\"$\",\"rate\":\"23,342.0112\",\"description\":\"Currency ").append(i)
+                    .append("\",\"rate_float\":").append(20000 + i * 1.2345).append('}');
+        }
+        return sb.append("}}").toString();
+    }
+
+    /**
+     * 固定內容的中文名稱對照（不連 DB）
+     */
+    static class FixedNameCache extends CurrencyNameCache {
+        private final Map<String, String> names;
+
+        FixedNameCache(Map<String, String> names) {
+            super(null);
+            this.names = names;
+        }
+
+        @Override
+        public Map<String, String> names() {
+            return names;
+        }
+    }
+
+    /**
+     * 回傳指定快照的 CoinDeskService（不呼叫上游；基準測試可替換快照）
+     */
+    static class FixedSnapshotService extends CoinDeskService {
+        volatile RateSnapshot snapshot;
+
+        FixedSnapshotService(RateSnapshot snapshot) {
+            super(new CoinDeskProperties(Duration.ofMinutes(1), new CoinDeskProperties.Upstream(
+                            "http://localhost/unused", Duration.ofSeconds(1), Duration.ofSeconds(1),
+                            Duration.ofSeconds(1), 1, 3, Duration.ofSeconds(30))),
+                    new CoinDeskPayloadParser(new ObjectMapper()), new CoinDeskMetrics(new SimpleMeterRegistry()));
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public RateSnapshot fetchSnapshot() {
+            return snapshot;
+        }
+    }
+}
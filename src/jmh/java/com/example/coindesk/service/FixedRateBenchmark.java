@@ -0,0 +1,88 @@
+package com.example.coindesk.service; // 與 Service 同套件
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.core.JsonFactory; // 匯入 JsonFactory，建立串流解析器 / 產生器
+import com.fasterxml.jackson.core.JsonGenerator; // 匯入 JsonGenerator，寫出匯率
+import com.fasterxml.jackson.core.JsonParser; // 匯入 JsonParser，讀取匯率
+import com.fasterxml.jackson.core.JsonToken; // 匯入 JsonToken
+import org.openjdk.jmh.annotations.Benchmark; // 匯入 @Benchmark，標記基準測試方法
+import org.openjdk.jmh.annotations.BenchmarkMode; // 匯入 @BenchmarkMode，指定量測模式
+import org.openjdk.jmh.annotations.Fork; // 匯入 @Fork，指定獨立 JVM 數量
+import org.openjdk.jmh.annotations.Level; // 匯入 Level，指定 @Setup 執行時機
+import org.openjdk.jmh.annotations.Measurement; // 匯入 @Measurement，正式量測回合設定
+import org.openjdk.jmh.annotations.Mode; // 匯入 Mode，吞吐量模式
+import org.openjdk.jmh.annotations.OperationsPerInvocation; // 匯入 @OperationsPerInvocation，以「筆匯率」為單位回報
+import org.openjdk.jmh.annotations.OutputTimeUnit; // 匯入 @OutputTimeUnit，結果時間單位
+import org.openjdk.jmh.annotations.Scope; // 匯入 Scope，State 共用範圍
+import org.openjdk.jmh.annotations.Setup; // 匯入 @Setup，準備測試資料
+import org.openjdk.jmh.annotations.State; // 匯入 @State，保存測試資料
+import org.openjdk.jmh.annotations.Warmup; // 匯入 @Warmup，預熱回合設定
+
+import java.io.IOException; // 匯入 IOException
+import java.io.OutputStream; // 匯入 OutputStream，丟棄輸出
+import java.math.BigDecimal; // 匯入 BigDecimal，舊做法
+import java.math.RoundingMode; // 匯入 RoundingMode，舊做法寫入 DB 前的進位
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+
+/**
+ * ===========================================
+ * 匯率表示法基準測試 (FixedRateBenchmark)
+ * ===========================================
+ * 比較每筆匯率「讀取 → 四捨五入至 6 位 → 寫出」的吞吐量與配置量（-prof gc 的 gc.alloc.rate.norm）：
+ * - bigDecimal：舊做法，getDoubleValue() → BigDecimal.valueOf → setScale(6, HALF_UP) → writeNumber(BigDecimal)
+ * - fixedRate：FixedRate.parse(JsonParser) → FixedRate.write(JsonGenerator)
+ * <p>
+ * 兩者共用同一個 JsonParser / JsonGenerator 的成本，差異即為匯率表示法本身。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FixedRateBenchmark {
+    private static final int RATES = 1000; // 每次呼叫的匯率筆數
+
+    private final JsonFactory factory = new JsonFactory();
+    private byte[] body; // 1000 個 rate_float 組成的 JSON 陣列
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < RATES; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(20000 + i * 1.2345678); // 與 CoinDesk rate_float 相同的 double 文字形式
+        }
+        body = sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RATES)
+    public void bigDecimal() throws IOException {
+        try (JsonParser p = factory.createParser(body);
+             JsonGenerator g = factory.createGenerator(OutputStream.nullOutputStream())) {
+            p.nextToken();
+            g.writeStartArray();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                BigDecimal rate = BigDecimal.valueOf(p.getDoubleValue()).setScale(FixedRate.SCALE, RoundingMode.HALF_UP);
+                g.writeNumber(rate);
+            }
+            g.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RATES)
+    public void fixedRate() throws IOException {
+        try (JsonParser p = factory.createParser(body);
+             JsonGenerator g = factory.createGenerator(OutputStream.nullOutputStream())) {
+            p.nextToken();
+            g.writeStartArray();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                FixedRate.write(g, FixedRate.parse(p));
+            }
+            g.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.coindesk.service; // 與 Service 同套件
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體（Stub Repository 的資料）
+import com.example.coindesk.dto.RateDtos; // 匯入目前匯率 DTO
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repository
+import org.openjdk.jmh.annotations.Benchmark; // 匯入 @Benchmark，標記基準測試方法
+import org.openjdk.jmh.annotations.BenchmarkMode; // 匯入 @BenchmarkMode，指定量測模式
+import org.openjdk.jmh.annotations.Fork; // 匯入 @Fork，指定獨立 JVM 數量
+import org.openjdk.jmh.annotations.Level; // 匯入 Level，指定 @Setup 執行時機
+import org.openjdk.jmh.annotations.Measurement; // 匯入 @Measurement，正式量測回合設定
+import org.openjdk.jmh.annotations.Mode; // 匯入 Mode，吞吐量模式
+import org.openjdk.jmh.annotations.OutputTimeUnit; // 匯入 @OutputTimeUnit，結果時間單位
+import org.openjdk.jmh.annotations.Scope; // 匯入 Scope，State 共用範圍
+import org.openjdk.jmh.annotations.Setup; // 匯入 @Setup，準備測試資料
+import org.openjdk.jmh.annotations.State; // 匯入 @State，保存測試資料
+import org.openjdk.jmh.annotations.Warmup; // 匯入 @Warmup，預熱回合設定
+
+import java.lang.reflect.Proxy; // 匯入 Proxy，建立只實作 findAll 的 Stub Repository
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.List; // 匯入 List
+import java.util.concurrent.ThreadLocalRandom; // 匯入 ThreadLocalRandom，每個執行緒各自挑選幣別
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+
+/**
+ * ===========================================
+ * 目前匯率讀取基準測試 (RateStoreBenchmark)
+ * ===========================================
+ * 量測 GET /rates/{code}、GET /rates 核心（RateStore）的讀取吞吐量
+ * - 以 -t 指定執行緒數比較擴展性，例：-Djmh.args="RateStoreBenchmark -t 1" 與 -Djmh.args="RateStoreBenchmark -t 8"
+ * - 讀取不加鎖，吞吐量應隨執行緒數（不超過 CPU 核心數）約略線性增加
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateStoreBenchmark {
+    private static final int CODES = 200; // 幣別數
+
+    private RateStore store; // 測試目標
+    private String[] codes; // 查詢用的幣別代碼
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ExchangeRate> rows = new ArrayList<>();
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            codes[i] = "C" + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            rows.add(new ExchangeRate(codes[i], BigDecimal.valueOf(20000 + i * 12.5), LocalDateTime.now()));
+        }
+        ExchangeRateRepository repo = (ExchangeRateRepository) Proxy.newProxyInstance(
+                ExchangeRateRepository.class.getClassLoader(), new Class<?>[]{ExchangeRateRepository.class},
+                (proxy, method, args) -> "findAll".equals(method.getName()) ? rows : null); // 只需要 findAll
+        store = new RateStore(repo);
+        store.reload();
+    }
+
+    @Benchmark
+    public RateDtos.Rate getOne() {
+        return store.get(codes[ThreadLocalRandom.current().nextInt(CODES)]);
+    }
+
+    @Benchmark
+    public RateDtos.Response getAll() {
+        return store.all();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.coindesk; // 定義此應用程式的根套件
 
 import org.springframework.boot.SpringApplication; // 匯入 SpringApplication，用於啟動 Spring Boot
 import org.springframework.boot.autoconfigure.SpringBootApplication; // 匯入 @SpringBootApplication，表示此類別是 Spring Boot 主程式入口
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan; // 匯入 @ConfigurationPropertiesScan，自動註冊 @ConfigurationProperties 設定類別
 import org.springframework.scheduling.annotation.EnableScheduling; // 匯入 @EnableScheduling，用於啟用排程功能
 
 /**
@@ -13,9 +14,11 @@ import org.springframework.scheduling.annotation.EnableScheduling; // 匯入 @En
  * - 啟動 Spring Boot 應用程式
  * - 啟用自動組態 (Auto Configuration)
  * - 啟用排程功能 (EnableScheduling)，讓排程任務可以正常執行
+ * - 掃描設定類別 (ConfigurationPropertiesScan)，綁定 application.yml 的自訂設定
  */
 @SpringBootApplication // 標記為 Spring Boot 應用程式，包含 @Configuration、@EnableAutoConfiguration、@ComponentScan
-@EnableScheduling // 啟用排程功能，允許 @Scheduled 任務定期執行
+@EnableScheduling // 啟用排程功能，提供 TaskScheduler（RateSyncScheduler 依自適應間隔排定下一次同步）
+@ConfigurationPropertiesScan // 掃描並註冊 @ConfigurationProperties（例如 CoinDeskProperties）
 public class CoindeskApplication {
 
     /**
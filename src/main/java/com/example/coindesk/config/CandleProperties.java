@@ -0,0 +1,28 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import com.example.coindesk.service.CandleInterval; // 匯入 K 線週期
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+/**
+ * K 線設定（對應 application.yml 的 coindesk.candles.*）
+ * - minuteCapacity / hourCapacity / dayCapacity：每個幣別在記憶體中保留的已收盤 K 線根數（環狀緩衝區）
+ *   預設 1m 保留 1 天、1h 保留 30 天、1d 保留 1 年；更早的 K 線只在 rate_candle 資料表中
+ */
+@ConfigurationProperties(prefix = "coindesk.candles")
+public record CandleProperties(
+        @DefaultValue("1440") int minuteCapacity, // 1m K 線保留根數
+        @DefaultValue("720") int hourCapacity, // 1h K 線保留根數
+        @DefaultValue("365") int dayCapacity // 1d K 線保留根數
+) {
+    /**
+     * 指定週期的保留根數
+     */
+    public int capacity(CandleInterval interval) {
+        return switch (interval) {
+            case MINUTE -> minuteCapacity;
+            case HOUR -> hourCapacity;
+            case DAY -> dayCapacity;
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.time.Duration; // 匯入 Duration，表示時間長度（例如 60s、5m）
+
+/**
+ * CoinDesk 相關設定（對應 application.yml 的 coindesk.*）
+ * - cacheTtl：上游快照的快取存活時間，過期後才會再呼叫一次 CoinDesk API
+ * - upstream：上游 HTTP 連線設定（連線池、逾時、斷路器）
+ */
+@ConfigurationProperties(prefix = "coindesk")
+public record CoinDeskProperties(
+        @DefaultValue("60s") Duration cacheTtl, // 快照快取存活時間（預設 60 秒）
+        @DefaultValue Upstream upstream // 上游連線設定
+) {
+    /**
+     * 上游 HTTP 連線設定（coindesk.upstream.*）
+     * - url：CoinDesk API 位址
+     * - connectTimeout：建立 TCP 連線的逾時
+     * - readTimeout：等待回應資料的逾時（兩個封包之間的最長間隔）
+     * - totalTimeout：單次呼叫的總期限（含排隊取連線、連線、讀取），超過即改用 fallback
+     * - maxConnections：連線池最大連線數
+     * - failureThreshold：連續失敗幾次後斷路器打開
+     * - openDuration：斷路器打開後，多久才允許再試一次
+     */
+    public record Upstream(
+            @DefaultValue("https://api.coindesk.com/v1/bpi/currentprice.json") String url, // CoinDesk API URL
+            @DefaultValue("2s") Duration connectTimeout, // 連線逾時
+            @DefaultValue("3s") Duration readTimeout, // 讀取逾時
+            @DefaultValue("5s") Duration totalTimeout, // 總期限
+            @DefaultValue("10") int maxConnections, // 連線池大小
+            @DefaultValue("3") int failureThreshold, // 斷路器門檻
+            @DefaultValue("30s") Duration openDuration // 斷路器打開時間
+    ) {
+    }
+}
@@ -6,9 +6,16 @@ import org.springframework.boot.CommandLineRunner; // 匯入 Spring Boot 提供
 import org.springframework.context.annotation.Bean; // 匯入 @Bean，用來把某個方法的回傳物件註冊到 Spring 容器中
 import org.springframework.context.annotation.Configuration; // 匯入 @Configuration，表示這是一個「設定類別」，會在 Spring 啟動時載入
 
+import java.util.LinkedHashMap; // 匯入 LinkedHashMap，保留預載順序
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map，幣別代碼 → 中文名稱
+import java.util.Set; // 匯入 Set
+import java.util.stream.Collectors; // 匯入 Collectors
+
 /**
  * 啟動時預載資料：Mocking data 僅有 USD/GBP/EUR
  * - 若資料表尚未有這些代碼，則插入
+ * - 以一次查詢取得已存在的代碼，缺少的再以 saveAll 一次批次寫入（不再逐筆 exists + save）
  */
 @Configuration
 public class CurrencyDataInitializer {
@@ -17,20 +24,26 @@ public class CurrencyDataInitializer {
         // 定義一個方法，回傳 CommandLineRunner，Spring Boot 啟動完成後會自動執行
         // 參數 repo：Spring 自動注入 CurrencyRepository，用來操作 DB
         return args -> { // Lambda 表達式：當 CommandLineRunner 執行時，會跑裡面的程式碼
-            upsert(repo, "USD", "美元"); // 呼叫自訂的 upsert 方法，若沒有 USD 就新增，名稱為「美元」
-            upsert(repo, "GBP", "英鎊");
-            upsert(repo, "EUR", "歐元");
+            Map<String, String> seeds = new LinkedHashMap<>(); // 預載資料：幣別代碼 → 中文名稱
+            seeds.put("USD", "美元");
+            seeds.put("GBP", "英鎊");
+            seeds.put("EUR", "歐元");
+            insertMissing(repo, seeds);
         };
     }
 
-    // 定義一個私有方法 upsert，用來檢查並新增幣別
+    // 定義一個私有方法 insertMissing，用來檢查並新增幣別
     // 參數：
     // - repo：存取資料表
-    // - code：幣別代碼（例如 USD）
-    // - nameZh：幣別中文名稱（例如 美元）
-    private void upsert(CurrencyRepository repo, String code, String nameZh) {
-        if (!repo.existsByCode(code)) { // 判斷：資料表中是否已經有這個幣別代碼，如果不存在，就進行新增
-            repo.save(new Currency(code, nameZh)); // 建立一個新的 Currency 實體，存進資料表
-        }
+    // - seeds：幣別代碼（例如 USD）→ 中文名稱（例如 美元）
+    private void insertMissing(CurrencyRepository repo, Map<String, String> seeds) {
+        Set<String> existing = repo.findAllById(seeds.keySet()).stream() // 一次查詢取得已存在的代碼
+                .map(Currency::getCode)
+                .collect(Collectors.toSet());
+        List<Currency> missing = seeds.entrySet().stream()
+                .filter(e -> !existing.contains(e.getKey())) // 資料表中沒有的代碼才新增
+                .map(e -> new Currency(e.getKey(), e.getValue()))
+                .toList();
+        repo.saveAll(missing); // 同一個交易內批次 INSERT
     }
 }
@@ -0,0 +1,81 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration; // 匯入 CaffeineConfiguration，設定各快取區域的大小與存活時間
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider; // 匯入 Caffeine 的 JCache 實作
+import org.hibernate.cache.jcache.ConfigSettings; // 匯入 Hibernate JCache 設定名稱
+import org.hibernate.cache.spi.RegionFactory; // 匯入 RegionFactory，查詢快取的預設區域名稱
+import org.hibernate.cfg.AvailableSettings; // 匯入 Hibernate 設定名稱
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer; // 匯入 HibernatePropertiesCustomizer，在建立 EntityManagerFactory 前調整設定
+import org.springframework.context.annotation.Bean; // 匯入 @Bean
+import org.springframework.context.annotation.Configuration; // 匯入 @Configuration
+
+import javax.cache.CacheManager; // 匯入 JCache CacheManager
+import javax.cache.Caching; // 匯入 Caching，取得 JCache 實作
+import java.net.URI; // 匯入 URI，CacheManager 的識別
+import java.time.Duration; // 匯入 Duration
+import java.util.OptionalLong; // 匯入 OptionalLong，Caffeine 設定值
+
+/**
+ * Hibernate 二級快取設定（JCache + Caffeine，本機記憶體）
+ * - 快取區域：currency、exchange-rate（實體）、查詢結果與表格更新時間戳（查詢快取）
+ * - 同一個 JVM 內共用一個 CacheManager（URI 為 coindesk.entity-cache.manager-name）：多個 Spring Context 連到同一個 DB 時（例如測試），
+ *   快取內容與 DB 一致，不會讀到其他 Context 已修改過的舊資料；CacheManager 由 Hibernate 在關閉時一併關閉
+ * - 只建立下列已知區域；實體誤用未設定的區域時啟動即失敗（missing_cache_strategy = fail），不會默默建立無上限的快取
+ * - 更新時間戳區域不設上限也不過期：它是判斷查詢快取是否過期的依據，被淘汰會讓舊的查詢結果被誤用
+ */
+@Configuration
+public class EntityCacheConfig {
+    public static final String CURRENCY_REGION = "currency"; // Currency 實體快取區域
+    public static final String EXCHANGE_RATE_REGION = "exchange-rate"; // ExchangeRate 實體快取區域
+
+    @Bean
+    HibernatePropertiesCustomizer entityCacheCustomizer(EntityCacheProperties props) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, props.enabled());
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, props.enabled());
+            if (!props.enabled()) {
+                return;
+            }
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager(props));
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * 取得共用的 CacheManager，並建立尚未存在的快取區域
+     */
+    private static synchronized CacheManager cacheManager(EntityCacheProperties props) {
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(props.managerName()), EntityCacheConfig.class.getClassLoader()); // 依名稱識別 CacheManager
+        createIfAbsent(manager, CURRENCY_REGION, region(props.ttl(), props.maxSize()));
+        createIfAbsent(manager, EXCHANGE_RATE_REGION, region(props.ttl(), props.maxSize()));
+        createIfAbsent(manager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(props.ttl(), props.maxSize()));
+        createIfAbsent(manager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(null, 0)); // 不過期、不淘汰
+        return manager;
+    }
+
+    private static void createIfAbsent(CacheManager manager, String name, CaffeineConfiguration<Object, Object> config) {
+        if (manager.getCache(name) == null) {
+            manager.createCache(name, config);
+        }
+    }
+
+    /**
+     * 單一快取區域的設定
+     *
+     * @param ttl     寫入後存活時間（null 表示不過期）
+     * @param maxSize 最大筆數（0 表示不限制）
+     */
+    private static CaffeineConfiguration<Object, Object> region(Duration ttl, long maxSize) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        if (ttl != null) {
+            config.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        if (maxSize > 0) {
+            config.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        config.setStoreByValue(false); // Hibernate 自行存放拆解後的資料，不需再複製
+        return config;
+    }
+}
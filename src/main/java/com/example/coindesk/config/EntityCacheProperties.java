@@ -0,0 +1,26 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.time.Duration; // 匯入 Duration，表示時間長度
+
+/**
+ * 實體快取設定（對應 application.yml 的 coindesk.entity-cache.*）
+ * - enabled：是否啟用 Hibernate 二級快取與查詢快取（Currency、ExchangeRate）
+ * - ttl：快取項目寫入後的存活時間（資料一小時只變動幾次，過期只是保險，寫入時 Hibernate 會同步更新快取）
+ * - maxSize：每個快取區域的最大筆數
+ * - unknownCodeTtl：查無幣別代碼的負向快取存活時間（期間內同一代碼直接回 404，不查 DB）
+ * - unknownCodeMaxSize：負向快取的最大筆數（避免大量隨機代碼撐爆記憶體）
+ * - managerName：JCache CacheManager 名稱；同一 JVM 內名稱相同的 Context 共用快取（測試中模擬多個節點時各自設定不同名稱）
+ */
+@ConfigurationProperties(prefix = "coindesk.entity-cache")
+public record EntityCacheProperties(
+        @DefaultValue("true") boolean enabled, // 是否啟用二級快取
+        @DefaultValue("10m") Duration ttl, // 快取存活時間
+        @DefaultValue("10000") long maxSize, // 每個區域的最大筆數
+        @DefaultValue("30s") Duration unknownCodeTtl, // 負向快取存活時間
+        @DefaultValue("10000") long unknownCodeMaxSize, // 負向快取最大筆數
+        @DefaultValue("coindesk-entity-cache") String managerName // CacheManager 名稱
+) {
+}
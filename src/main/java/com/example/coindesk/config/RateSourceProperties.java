@@ -0,0 +1,18 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.time.Duration; // 匯入 Duration，表示時間長度（例如 6s）
+
+/**
+ * 多來源匯率聚合設定（對應 application.yml 的 coindesk.sources.*）
+ * - deadline：所有來源共用的期限，從開始抓取起算；期限內沒有回應的來源不列入本次聚合
+ * - maxDeviation：與中位數的最大相對偏差（0.05 = 5%），超過即視為離群值剔除
+ */
+@ConfigurationProperties(prefix = "coindesk.sources")
+public record RateSourceProperties(
+        @DefaultValue("6s") Duration deadline, // 共同期限（需大於 coindesk.upstream.total-timeout，CoinDesk 才來得及回 fallback）
+        @DefaultValue("0.05") double maxDeviation // 離群值門檻
+) {
+}
@@ -0,0 +1,22 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.time.Duration; // 匯入 Duration，表示時間長度
+
+/**
+ * SSE 匯率推播設定（對應 application.yml 的 coindesk.stream.*）
+ * - timeout：單一連線的存活時間，逾時後由用戶端（EventSource）自動重連
+ * - maxCoalesced：訂閱者送出卡住期間，可被合併（覆蓋）的事件數上限，超過即中斷該訂閱者
+ * - senderThreads：背景送出的執行緒數上限（所有訂閱者共用）
+ * - sendTimeout：單次送出的期限，超過即視為用戶端卡住，中斷該次送出並移除訂閱者，釋放送出執行緒
+ */
+@ConfigurationProperties(prefix = "coindesk.stream")
+public record RateStreamProperties(
+        @DefaultValue("30m") Duration timeout, // 連線存活時間
+        @DefaultValue("10") int maxCoalesced, // 慢速訂閱者可累積的合併次數上限
+        @DefaultValue("4") int senderThreads, // 送出執行緒數上限
+        @DefaultValue("10s") Duration sendTimeout // 單次送出期限
+) {
+}
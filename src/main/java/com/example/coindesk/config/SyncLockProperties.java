@@ -0,0 +1,20 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.time.Duration; // 匯入 Duration，表示時間長度（例如 15m）
+
+/**
+ * 排程同步的叢集鎖設定（對應 application.yml 的 coindesk.sync.lock.*）
+ * - enabled：是否使用 DB 租約選出單一同步節點；關閉時每個節點都自行同步（單機部署）
+ * - leaseDuration：租約長度；需大於排程間隔，leader 才能在下一次排程時續約；leader 停止後最晚 leaseDuration 內由其他節點接手
+ * - nodeId：節點識別；未設定時以「主機名稱-PID-亂數」產生
+ */
+@ConfigurationProperties(prefix = "coindesk.sync.lock")
+public record SyncLockProperties(
+        @DefaultValue("true") boolean enabled, // 是否啟用叢集鎖
+        @DefaultValue("15m") Duration leaseDuration, // 租約長度
+        String nodeId // 節點識別（可為 null）
+) {
+}
@@ -0,0 +1,25 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.time.Duration; // 匯入 Duration，表示時間長度（例如 30s、10m）
+
+/**
+ * 自適應同步排程設定（對應 application.yml 的 coindesk.sync.schedule.*）
+ * - enabled：是否啟用排程同步（關閉時只能以 POST /coindesk/sync 手動同步）
+ * - initialInterval：尚未學到上游更新週期前使用的間隔；啟動後第一次同步也在這個時間之後
+ * - minInterval / maxInterval：間隔的上下限（失敗退避也不會超過 maxInterval）
+ * - volatileThreshold：匯率相對變動（平滑後）達到此值即視為波動期，間隔減半
+ * - smoothing：上游更新週期與波動度的指數平滑係數（0~1，越大越重視最近一次）
+ */
+@ConfigurationProperties(prefix = "coindesk.sync.schedule")
+public record SyncScheduleProperties(
+        @DefaultValue("true") boolean enabled, // 是否啟用排程
+        @DefaultValue("1m") Duration initialInterval, // 初始間隔
+        @DefaultValue("30s") Duration minInterval, // 最短間隔
+        @DefaultValue("10m") Duration maxInterval, // 最長間隔
+        @DefaultValue("0.005") double volatileThreshold, // 波動門檻（0.5%）
+        @DefaultValue("0.3") double smoothing // 平滑係數
+) {
+}
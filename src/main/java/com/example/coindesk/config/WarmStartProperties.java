@@ -0,0 +1,18 @@
+package com.example.coindesk.config; // 定義此類別所在的 package（專案中的模組位置）
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // 匯入 @ConfigurationProperties，將 application.yml 的設定綁定成物件
+import org.springframework.boot.context.properties.bind.DefaultValue; // 匯入 @DefaultValue，未設定時使用的預設值
+
+import java.nio.file.Path; // 匯入 Path，暖啟動檔案位置
+
+/**
+ * 暖啟動設定（對應 application.yml 的 coindesk.warm-start.*）
+ * - enabled：每次匯率變動後保存上游快照與中文名稱對照，啟動時在接受請求前載入
+ * - file：保存位置（不存在或內容損毀時照常冷啟動）
+ */
+@ConfigurationProperties(prefix = "coindesk.warm-start")
+public record WarmStartProperties(
+        @DefaultValue("true") boolean enabled, // 是否啟用暖啟動
+        @DefaultValue("./data/warm-start.bin") Path file // 保存位置
+) {
+}
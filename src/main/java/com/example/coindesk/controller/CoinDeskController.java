@@ -1,13 +1,15 @@
 package com.example.coindesk.controller; // 定義此類別所在的 package（模組位置）
 
-import com.example.coindesk.dto.ConvertedDtos; // 匯入 DTO（資料傳輸物件），用於回傳轉換後的匯率資訊
 import com.example.coindesk.service.CoinDeskConvertService; // 匯入 Service：負責處理 CoinDesk 原始 JSON → 轉換後的格式
 import com.example.coindesk.service.CoinDeskService; // 匯入 Service：負責呼叫 CoinDesk API（或回傳 fallback）
+import com.example.coindesk.service.RateStreamService; // 匯入 Service：負責 SSE 匯率推播
 import com.example.coindesk.service.RateSyncService; // 匯入 Service：負責執行匯率同步的邏輯
 import org.springframework.http.MediaType; // 匯入 Spring 提供的 MediaType，用來指定 API 回傳的 Content-Type
+import org.springframework.http.ResponseEntity; // 匯入 ResponseEntity，可自訂回應標頭（ETag）
 import org.springframework.web.bind.annotation.GetMapping; // 匯入 @GetMapping，標示 HTTP GET 方法的 API
 import org.springframework.web.bind.annotation.PostMapping; // 匯入 @PostMapping，標示 HTTP POST 方法的 API
 import org.springframework.web.bind.annotation.RestController; // 匯入 @RestController，表示這是一個 REST API 控制器（回傳 JSON 而非頁面）
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // 匯入 SseEmitter，Server-Sent Events 長連線
 
 /**
  * 提供「原始 CoinDesk JSON」的端點（含 fallback）。
@@ -18,12 +20,15 @@ public class CoinDeskController { // 定義一個控制器類別，名稱 CoinDe
     private final CoinDeskService service; // 宣告一個成員變數，用來存放 CoinDeskService
     private final CoinDeskConvertService convertService; // 宣告一個成員變數，用來存放 CoinDeskConvertService
     private final RateSyncService rateSyncService; // 宣告一個成員變數，用來存放 RateSyncService
+    private final RateStreamService rateStreamService; // 宣告一個成員變數，用來存放 RateStreamService
 
-    // 建構子注入（Spring 會自動幫你注入三個 service 並存起來）
-    public CoinDeskController(CoinDeskService service, CoinDeskConvertService convertService, RateSyncService rateSyncService) {
+    // 建構子注入（Spring 會自動幫你注入四個 service 並存起來）
+    public CoinDeskController(CoinDeskService service, CoinDeskConvertService convertService, RateSyncService rateSyncService,
+                              RateStreamService rateStreamService) {
         this.service = service;
         this.convertService = convertService;
         this.rateSyncService = rateSyncService;
+        this.rateStreamService = rateStreamService;
     }
 
     // 定義 GET API，回傳 JSON 格式
@@ -33,9 +38,20 @@ public class CoinDeskController { // 定義一個控制器類別，名稱 CoinDe
     }
 
     // 定義 GET API
-    @GetMapping("/coindesk/converted")
-    public ConvertedDtos.Response getConverted() {
-        return convertService.getConverted(); // 呼叫 CoinDeskConvertService，取得轉換後的 DTO
+    // - 回傳已序列化好的 JSON 位元組，並附上強 ETag
+    // - 用戶端帶 If-None-Match 且 ETag 相符時，Spring 會自動回 304 Not Modified（不送 body）
+    @GetMapping(value = "/coindesk/converted", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getConverted() {
+        CoinDeskConvertService.RenderedResponse rendered = convertService.getConvertedJson(); // 取得快取的序列化結果
+        return ResponseEntity.ok()
+                .eTag(rendered.etag()) // 內容雜湊作為 ETag
+                .body(rendered.body());
+    }
+
+    // 定義 SSE API：連線後先收到目前的轉換結果，之後每次同步寫入有變動的匯率時推播（事件名稱 rates）
+    @GetMapping(value = "/coindesk/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return rateStreamService.subscribe();
     }
 
     // 定義 POST API
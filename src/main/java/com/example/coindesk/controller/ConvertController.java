@@ -0,0 +1,52 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.dto.ConvertDtos; // 匯入換算 DTO
+import com.example.coindesk.service.BatchConvertService; // 匯入批次換算服務
+import com.example.coindesk.service.CrossRateService; // 匯入交叉匯率換算服務
+import org.springframework.http.MediaType; // 匯入 MediaType，JSON / NDJSON
+import org.springframework.http.ResponseEntity; // 匯入 ResponseEntity，指定回應格式
+import org.springframework.web.bind.annotation.*; // 匯入 Spring Web 的註解（@RestController, @GetMapping 等）
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody; // 匯入 StreamingResponseBody，邊讀邊寫回應
+
+import java.io.InputStream; // 匯入 InputStream，直接讀取請求內容（不整批反序列化）
+import java.math.BigDecimal; // 匯入 BigDecimal，換算金額
+
+@RestController // 標記這是一個 REST API Controller（方法會直接輸出 JSON）
+@RequestMapping("/convert") // 定義這個 Controller 底下的 API 路徑前綴為 /convert
+public class ConvertController {
+
+    private final CrossRateService crossRateService; // 宣告成員變數：交叉匯率換算服務
+    private final BatchConvertService batchConvertService; // 宣告成員變數：批次換算服務
+
+    // 建構子注入，Spring 會自動幫你注入
+    public ConvertController(CrossRateService crossRateService, BatchConvertService batchConvertService) {
+        this.crossRateService = crossRateService;
+        this.batchConvertService = batchConvertService;
+    }
+
+    // 幣別換算（例：/convert?from=EUR&to=GBP&amount=100）
+    // - from / to：幣別代碼，支援 BTC 與 bpi 中的各幣別
+    // - amount：金額，預設 1（即回傳匯率本身）
+    @GetMapping
+    public ConvertDtos.Response convert(@RequestParam String from,
+                                        @RequestParam String to,
+                                        @RequestParam(defaultValue = "1") BigDecimal amount) {
+        return crossRateService.convert(from, to, amount);
+    }
+
+    // 批次換算（JSON 陣列）：[{"from":"EUR","to":"GBP","amount":100}, ...] → 依序回傳結果陣列
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchJson(InputStream body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> batchConvertService.convert(body, out, false));
+    }
+
+    // 批次換算（NDJSON）：每行一筆輸入 → 每行一筆結果
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchNdjson(InputStream body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> batchConvertService.convert(body, out, true));
+    }
+}
@@ -1,28 +1,82 @@
 package com.example.coindesk.controller; // 定義這個類別所在的套件位置
 
 import com.example.coindesk.dto.CurrencyDtos; // 匯入 DTO（資料傳輸物件），用來定義幣別 API 的請求與回應格式
+import com.example.coindesk.service.CurrencyBulkService; // 匯入 CurrencyBulkService，負責批次匯入 / 匯出
 import com.example.coindesk.service.CurrencyService; // 匯入 CurrencyService，負責處理幣別資料表的業務邏輯
 import jakarta.validation.Valid; // 匯入 @Valid，用來驗證請求物件（例如新增、修改幣別）
 import org.springframework.http.HttpStatus; // 匯入 HttpStatus，讓 API 可以指定回應的 HTTP 狀態碼
+import org.springframework.http.MediaType; // 匯入 MediaType，CSV / NDJSON
+import org.springframework.http.ResponseEntity; // 匯入 ResponseEntity，指定回應格式
 import org.springframework.web.bind.annotation.*; // 匯入 Spring Web 的註解（@RestController, @GetMapping, @PostMapping 等）
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，不支援的匯出格式回 400
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody; // 匯入 StreamingResponseBody，邊讀邊寫回應
 
+import java.io.IOException; // 匯入 IOException
+import java.io.InputStream; // 匯入 InputStream，直接讀取請求內容（不整批反序列化）
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
 import java.util.List; // 匯入 List，用於回傳多筆資料
 
 @RestController // 標記這是一個 REST API Controller（方法會直接輸出 JSON）
 @RequestMapping("/currencies") // 定義這個 Controller 底下的 API 路徑前綴為 /currencies
 public class CurrencyController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor"; // 分頁：下一頁游標標頭
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8); // CSV 回應格式
 
     private final CurrencyService service; // 宣告成員變數：幣別服務，用來處理邏輯
+    private final CurrencyBulkService bulkService; // 宣告成員變數：批次匯入 / 匯出服務
 
-    // 建構子注入 CurrencyService，Spring 會自動幫你注入
-    public CurrencyController(CurrencyService service) {
+    // 建構子注入 CurrencyService 與 CurrencyBulkService，Spring 會自動幫你注入
+    public CurrencyController(CurrencyService service, CurrencyBulkService bulkService) {
         this.service = service;
+        this.bulkService = bulkService;
     }
 
-    // 查詢所有幣別，並依代碼排序
+    // 查詢所有幣別，依代碼排序
+    // - 以 JSON 陣列串流輸出（逐筆讀取 DB，不一次載入整張表）
+    @GetMapping(params = {"!after", "!limit"})
+    public ResponseEntity<StreamingResponseBody> list() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(service::writeSorted);
+    }
+
+    // 分頁查詢幣別（keyset，例：/currencies?limit=50、/currencies?after=GBP&limit=50）
+    // - 回應本頁的 JSON 陣列；還有下一頁時以 X-Next-Cursor 標頭提供下一頁的 after 參數
     @GetMapping
-    public List<CurrencyDtos.Response> list() {
-        return service.listSorted();
+    public ResponseEntity<List<CurrencyDtos.Response>> page(@RequestParam(required = false) String after,
+                                                            @RequestParam(defaultValue = "" + CurrencyService.DEFAULT_PAGE_SIZE) int limit) {
+        CurrencyDtos.Page page = service.page(after, limit);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
+    }
+
+    // 批次匯出（例：/currencies/export?format=csv）
+    // - format：ndjson（預設）或 csv（含標題列 code,nameZh）
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = switch (format.toLowerCase()) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支援的匯出格式： " + format);
+        };
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .body(out -> bulkService.exportCurrencies(out, csv));
+    }
+
+    // 批次匯入（CSV）：第一列為標題 code,nameZh；已存在的代碼更新中文名稱，其餘新增
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public CurrencyDtos.ImportResult importCsv(InputStream body) throws IOException {
+        return bulkService.importCurrencies(body, true);
+    }
+
+    // 批次匯入（NDJSON）：每行一筆 {"code":"JPY","nameZh":"日圓"}
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CurrencyDtos.ImportResult importNdjson(InputStream body) throws IOException {
+        return bulkService.importCurrencies(body, false);
     }
 
     // 查詢單一幣別（依代碼）
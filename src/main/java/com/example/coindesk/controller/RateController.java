@@ -0,0 +1,75 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.dto.CandleDtos; // 匯入 K 線 DTO
+import com.example.coindesk.dto.RateDtos; // 匯入目前匯率 DTO
+import com.example.coindesk.dto.RateHistoryDtos; // 匯入匯率歷史 DTO
+import com.example.coindesk.service.CandleService; // 匯入 K 線服務
+import com.example.coindesk.service.RateHistoryService; // 匯入匯率歷史服務
+import com.example.coindesk.service.RateStore; // 匯入目前匯率的記憶體讀取端
+import org.springframework.boot.convert.DurationStyle; // 匯入 DurationStyle，解析 1h / 15m / PT1H 等格式
+import org.springframework.format.annotation.DateTimeFormat; // 匯入 @DateTimeFormat，解析 ISO 時間參數
+import org.springframework.http.HttpStatus; // 匯入 HttpStatus，step 格式錯誤回 400
+import org.springframework.web.bind.annotation.*; // 匯入 Spring Web 的註解（@RestController, @GetMapping 等）
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，回傳指定的 HTTP 狀態
+
+import java.time.Duration; // 匯入 Duration，解析後的桶寬
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.time.ZoneOffset; // 匯入 ZoneOffset，歷史資料的時間以 UTC 儲存
+import java.time.temporal.ChronoUnit; // 匯入 ChronoUnit，純數字的 step 以秒為單位
+
+@RestController // 標記這是一個 REST API Controller（方法會直接輸出 JSON）
+@RequestMapping("/rates") // 定義這個 Controller 底下的 API 路徑前綴為 /rates
+public class RateController {
+
+    private final RateHistoryService historyService; // 宣告成員變數：匯率歷史服務
+    private final CandleService candleService; // 宣告成員變數：K 線服務
+    private final RateStore rateStore; // 宣告成員變數：目前匯率（記憶體快照）
+
+    // 建構子注入，Spring 會自動幫你注入
+    public RateController(RateHistoryService historyService, CandleService candleService, RateStore rateStore) {
+        this.historyService = historyService;
+        this.candleService = candleService;
+        this.rateStore = rateStore;
+    }
+
+    // 查詢所有幣別的目前匯率（依代碼排序；由記憶體快照提供，不查 DB）
+    @GetMapping
+    public RateDtos.Response all() {
+        return rateStore.all();
+    }
+
+    // 查詢單一幣別的目前匯率（查無資料 → 404）
+    @GetMapping("/{code}")
+    public RateDtos.Rate one(@PathVariable String code) {
+        return rateStore.get(code);
+    }
+
+    // 查詢匯率歷史（降採樣）
+    // - from / to：ISO 時間（UTC，例：2022-08-03T00:00:00），預設為最近 24 小時
+    // - step：桶寬，支援 1h、15m、PT1H 或純秒數，預設 1h；格式錯誤 → 400
+    @GetMapping("/{code}/history")
+    public RateHistoryDtos.Response history(@PathVariable String code,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                            @RequestParam(defaultValue = "1h") String step) {
+        Duration bucket;
+        try {
+            bucket = DurationStyle.detectAndParse(step, ChronoUnit.SECONDS);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "step 格式錯誤：" + step, ex);
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now(ZoneOffset.UTC); // 歷史時間點來自 updatedISO（UTC）
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        return historyService.history(code, start, end, bucket);
+    }
+
+    // 查詢 K 線（open/high/low/close/count，由記憶體提供，不掃描原始資料）
+    // - interval：1m、1h 或 1d，預設 1m
+    // - limit：最多回傳根數（依時間排序，最後一根可能尚未收盤），預設 100
+    @GetMapping("/{code}/candles")
+    public CandleDtos.Response candles(@PathVariable String code,
+                                       @RequestParam(defaultValue = "1m") String interval,
+                                       @RequestParam(defaultValue = "100") int limit) {
+        return candleService.candles(code, interval, limit);
+    }
+}
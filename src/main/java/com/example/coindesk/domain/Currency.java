@@ -1,11 +1,15 @@
 package com.example.coindesk.domain; // 定義這個類別所在的套件位置
 
 import jakarta.persistence.*; // 匯入JPA(Jakarta Persistence API)，用來標註類別與資料庫表格的對應，以及生命周期事件處理
+import org.hibernate.annotations.Cache; // 匯入 Hibernate @Cache，指定二級快取區域與策略
+import org.hibernate.annotations.CacheConcurrencyStrategy; // 匯入快取併發策略
 
 import java.time.LocalDateTime; // 匯入 Java 標準庫的 LocalDateTime
 
 @Entity // 告訴 JPA 這是一個實體類別，會對應到資料表
 @Table(name = "currency") // 對應到資料表名稱（小寫、單數，以免與保留字衝突）
+@Cacheable // 啟用二級快取：findById 先查記憶體，未命中才查 DB
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "currency") // 寫入時同步更新快取（區域設定見 EntityCacheConfig）
 public class Currency {
 
     @Id // 主鍵（Primary Key）
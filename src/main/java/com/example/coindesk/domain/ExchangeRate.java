@@ -1,9 +1,16 @@
 package com.example.coindesk.domain; // 定義這個類別所在的套件位置
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column; // JPA(Jakarta Persistence API) 的標註，用來把 Java 類別與資料表做映射（ORM）
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.hibernate.annotations.Cache; // 匯入 Hibernate @Cache，指定二級快取區域與策略
+import org.hibernate.annotations.CacheConcurrencyStrategy; // 匯入快取併發策略
+import org.springframework.data.domain.Persistable; // Spring Data 介面：由實體自行判斷是否為新資料
 
 import java.math.BigDecimal; // BigDecimal 用於處理金額或精確數值（避免浮點數誤差）
 import java.time.LocalDateTime; // 匯入 Java 標準庫的 LocalDateTime
@@ -12,10 +19,14 @@ import java.time.LocalDateTime; // 匯入 Java 標準庫的 LocalDateTime
  * ExchangeRate 實體類別
  * - 對應到資料表 exchange_rate
  * - 儲存某幣別的即時匯率與最後更新時間
+ * - 實作 Persistable：主鍵為自行指定的幣別代碼，若不實作，save() 會先 SELECT 再決定 INSERT/UPDATE；
+ *   實作後新建的實體直接 persist，才能讓 INSERT 以 JDBC batch 送出
  */
 @Entity // 宣告這是一個 JPA 實體類別
 @Table(name = "exchange_rate") // 對應的資料表名稱
-public class ExchangeRate {
+@Cacheable // 啟用二級快取：findById / findAllById 先查記憶體，未命中才查 DB
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exchange-rate") // 同步寫入時一併更新快取（區域設定見 EntityCacheConfig）
+public class ExchangeRate implements Persistable<String> {
     @Id // 主鍵，使用「幣別代碼」作為唯一識別
     @Column(name = "code", length = 30, nullable = false) // 設定長度 30，不可為空，且必須唯一
     private String code; // 幣別代碼，例如：USD、GBP、EUR
@@ -26,6 +37,9 @@ public class ExchangeRate {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt; // 匯率的最後更新時間
 
+    @Transient // 不對應資料表欄位
+    private boolean isNew = true; // 是否為尚未寫入 DB 的新實體（由 DB 載入或寫入後改為 false）
+
     // ---- 建構子（JPA 需要無參數建構子 protected 避免外部隨意呼叫） ----
     protected ExchangeRate() {
     }
@@ -38,6 +52,24 @@ public class ExchangeRate {
         this.updatedAt = updatedAt;
     }
 
+    // ---- 生命週期掛鉤：由 DB 載入或寫入後，即不再是新實體 ----
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+
+    // ---- Persistable ----
+    @Override
+    public String getId() {
+        return code;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
     // ---- Getter / Setter ----
     public String getCode() {
         return code;
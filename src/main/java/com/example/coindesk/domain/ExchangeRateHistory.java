@@ -0,0 +1,59 @@
+package com.example.coindesk.domain; // 定義這個類別所在的套件位置
+
+import jakarta.persistence.*; // 匯入JPA(Jakarta Persistence API)，用來標註類別與資料庫表格的對應
+
+import java.math.BigDecimal; // BigDecimal 用於處理金額或精確數值（避免浮點數誤差）
+import java.time.LocalDateTime; // 匯入 Java 標準庫的 LocalDateTime
+
+/**
+ * ExchangeRateHistory 實體類別
+ * - 對應到資料表 exchange_rate_history
+ * - 只新增不修改（append-only）：每次同步為每個幣別記錄一筆 (code, recordedAt, rate)
+ * - (code, recorded_at) 為唯一索引：同一上游時間點重複同步不會產生重複資料，區間查詢也走這個索引
+ */
+@Entity // 宣告這是一個 JPA 實體類別
+@Table(name = "exchange_rate_history", indexes = {
+        @Index(name = "ux_rate_history_code_time", columnList = "code, recorded_at", unique = true) // 依幣別 + 時間的區間查詢索引
+})
+public class ExchangeRateHistory {
+    @Id // 主鍵：流水號
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // 由 DB 自動產生
+    private Long id;
+
+    @Column(name = "code", length = 30, nullable = false) // 幣別代碼，長度與 exchange_rate 相同
+    private String code; // 幣別代碼，例如：USD、GBP、EUR
+
+    @Column(name = "rate", precision = 18, scale = 6, nullable = false) // 與 exchange_rate.rate 相同精度
+    private BigDecimal rate; // 該時間點的匯率
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt; // 匯率時間（上游 updatedISO）
+
+    // ---- 建構子（JPA 需要無參數建構子 protected 避免外部隨意呼叫） ----
+    protected ExchangeRateHistory() {
+    }
+
+    // 自訂建構子，範例：new ExchangeRateHistory("USD", new BigDecimal("123.456789"), LocalDateTime.now());
+    public ExchangeRateHistory(String code, BigDecimal rate, LocalDateTime recordedAt) {
+        this.code = code;
+        this.rate = rate;
+        this.recordedAt = recordedAt;
+    }
+
+    // ---- Getter（歷史資料不提供 Setter） ----
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+}
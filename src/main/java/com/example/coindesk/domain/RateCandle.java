@@ -0,0 +1,92 @@
+package com.example.coindesk.domain; // 定義這個類別所在的套件位置
+
+import jakarta.persistence.*; // 匯入JPA(Jakarta Persistence API)，用來標註類別與資料庫表格的對應
+
+import java.math.BigDecimal; // BigDecimal 用於處理金額或精確數值（避免浮點數誤差）
+import java.time.LocalDateTime; // 匯入 Java 標準庫的 LocalDateTime
+
+/**
+ * RateCandle 實體類別
+ * - 對應到資料表 rate_candle
+ * - K 線（open/high/low/close/tick 數），由 CandleService 以 JDBC 批次 MERGE 寫入
+ * - 每個幣別 / 週期最新的一根為進行中的 K 線（每次同步都覆寫），重新啟動後由它接續，不會另開一根
+ * - (code, resolution, start_at) 為唯一索引：同一根 K 線重複寫入只會覆寫，啟動時依週期與時間載入也走這個索引
+ */
+@Entity // 宣告這是一個 JPA 實體類別
+@Table(name = "rate_candle", indexes = {
+        @Index(name = "ux_rate_candle_code_res_start", columnList = "code, resolution, start_at", unique = true),
+        @Index(name = "ix_rate_candle_res_start", columnList = "resolution, start_at") // 啟動時依週期載入最近的 K 線
+})
+public class RateCandle {
+    @Id // 主鍵：流水號
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // 由 DB 自動產生
+    private Long id;
+
+    @Column(name = "code", length = 30, nullable = false) // 幣別代碼，長度與 exchange_rate 相同
+    private String code;
+
+    @Column(name = "resolution", length = 8, nullable = false) // 週期：1m / 1h / 1d
+    private String resolution;
+
+    @Column(name = "start_at", nullable = false)
+    private LocalDateTime startAt; // K 線起始時間（UTC，與 updatedISO 相同時區）
+
+    @Column(name = "open_rate", precision = 18, scale = 6, nullable = false)
+    private BigDecimal openRate; // 開盤
+
+    @Column(name = "high_rate", precision = 18, scale = 6, nullable = false)
+    private BigDecimal highRate; // 最高
+
+    @Column(name = "low_rate", precision = 18, scale = 6, nullable = false)
+    private BigDecimal lowRate; // 最低
+
+    @Column(name = "close_rate", precision = 18, scale = 6, nullable = false)
+    private BigDecimal closeRate; // 收盤
+
+    @Column(name = "tick_count", nullable = false)
+    private long tickCount; // 期間內套用的匯率筆數
+
+    @Column(name = "last_tick_at")
+    private LocalDateTime lastTickAt; // 最後一筆 tick 的時間（UTC）；重新啟動後同一時間點重新套用不會重複計數
+
+    // ---- 建構子（JPA 需要無參數建構子 protected 避免外部隨意呼叫） ----
+    protected RateCandle() {
+    }
+
+    // ---- Getter（寫入由 CandleService 以 SQL 處理，不提供 Setter） ----
+    public String getCode() {
+        return code;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public LocalDateTime getStartAt() {
+        return startAt;
+    }
+
+    public BigDecimal getOpenRate() {
+        return openRate;
+    }
+
+    public BigDecimal getHighRate() {
+        return highRate;
+    }
+
+    public BigDecimal getLowRate() {
+        return lowRate;
+    }
+
+    public BigDecimal getCloseRate() {
+        return closeRate;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public LocalDateTime getLastTickAt() {
+        return lastTickAt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.coindesk.domain; // 定義這個類別所在的套件位置
+
+import jakarta.persistence.*; // 匯入JPA(Jakarta Persistence API)，用來標註類別與資料庫表格的對應
+
+import java.time.LocalDateTime; // 匯入 Java 標準庫的 LocalDateTime
+
+/**
+ * SyncLock 實體類別
+ * - 對應到資料表 sync_lock（由 ddl-auto 建立），多個節點共用同一個資料庫時用來選出負責同步的節點
+ * - 每一列是一個租約（lease）：owner 在 lockedUntil 之前持有；過期後任何節點都能接手
+ * - 讀寫由 SyncLeaseLock 以 JdbcTemplate 的條件式 UPDATE / INSERT 完成（單一語句，不需要交易）
+ */
+@Entity // 宣告這是一個 JPA 實體類別
+@Table(name = "sync_lock") // 指定對應的資料表名稱
+public class SyncLock {
+    @Id // 主鍵：鎖名稱（例如 rate-sync）
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "owner", length = 128, nullable = false)
+    private String owner; // 目前持有者（節點 ID）
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt; // 最近一次取得或續約的時間（UTC）
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil; // 租約到期時間（UTC）
+
+    // ---- 建構子（JPA 需要無參數建構子 protected 避免外部隨意呼叫） ----
+    protected SyncLock() {
+    }
+
+    // ---- Getter（寫入一律經由 SyncLeaseLock，不提供 Setter） ----
+    public String getName() {
+        return name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLockedAt() {
+        return lockedAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.coindesk.dto; // 定義此類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.databind.annotation.JsonSerialize; // 匯入 @JsonSerialize，指定匯率的輸出格式
+
+import java.time.LocalDateTime; // 匯入 LocalDateTime，表示 K 線起始時間
+import java.util.List; // 匯入 List，用於存放多根 K 線
+
+/**
+ * K 線 API 的回應資料結構
+ */
+public class CandleDtos {
+    /**
+     * Response：GET /rates/{code}/candles 的回傳物件
+     * - code：幣別代碼
+     * - interval：週期（1m / 1h / 1d）
+     * - candles：依時間排序的 K 線，最後一根可能尚未收盤
+     */
+    public record Response(
+            String code, // 幣別代碼
+            String interval, // 週期
+            List<Candle> candles // K 線清單
+    ) {
+    }
+
+    /**
+     * Candle：單根 K 線
+     * - start：起始時間（UTC）
+     * - open / high / low / close：開盤、最高、最低、收盤匯率
+     * - count：期間內套用的匯率筆數
+     * - closed：是否已收盤（false 表示仍在進行中）
+     */
+    public record Candle(
+            LocalDateTime start, // 起始時間
+            @JsonSerialize(using = FixedRate.JsonSerializer.class) long open, // 開盤（FixedRate）
+            @JsonSerialize(using = FixedRate.JsonSerializer.class) long high, // 最高（FixedRate）
+            @JsonSerialize(using = FixedRate.JsonSerializer.class) long low, // 最低（FixedRate）
+            @JsonSerialize(using = FixedRate.JsonSerializer.class) long close, // 收盤（FixedRate）
+            long count, // 筆數
+            boolean closed // 是否已收盤
+    ) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.coindesk.dto; // 定義此類別所在的套件位置
+
+import com.fasterxml.jackson.annotation.JsonInclude; // 匯入 @JsonInclude，批次結果省略 null 欄位
+
+import java.math.BigDecimal; // BigDecimal 用於處理金額或精確數值（避免浮點數誤差）
+import java.time.LocalDateTime; // 匯入 LocalDateTime，表示匯率時間
+
+/**
+ * 幣別換算 API 的資料結構
+ */
+public class ConvertDtos {
+    /**
+     * Response：GET /convert 的回傳物件
+     * - from / to：來源與目標幣別
+     * - amount：換算金額
+     * - rate：1 單位 from 可換多少 to（交叉匯率）
+     * - result：amount × rate（小數 6 位，四捨五入）
+     * - asOf：使用的匯率時間
+     */
+    public record Response(
+            String from, // 來源幣別
+            String to, // 目標幣別
+            BigDecimal amount, // 換算金額
+            BigDecimal rate, // 交叉匯率
+            BigDecimal result, // 換算結果
+            LocalDateTime asOf // 匯率時間
+    ) {
+    }
+
+    /**
+     * BatchRow：POST /convert/batch 的單筆輸入（JSON 陣列元素或 NDJSON 一行）
+     */
+    public record BatchRow(
+            String from, // 來源幣別
+            String to, // 目標幣別
+            BigDecimal amount // 換算金額
+    ) {
+    }
+
+    /**
+     * BatchResult：POST /convert/batch 的單筆輸出（順序與輸入相同）
+     * - 成功：result 為換算結果，error 省略
+     * - 失敗：error 為錯誤原因，result 省略（不影響其他筆）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchResult(
+            String from, // 來源幣別
+            String to, // 目標幣別
+            BigDecimal amount, // 換算金額
+            BigDecimal result, // 換算結果
+            String error // 錯誤原因
+    ) {
+    }
+}
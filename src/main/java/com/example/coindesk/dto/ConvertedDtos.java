@@ -1,6 +1,7 @@
 package com.example.coindesk.dto; // 定義此類別所在的套件位置
 
-import java.math.BigDecimal; // BigDecimal 用於處理金額或精確數值（避免浮點數誤差）
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.databind.annotation.JsonSerialize; // 匯入 @JsonSerialize，指定匯率的輸出格式
 import java.util.List; // 匯入 List，用於存放多筆幣別明細
 
 /**
@@ -23,12 +24,12 @@ public class ConvertedDtos {
      * Item：單筆幣別的明細
      * - code：幣別代碼（例如：USD、EUR）
      * - nameZh：幣別中文名稱（從 DB 對照表取得）
-     * - rate：匯率數值（對應 coindesk API 的 rate_float）
+     * - rate：匯率數值（對應 coindesk API 的 rate_float），以 FixedRate（匯率 × 10^6）表示，輸出為小數（例：23342.0112）
      */
     public record Item(
             String code, // 幣別代碼
             String nameZh, // 幣別中文名 (DB 對照)
-            BigDecimal rate // rate_float
+            @JsonSerialize(using = FixedRate.JsonSerializer.class) long rate // rate_float（FixedRate）
     ) {
     }
 }
@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank; // 驗證欄位不可為空白
 import jakarta.validation.constraints.Pattern; // 驗證字串格式（例如只允許字母）
 import jakarta.validation.constraints.Size; // 驗證字串長度限制
 
+import java.util.List; // 匯入 List，匯入錯誤清單
+
 /**
  * Currency 的 DTO 集合
  * - 使用 record 表達不可變物件（Immutable），程式更簡潔與安全
@@ -49,4 +51,45 @@ public class CurrencyDtos {
             String nameZh // 幣別中文名稱
     ) {
     }
+
+    /**
+     * 分頁查詢結果（GET /currencies?after=&limit=）
+     * - items：本頁資料（依代碼升冪）
+     * - nextCursor：下一頁的 after 參數（本頁最後一筆代碼）；已是最後一頁時為 null
+     */
+    public record Page(
+            List<Response> items, // 本頁資料
+            String nextCursor // 下一頁游標
+    ) {
+    }
+
+    /**
+     * 批次匯入結果（POST /currencies/import）
+     * - received：讀到的資料列數
+     * - inserted / updated / unchanged：新增、修改中文名稱、內容相同的筆數
+     * - rejected：驗證失敗或格式錯誤的筆數
+     * - errors：錯誤明細（最多回傳前 100 筆）
+     */
+    public record ImportResult(
+            long received, // 讀到的筆數
+            long inserted, // 新增筆數
+            long updated, // 更新筆數
+            long unchanged, // 未變動筆數
+            long rejected, // 拒絕筆數
+            List<ImportError> errors // 錯誤明細
+    ) {
+    }
+
+    /**
+     * 批次匯入的單筆錯誤
+     * - row：資料列序號（從 1 開始，不含 CSV 標題列）
+     * - code：該列的幣別代碼（可能為 null）
+     * - message：錯誤原因
+     */
+    public record ImportError(
+            long row, // 資料列序號
+            String code, // 幣別代碼
+            String message // 錯誤原因
+    ) {
+    }
 }
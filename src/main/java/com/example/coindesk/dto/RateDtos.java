@@ -0,0 +1,36 @@
+package com.example.coindesk.dto; // 定義此類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.databind.annotation.JsonSerialize; // 匯入 @JsonSerialize，指定匯率的輸出格式
+
+import java.time.LocalDateTime; // 匯入 LocalDateTime，表示匯率時間
+import java.util.List; // 匯入 List，用於存放多筆匯率
+
+/**
+ * 目前匯率 API 的回應資料結構
+ */
+public class RateDtos {
+    /**
+     * Response：GET /rates 的回傳物件
+     * - asOf：所有幣別中最新的匯率時間（尚無資料時為 null）
+     * - rates：依代碼排序的匯率
+     */
+    public record Response(
+            LocalDateTime asOf, // 最新匯率時間
+            List<Rate> rates // 匯率清單
+    ) {
+    }
+
+    /**
+     * Rate：單一幣別的目前匯率（GET /rates/{code} 的回傳物件）
+     * - code：幣別代碼
+     * - rate：1 BTC 可換多少單位，以 FixedRate（匯率 × 10^6）表示，輸出為小數
+     * - updatedAt：此幣別匯率的更新時間
+     */
+    public record Rate(
+            String code, // 幣別代碼
+            @JsonSerialize(using = FixedRate.JsonSerializer.class) long rate, // 匯率（FixedRate）
+            LocalDateTime updatedAt // 更新時間
+    ) {
+    }
+}
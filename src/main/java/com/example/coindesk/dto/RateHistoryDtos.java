@@ -0,0 +1,42 @@
+package com.example.coindesk.dto; // 定義此類別所在的套件位置
+
+import java.math.BigDecimal; // BigDecimal 用於處理金額或精確數值（避免浮點數誤差）
+import java.time.LocalDateTime; // 匯入 LocalDateTime，表示時間桶起點
+import java.util.List; // 匯入 List，用於存放多個時間桶
+
+/**
+ * 匯率歷史 API 的回應資料結構
+ */
+public class RateHistoryDtos {
+    /**
+     * Response：GET /rates/{code}/history 的回傳物件
+     * - code：幣別代碼
+     * - from / to：查詢區間（含 from，不含 to）
+     * - stepSeconds：每個時間桶的寬度（秒）
+     * - buckets：有資料的時間桶（沒有資料的桶不回傳）
+     */
+    public record Response(
+            String code, // 幣別代碼
+            LocalDateTime from, // 區間起點
+            LocalDateTime to, // 區間終點
+            long stepSeconds, // 桶寬（秒）
+            List<Bucket> buckets // 時間桶清單
+    ) {
+    }
+
+    /**
+     * Bucket：單一時間桶的彙總
+     * - start：桶的起始時間
+     * - last / avg / min / max：桶內最後一筆、平均、最低、最高匯率
+     * - count：桶內原始筆數
+     */
+    public record Bucket(
+            LocalDateTime start, // 桶起始時間
+            BigDecimal last, // 最後一筆
+            BigDecimal avg, // 平均
+            BigDecimal min, // 最低
+            BigDecimal max, // 最高
+            long count // 筆數
+    ) {
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.coindesk.repository; // 定義這個介面所在的套件位置
 
 import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import jakarta.persistence.QueryHint; // 匯入 QueryHint，設定查詢快取與 JDBC fetch size
+import org.hibernate.jpa.HibernateHints; // 匯入 Hibernate 查詢提示名稱
+import org.springframework.data.domain.Limit; // 匯入 Limit，限制查詢筆數（分頁用）
 import org.springframework.data.jpa.repository.JpaRepository; // 匯入 JPA Repository，提供 CRUD 操作
+import org.springframework.data.jpa.repository.Query; // 匯入 @Query，自訂 JPQL
+import org.springframework.data.jpa.repository.QueryHints; // 匯入 @QueryHints
 import org.springframework.stereotype.Repository; // 匯入 Repository 註解
 
 import java.util.List; // 匯入 List 容器類別
+import java.util.stream.Stream; // 匯入 Stream，逐筆讀取（匯出用）
 
 /**
  * Currency 的 Repository 介面
@@ -24,4 +30,22 @@ public interface CurrencyRepository extends JpaRepository<Currency, String> {
      * - 用於建立新資料或系統預載時的驗證
      */
     boolean existsByCode(String code);
+
+    /**
+     * 查詢代碼大於 after 的幣別，依代碼升冪排序（keyset 分頁）
+     * - 以主鍵索引定位起點，不使用 OFFSET，越後面的頁面也不會變慢
+     * - 啟用查詢快取（GET /currencies?limit=...）：每組 after / limit 的結果（代碼清單）存在查詢快取，
+     *   實體本身由二級快取提供；currency 表有異動時自動失效
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Currency> findByCodeGreaterThanOrderByCodeAsc(String after, Limit limit);
+
+    /**
+     * 依代碼排序逐筆讀取全部幣別（GET /currencies 串流輸出、匯出用）
+     * - 以資料庫游標分批取回（fetch size 500），不會一次載入整張表
+     * - 必須在交易內使用並關閉 Stream
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Currency c order by c.code")
+    Stream<Currency> streamAllByOrderByCodeAsc();
 }
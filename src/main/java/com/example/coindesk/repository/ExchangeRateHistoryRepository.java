@@ -0,0 +1,59 @@
+package com.example.coindesk.repository; // 定義這個介面所在的套件位置
+
+import com.example.coindesk.domain.ExchangeRateHistory; // 匯入 ExchangeRateHistory 實體類別
+import org.springframework.data.jpa.repository.JpaRepository; // 匯入 JPA Repository，提供 CRUD 操作
+import org.springframework.data.jpa.repository.Query; // 匯入 @Query，自訂查詢語句
+import org.springframework.data.repository.query.Param; // 匯入 @Param，綁定具名參數
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+
+/**
+ * ExchangeRateHistory 的 Repository 介面
+ * - 寫入由 RateHistoryService 以 JDBC 批次 MERGE 處理（append-only，不經過實體生命週期）
+ * - 查詢在 DB 端完成降採樣（downsample），只把每個時間桶的彙總結果傳回 JVM
+ */
+public interface ExchangeRateHistoryRepository extends JpaRepository<ExchangeRateHistory, Long> {
+
+    /**
+     * 依時間桶彙總匯率歷史
+     * - bucket：自 from 起算的第幾個桶（秒數差 / 桶寬秒數，整數除法）
+     * - last：桶內最後一筆（以 recorded_at 最大者回查）
+     * - 走 (code, recorded_at) 索引做區間掃描，不會載入每一筆原始資料
+     */
+    @Query(value = """
+            SELECT b.bucket AS bucket, b.cnt AS count, b.min_rate AS min, b.max_rate AS max, b.avg_rate AS avg, h.rate AS last
+            FROM (
+                SELECT DATEDIFF(SECOND, :from, recorded_at) / :step AS bucket,
+                       COUNT(*) AS cnt, MIN(rate) AS min_rate, MAX(rate) AS max_rate, AVG(rate) AS avg_rate,
+                       MAX(recorded_at) AS last_at
+                FROM exchange_rate_history
+                WHERE code = :code AND recorded_at >= :from AND recorded_at < :to
+                GROUP BY bucket
+            ) b
+            JOIN exchange_rate_history h ON h.code = :code AND h.recorded_at = b.last_at
+            ORDER BY b.bucket
+            """, nativeQuery = true)
+    List<Bucket> downsample(@Param("code") String code,
+                            @Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to,
+                            @Param("step") long stepSeconds);
+
+    /**
+     * 降採樣結果（介面投影，欄位名稱對應查詢中的別名）
+     */
+    interface Bucket {
+        long getBucket(); // 第幾個時間桶
+
+        long getCount(); // 桶內筆數
+
+        BigDecimal getMin(); // 最低匯率
+
+        BigDecimal getMax(); // 最高匯率
+
+        BigDecimal getAvg(); // 平均匯率
+
+        BigDecimal getLast(); // 桶內最後一筆匯率
+    }
+}
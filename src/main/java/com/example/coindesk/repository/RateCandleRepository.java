@@ -0,0 +1,26 @@
+package com.example.coindesk.repository; // 定義這個介面所在的套件位置
+
+import com.example.coindesk.domain.RateCandle; // 匯入 RateCandle 實體類別
+import org.springframework.data.jpa.repository.JpaRepository; // 匯入 JPA Repository，提供 CRUD 操作
+
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+import java.util.Optional; // 匯入 Optional
+
+/**
+ * RateCandle 的 Repository 介面
+ * - 寫入由 CandleService 以 JDBC 批次 MERGE 處理
+ * - 只在啟動時讀取，重建記憶體中的環狀緩衝區；API 查詢不讀資料表
+ */
+public interface RateCandleRepository extends JpaRepository<RateCandle, Long> {
+
+    /**
+     * 指定週期最新的一根 K 線（決定要載入的時間範圍）
+     */
+    Optional<RateCandle> findTopByResolutionOrderByStartAtDesc(String resolution);
+
+    /**
+     * 指定週期、起始時間不早於 since 的 K 線（依時間排序）
+     */
+    List<RateCandle> findByResolutionAndStartAtGreaterThanEqualOrderByStartAtAsc(String resolution, LocalDateTime since);
+}
@@ -0,0 +1,127 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.SyncScheduleProperties; // 匯入自適應排程設定
+
+import java.time.Duration; // 匯入 Duration，同步間隔
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，上游更新時間
+
+/**
+ * 自適應同步間隔
+ * - 更新週期：由連續兩個不同 updatedISO 的時間差學習，作為基準間隔（學到之前使用 initialInterval）
+ *   - 兩次輪詢之間上游可能更新了好幾次，時間差只是週期的上限；只有同一個 updatedISO 被看到不只一次
+ *     （輪詢比上游快）之後的時間差才接近真實週期，這時才做指數平滑（可往上修正）
+ *   - 其餘情況只在時間差更短時往下修正，週期不會跟著輪詢間隔（或平靜時放寬的間隔）一起膨脹
+ * - 波動：各次同步的最大相對變動做指數平滑，達到 volatileThreshold 時間隔減半
+ * - 平靜：連續 n 次沒有任何匯率變動時，間隔乘上 1.5^n
+ * - 失敗（含只拿到 fallback 資料）：以基準間隔 × 2^連續失敗次數退避；成功一次即恢復
+ * - 結果一律限制在 [minInterval, maxInterval]
+ * <p>
+ * 只保存少量狀態，方法皆為 synchronized；由 RateSyncScheduler 在每次同步後呼叫
+ */
+public class AdaptiveSyncInterval {
+    private static final double QUIET_FACTOR = 1.5; // 平靜時每次放寬的倍數
+    private static final int MAX_STEPS = 16; // 退避 / 放寬的次數上限（避免倍數溢位）
+
+    private final Duration initial; // 初始間隔
+    private final Duration min; // 下限
+    private final Duration max; // 上限
+    private final double volatileThreshold; // 波動門檻
+    private final double smoothing; // 平滑係數
+
+    private Duration cadence; // 學到的上游更新週期（null 表示尚未學到）
+    private OffsetDateTime lastUpstreamTime; // 最近一次看到的上游更新時間
+    private boolean sawRepeat; // lastUpstreamTime 是否被看到不只一次（輪詢比上游更新快）
+    private double volatility; // 平滑後的相對變動
+    private int quietStreak; // 連續沒有變動的次數
+    private int failures; // 連續失敗次數
+    private Duration current; // 目前選定的間隔
+
+    public AdaptiveSyncInterval(SyncScheduleProperties props) {
+        this.initial = props.initialInterval();
+        this.min = props.minInterval();
+        this.max = props.maxInterval();
+        this.volatileThreshold = props.volatileThreshold();
+        this.smoothing = props.smoothing();
+        this.current = clamp(initial);
+    }
+
+    /**
+     * 依本次結果計算下一次同步的間隔
+     */
+    public synchronized Duration next(SyncResult result) {
+        if (result.outcome() == SyncResult.Outcome.FAILURE || result.outcome() == SyncResult.Outcome.FALLBACK) {
+            failures = Math.min(failures + 1, MAX_STEPS);
+            current = clamp(scale(base(), Math.pow(2, failures)));
+            return current;
+        }
+        failures = 0;
+        learnCadence(result.upstreamTime());
+        volatility = smoothing * result.maxChange() + (1 - smoothing) * volatility;
+        quietStreak = result.maxChange() == 0 ? Math.min(quietStreak + 1, MAX_STEPS) : 0;
+
+        double factor = (volatility >= volatileThreshold ? 0.5 : 1.0) * Math.pow(QUIET_FACTOR, quietStreak);
+        current = clamp(scale(base(), factor));
+        return current;
+    }
+
+    /**
+     * 目前選定的間隔
+     */
+    public synchronized Duration current() {
+        return current;
+    }
+
+    /**
+     * 學到的上游更新週期（尚未學到時為 null）
+     */
+    public synchronized Duration cadence() {
+        return cadence;
+    }
+
+    /**
+     * 由上游更新時間學習更新週期；較舊的時間不列入
+     */
+    private void learnCadence(OffsetDateTime upstreamTime) {
+        if (upstreamTime == null) {
+            return;
+        }
+        if (lastUpstreamTime == null) {
+            lastUpstreamTime = upstreamTime;
+            return;
+        }
+        if (upstreamTime.isEqual(lastUpstreamTime)) {
+            sawRepeat = true; // 上游尚未更新 → 下一個時間差之間最多只有一次更新
+            return;
+        }
+        if (upstreamTime.isAfter(lastUpstreamTime)) {
+            Duration gap = Duration.between(lastUpstreamTime, upstreamTime);
+            if (cadence == null) {
+                cadence = gap;
+            } else if (sawRepeat) {
+                cadence = scale(cadence, 1 - smoothing).plus(scale(gap, smoothing)); // 接近真實週期 → 平滑（可往上修正）
+            } else if (gap.compareTo(cadence) < 0) {
+                cadence = gap; // 可能跳過多次更新，時間差只是上限 → 只往下修正
+            }
+            lastUpstreamTime = upstreamTime;
+            sawRepeat = false;
+        }
+    }
+
+    /**
+     * 基準間隔：學到的更新週期，尚未學到時為初始間隔
+     */
+    private Duration base() {
+        return cadence != null ? cadence : initial;
+    }
+
+    private static Duration scale(Duration d, double factor) {
+        return Duration.ofMillis(Math.round(d.toMillis() * factor));
+    }
+
+    private Duration clamp(Duration d) {
+        if (d.compareTo(min) < 0) {
+            return min;
+        }
+        return d.compareTo(max) > 0 ? max : d;
+    }
+}
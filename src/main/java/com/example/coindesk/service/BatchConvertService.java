@@ -0,0 +1,98 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.dto.ConvertDtos; // 匯入換算 DTO
+import com.fasterxml.jackson.core.JsonProcessingException; // 匯入 JsonProcessingException，輸入格式錯誤
+import com.fasterxml.jackson.databind.MappingIterator; // 匯入 MappingIterator，逐筆讀取輸入
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，沿用 Spring 的 JSON 設定
+import com.fasterxml.jackson.databind.ObjectReader; // 匯入 ObjectReader，預先建立的輸入讀取器
+import com.fasterxml.jackson.databind.ObjectWriter; // 匯入 ObjectWriter，預先建立的輸出寫入器
+import com.fasterxml.jackson.databind.SequenceWriter; // 匯入 SequenceWriter，逐筆寫出結果
+import com.fasterxml.jackson.databind.exc.MismatchedInputException; // 匯入 MismatchedInputException，單筆欄位型別錯誤（含 InvalidFormatException）
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+
+import java.io.IOException; // 匯入 IOException
+import java.io.InputStream; // 匯入 InputStream，請求內容
+import java.io.OutputStream; // 匯入 OutputStream，回應內容
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.math.RoundingMode; // 匯入 RoundingMode，結果四捨五入
+
+/**
+ * 批次換算服務（POST /convert/batch）
+ * - 輸入：JSON 陣列或 NDJSON（每行一筆 {from, to, amount}）
+ * - 以 MappingIterator 逐筆讀取、SequenceWriter 逐筆寫出，輸入與輸出都不會整批留在記憶體
+ * - 整個請求使用同一份交叉匯率矩陣（請求開始時取得），結果彼此一致
+ * - 單筆錯誤（缺欄位、未知幣別、欄位型別錯誤）寫在該筆的 error 欄位，不影響其他筆
+ * - JSON 語法錯誤時無法再往下讀，寫出一筆錯誤後停止
+ */
+@Service
+public class BatchConvertService {
+    private static final int RESULT_SCALE = 6; // 換算結果小數位數（與 GET /convert 相同）
+
+    private final CrossRateService crossRateService; // 依賴：交叉匯率矩陣
+    private final ObjectReader rowReader; // 單筆輸入讀取器
+    private final ObjectWriter resultWriter; // 單筆輸出寫入器
+
+    public BatchConvertService(CrossRateService crossRateService, ObjectMapper mapper) {
+        this.crossRateService = crossRateService;
+        this.rowReader = mapper.readerFor(ConvertDtos.BatchRow.class);
+        this.resultWriter = mapper.writerFor(ConvertDtos.BatchResult.class);
+    }
+
+    /**
+     * 逐筆換算
+     *
+     * @param in     請求內容（JSON 陣列或 NDJSON）
+     * @param out    回應內容
+     * @param ndjson true → 以 NDJSON 輸出；false → 以 JSON 陣列輸出
+     * @return 處理筆數
+     */
+    public long convert(InputStream in, OutputStream out, boolean ndjson) throws IOException {
+        CrossRateMatrix matrix = crossRateService.current(); // 整個請求使用同一份矩陣
+        long rows = 0;
+        try (MappingIterator<ConvertDtos.BatchRow> it = rowReader.readValues(in); // 根層級陣列或以空白分隔的多個物件皆可
+             SequenceWriter writer = ndjson
+                     ? resultWriter.withRootValueSeparator("\n").writeValues(out)
+                     : resultWriter.writeValuesAsArray(out)) {
+            try {
+                while (it.hasNextValue()) {
+                    ConvertDtos.BatchResult result;
+                    try {
+                        result = convertRow(matrix, it.nextValue());
+                    } catch (MismatchedInputException ex) { // 語法正確但型別不符（例：amount 為 "abc"）→ MappingIterator 會跳過該筆剩餘內容
+                        result = new ConvertDtos.BatchResult(null, null, null, null,
+                                "第 " + (rows + 1) + " 筆欄位型別錯誤：" + ex.getOriginalMessage());
+                    }
+                    writer.write(result);
+                    rows++;
+                }
+            } catch (JsonProcessingException ex) { // JSON 語法錯誤
+                writer.write(new ConvertDtos.BatchResult(null, null, null, null,
+                        "第 " + (rows + 1) + " 筆格式錯誤：" + ex.getOriginalMessage())); // 無法再往下讀，寫出錯誤後結束
+            }
+            if (ndjson) {
+                out.write('\n'); // NDJSON 最後一行也以換行結尾
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 換算單筆
+     */
+    private static ConvertDtos.BatchResult convertRow(CrossRateMatrix matrix, ConvertDtos.BatchRow row) {
+        if (row == null || row.from() == null || row.to() == null || row.amount() == null) {
+            return row == null
+                    ? new ConvertDtos.BatchResult(null, null, null, null, "from、to、amount 必填")
+                    : new ConvertDtos.BatchResult(row.from(), row.to(), row.amount(), null, "from、to、amount 必填");
+        }
+        String from = row.from().trim().toUpperCase(); // 已是大寫時不會產生新字串
+        String to = row.to().trim().toUpperCase();
+        BigDecimal rate = matrix.rate(from, to);
+        if (rate == null) {
+            return new ConvertDtos.BatchResult(from, to, row.amount(), null,
+                    "找不到匯率： " + (matrix.contains(from) ? to : from));
+        }
+        return new ConvertDtos.BatchResult(from, to, row.amount(),
+                row.amount().multiply(rate).setScale(RESULT_SCALE, RoundingMode.HALF_UP), null);
+    }
+}
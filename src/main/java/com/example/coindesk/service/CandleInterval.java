@@ -0,0 +1,48 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import java.util.Optional; // 匯入 Optional，週期字串不合法時為空
+
+/**
+ * K 線週期
+ * - 以 epoch 秒對齊（UTC）：1m 對齊整分、1h 對齊整點、1d 對齊 UTC 午夜
+ */
+public enum CandleInterval {
+    MINUTE("1m", 60),
+    HOUR("1h", 3_600),
+    DAY("1d", 86_400);
+
+    private final String label; // API 與資料表使用的週期字串
+    private final long seconds; // 週期長度（秒）
+
+    CandleInterval(String label, long seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public long seconds() {
+        return seconds;
+    }
+
+    /**
+     * 時間點所屬 K 線的起始時間（epoch 秒）
+     */
+    public long bucketStart(long epochSecond) {
+        return Math.floorDiv(epochSecond, seconds) * seconds;
+    }
+
+    /**
+     * 由週期字串（1m / 1h / 1d）取得週期
+     */
+    public static Optional<CandleInterval> fromLabel(String label) {
+        for (CandleInterval i : values()) {
+            if (i.label.equalsIgnoreCase(label)) {
+                return Optional.of(i);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import java.util.ArrayList; // 匯入 ArrayList，組裝查詢結果
+import java.util.List; // 匯入 List
+
+/**
+ * 單一幣別、單一週期的 K 線序列
+ * - 進行中的 K 線以欄位保存；收盤後放入固定長度的環狀緩衝區（以 long 陣列存放，不為每根 K 線建立物件）
+ * - 重新啟動後以資料表中的 K 線填入，最新一根還原為進行中的 K 線
+ * - 緩衝區滿時覆寫最舊的 K 線，記憶體用量固定
+ * - 匯率時間早於上一筆的 tick 直接忽略；與上一筆相同時間的 tick（同一次上游更新重新套用）只更新收盤，不增加筆數
+ * - 以 synchronized 保護；每個序列各自一把鎖，不同幣別 / 週期互不影響
+ */
+final class CandleSeries {
+    private static final long NONE = Long.MIN_VALUE; // 尚無進行中的 K 線
+
+    /**
+     * 一根 K 線（匯率為 FixedRate，start / lastTick 為 epoch 秒）
+     * - lastTick：最後一筆 tick 的時間；緩衝區中的 K 線不保存，以該根的結束時間代替
+     */
+    record Candle(long start, long open, long high, long low, long close, long count, long lastTick, boolean closed) {
+    }
+
+    private final CandleInterval interval; // 週期
+    private final long[] starts, opens, highs, lows, closes, counts; // 已收盤 K 線的環狀緩衝區
+    private int head; // 下一根要寫入的位置
+    private int size; // 緩衝區中的根數
+
+    private long curStart = NONE; // 進行中 K 線的起始時間
+    private long curOpen, curHigh, curLow, curClose, curCount; // 進行中 K 線的內容
+    private long lastTick = NONE; // 最後一筆 tick 的時間（epoch 秒）
+
+    CandleSeries(CandleInterval interval, int capacity) {
+        this.interval = interval;
+        this.starts = new long[capacity];
+        this.opens = new long[capacity];
+        this.highs = new long[capacity];
+        this.lows = new long[capacity];
+        this.closes = new long[capacity];
+        this.counts = new long[capacity];
+    }
+
+    /**
+     * 加入一筆 tick
+     *
+     * @param epochSecond 匯率時間
+     * @param rate        匯率（FixedRate）
+     * @return 因這筆 tick 而收盤的 K 線；沒有則為 null
+     */
+    synchronized Candle add(long epochSecond, long rate) {
+        if (epochSecond < lastTick) {
+            return null; // 亂序或過期的資料
+        }
+        if (epochSecond == lastTick) {
+            curClose = rate; // 同一時間點重新套用：只修正收盤
+            curHigh = Math.max(curHigh, rate);
+            curLow = Math.min(curLow, rate);
+            return null;
+        }
+        long previousTick = lastTick;
+        lastTick = epochSecond;
+        long start = interval.bucketStart(epochSecond);
+        if (start == curStart) {
+            curHigh = Math.max(curHigh, rate);
+            curLow = Math.min(curLow, rate);
+            curClose = rate;
+            curCount++;
+            return null;
+        }
+        Candle closed = null;
+        if (curStart != NONE) {
+            closed = new Candle(curStart, curOpen, curHigh, curLow, curClose, curCount, previousTick, true);
+            push(closed);
+        }
+        curStart = start;
+        curOpen = curHigh = curLow = curClose = rate;
+        curCount = 1;
+        return closed;
+    }
+
+    /**
+     * 進行中的 K 線；沒有則為 null
+     */
+    synchronized Candle current() {
+        return curStart == NONE ? null : new Candle(curStart, curOpen, curHigh, curLow, curClose, curCount, lastTick, false);
+    }
+
+    /**
+     * 以資料表中的 K 線（依時間排序）填入尚未有資料的序列
+     * - 只在緩衝區為空時生效，且只採用早於進行中 K 線的資料
+     * - open：重新啟動前進行中的 K 線，還原為進行中的 K 線（同一時段的 tick 接續累計，不會另開一根）；已有進行中的 K 線時不採用
+     * - 之後早於最後一筆 tick（已收盤的 K 線則為其結束時間）的 tick 會被忽略，避免重新開啟或重複計數
+     */
+    synchronized void seed(List<Candle> closed, Candle open) {
+        if (size > 0) {
+            return;
+        }
+        for (Candle c : closed) {
+            if (curStart == NONE || c.start() < curStart) {
+                push(c);
+                lastTick = Math.max(lastTick, c.start() + interval.seconds() - 1);
+            }
+        }
+        if (open != null && curStart == NONE && (size == 0 || open.start() > starts[Math.floorMod(head - 1, starts.length)])) {
+            curStart = open.start();
+            curOpen = open.open();
+            curHigh = open.high();
+            curLow = open.low();
+            curClose = open.close();
+            curCount = open.count();
+            lastTick = Math.max(lastTick, open.lastTick());
+        }
+    }
+
+    /**
+     * 最近的 K 線（依時間排序，最後一根為進行中的 K 線）
+     *
+     * @param limit 最多回傳根數
+     */
+    synchronized List<Candle> recent(int limit) {
+        boolean hasCurrent = curStart != NONE;
+        int fromRing = Math.min(size, hasCurrent ? limit - 1 : limit);
+        List<Candle> out = new ArrayList<>(fromRing + 1);
+        int capacity = starts.length;
+        for (int k = fromRing; k >= 1; k--) {
+            int i = Math.floorMod(head - k, capacity);
+            out.add(new Candle(starts[i], opens[i], highs[i], lows[i], closes[i], counts[i], starts[i] + interval.seconds() - 1, true));
+        }
+        if (hasCurrent && limit > 0) {
+            out.add(new Candle(curStart, curOpen, curHigh, curLow, curClose, curCount, lastTick, false));
+        }
+        return out;
+    }
+
+    private void push(Candle c) {
+        int capacity = starts.length;
+        if (capacity == 0) {
+            return;
+        }
+        starts[head] = c.start();
+        opens[head] = c.open();
+        highs[head] = c.high();
+        lows[head] = c.low();
+        closes[head] = c.close();
+        counts[head] = c.count();
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.CandleProperties; // 匯入 K 線設定（各週期保留根數）
+import com.example.coindesk.domain.RateCandle; // 匯入 RateCandle 實體類別
+import com.example.coindesk.dto.CandleDtos; // 匯入 K 線 DTO
+import com.example.coindesk.repository.RateCandleRepository; // 匯入 K 線 Repository，啟動時載入
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.springframework.boot.context.event.ApplicationReadyEvent; // 匯入啟動完成事件
+import org.springframework.context.event.EventListener; // 匯入 @EventListener
+import org.springframework.http.HttpStatus; // 匯入 HttpStatus，提供 400/404 等狀態碼
+import org.springframework.jdbc.core.JdbcTemplate; // 匯入 JdbcTemplate，以 JDBC 批次寫入已收盤的 K 線
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，確保交易一致性
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，丟出 HTTP 錯誤
+
+import java.sql.Timestamp; // 匯入 Timestamp，JDBC 時間參數
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.time.ZoneOffset; // 匯入 ZoneOffset，匯率時間為 UTC
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.HashMap; // 匯入 HashMap，啟動時依幣別分組
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+import java.util.concurrent.ConcurrentHashMap; // 匯入 ConcurrentHashMap，幣別 → 各週期序列
+
+/**
+ * ===========================================
+ * K 線服務 (CandleService)
+ * ===========================================
+ * 功能：
+ * - record：由 RateSyncService 在同步交易內呼叫，每筆套用的匯率即時更新 1m / 1h / 1d 三種 K 線；
+ *   收盤的 K 線與本次更新到的進行中 K 線寫入 rate_candle
+ * - observe：follower 由 DB 重新載入的匯率只更新記憶體（rate_candle 由 leader 寫入）
+ * - candles：GET /rates/{code}/candles 直接讀記憶體中的環狀緩衝區，不讀原始 tick，也不查 DB
+ * - 啟動完成後由 rate_candle 載入各週期最近的 K 線，最新一根還原為進行中的 K 線（重新啟動前後同一時段接續累計）
+ * <p>
+ * 設計說明：
+ * - 寫入使用 H2 的 MERGE ... KEY(code, resolution, start_at) 批次語句：同一根 K 線重複寫入只會覆寫
+ * - 每個幣別 / 週期各自一個 CandleSeries（各自一把鎖），記憶體用量由 coindesk.candles.* 的保留根數決定
+ */
+@Service
+public class CandleService {
+    static final int DEFAULT_LIMIT = 100; // 預設回傳根數
+    private static final String MERGE_SQL = """
+            MERGE INTO rate_candle (code, resolution, start_at, open_rate, high_rate, low_rate, close_rate, tick_count, last_tick_at)
+            KEY (code, resolution, start_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final CandleProperties props; // 依賴：各週期保留根數
+    private final RateCandleRepository candleRepo; // 依賴：啟動時載入 K 線
+    private final JdbcTemplate jdbc; // 依賴：批次寫入（與 JPA 共用同一交易與連線）
+    private final Map<String, CandleSeries[]> series = new ConcurrentHashMap<>(); // 幣別 → 各週期序列（依 CandleInterval 順序）
+
+    public CandleService(CandleProperties props, RateCandleRepository candleRepo, JdbcTemplate jdbc) {
+        this.props = props;
+        this.candleRepo = candleRepo;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * 待寫入的 K 線（已收盤或進行中）
+     */
+    private record Pending(String code, CandleInterval interval, CandleSeries.Candle candle) {
+    }
+
+    /**
+     * 套用一次同步的匯率，並寫入因此收盤的 K 線與更新後的進行中 K 線
+     * - 進行中的 K 線每次都覆寫同一列，重新啟動時才能接續，而不是在同一時段另開一根
+     *
+     * @param at    匯率時間（上游 updatedISO，UTC）
+     * @param rates 本次套用的幣別匯率
+     */
+    @Transactional // 加入呼叫端（RateSyncService）的交易
+    public void record(LocalDateTime at, List<RateSnapshot.Rate> rates) {
+        List<Pending> rows = apply(at, rates);
+        for (RateSnapshot.Rate r : rates) {
+            CandleSeries[] s = series.get(r.code());
+            if (s == null || r.rate() <= 0) {
+                continue;
+            }
+            for (CandleInterval interval : CandleInterval.values()) {
+                CandleSeries.Candle open = s[interval.ordinal()].current();
+                if (open != null) {
+                    rows.add(new Pending(r.code(), interval, open));
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(MERGE_SQL, rows, rows.size(), (ps, c) -> { // 整批一次送出
+            CandleSeries.Candle k = c.candle();
+            ps.setString(1, c.code());
+            ps.setString(2, c.interval().label());
+            ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.ofEpochSecond(k.start(), 0, ZoneOffset.UTC)));
+            ps.setBigDecimal(4, FixedRate.toBigDecimal(k.open())); // JDBC 邊界才轉成 BigDecimal
+            ps.setBigDecimal(5, FixedRate.toBigDecimal(k.high()));
+            ps.setBigDecimal(6, FixedRate.toBigDecimal(k.low()));
+            ps.setBigDecimal(7, FixedRate.toBigDecimal(k.close()));
+            ps.setLong(8, k.count());
+            ps.setTimestamp(9, Timestamp.valueOf(LocalDateTime.ofEpochSecond(k.lastTick(), 0, ZoneOffset.UTC)));
+        });
+    }
+
+    /**
+     * 只更新記憶體中的 K 線（follower 使用；寫入 rate_candle 由 leader 負責）
+     */
+    public void observe(LocalDateTime at, List<RateSnapshot.Rate> rates) {
+        apply(at, rates);
+    }
+
+    /**
+     * 查詢 K 線（只讀記憶體）
+     *
+     * @param codePath 幣別代碼（path variable）
+     * @param label    週期：1m / 1h / 1d
+     * @param limit    最多回傳根數（1 ~ 該週期的保留根數）
+     * @return 依時間排序的 K 線，最後一根可能尚未收盤
+     * @throws ResponseStatusException 週期或筆數不合法時丟出 400；此幣別尚無 K 線時丟出 404
+     */
+    public CandleDtos.Response candles(String codePath, String label, int limit) {
+        String code = codePath.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
+        CandleInterval interval = CandleInterval.fromLabel(label.trim())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "interval 需為 1m、1h 或 1d"));
+        int capacity = props.capacity(interval);
+        if (limit < 1 || limit > capacity + 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 需介於 1 ~ " + (capacity + 1));
+        }
+        CandleSeries[] s = series.get(code);
+        if (s == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到 K 線資料： " + code);
+        }
+        List<CandleDtos.Candle> candles = s[interval.ordinal()].recent(limit).stream()
+                .map(k -> new CandleDtos.Candle(LocalDateTime.ofEpochSecond(k.start(), 0, ZoneOffset.UTC),
+                        k.open(), k.high(), k.low(), k.close(), k.count(), k.closed()))
+                .toList();
+        return new CandleDtos.Response(code, interval.label(), candles);
+    }
+
+    /**
+     * 啟動完成後由 rate_candle 載入各週期最近的 K 線（每個週期最多保留根數 + 進行中一根的時間範圍）
+     * - 每個幣別最新的一根是重新啟動前進行中的 K 線，還原為進行中（之後同一時段的 tick 接續累計，收盤時覆寫同一列）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true) // 查詢操作，標記為唯讀
+    public void warmUp() {
+        for (CandleInterval interval : CandleInterval.values()) {
+            RateCandle latest = candleRepo.findTopByResolutionOrderByStartAtDesc(interval.label()).orElse(null);
+            if (latest == null) {
+                continue;
+            }
+            LocalDateTime since = latest.getStartAt().minusSeconds(interval.seconds() * props.capacity(interval));
+            Map<String, List<CandleSeries.Candle>> byCode = new HashMap<>();
+            for (RateCandle c : candleRepo.findByResolutionAndStartAtGreaterThanEqualOrderByStartAtAsc(interval.label(), since)) {
+                long start = c.getStartAt().toEpochSecond(ZoneOffset.UTC);
+                long lastTick = c.getLastTickAt() != null ? c.getLastTickAt().toEpochSecond(ZoneOffset.UTC) : start; // 舊資料沒有最後 tick 時間
+                byCode.computeIfAbsent(c.getCode(), k -> new ArrayList<>()).add(new CandleSeries.Candle(start,
+                        FixedRate.fromBigDecimal(c.getOpenRate()), FixedRate.fromBigDecimal(c.getHighRate()),
+                        FixedRate.fromBigDecimal(c.getLowRate()), FixedRate.fromBigDecimal(c.getCloseRate()),
+                        c.getTickCount(), lastTick, true));
+            }
+            byCode.forEach((code, candles) -> seriesOf(code)[interval.ordinal()].seed(
+                    candles.subList(0, candles.size() - 1), candles.get(candles.size() - 1))); // 最新一根 → 進行中
+        }
+    }
+
+    /**
+     * 將匯率加入各週期序列，回傳因此收盤的 K 線
+     */
+    private List<Pending> apply(LocalDateTime at, List<RateSnapshot.Rate> rates) {
+        long epochSecond = at.toEpochSecond(ZoneOffset.UTC); // updatedAt 由 updatedISO（UTC）轉換而來
+        List<Pending> closed = new ArrayList<>();
+        for (RateSnapshot.Rate r : rates) {
+            if (r.rate() <= 0) {
+                continue; // 上游缺值不列入
+            }
+            CandleSeries[] s = seriesOf(r.code());
+            for (CandleInterval interval : CandleInterval.values()) {
+                CandleSeries.Candle c = s[interval.ordinal()].add(epochSecond, r.rate());
+                if (c != null) {
+                    closed.add(new Pending(r.code(), interval, c));
+                }
+            }
+        }
+        return closed;
+    }
+
+    private CandleSeries[] seriesOf(String code) {
+        return series.computeIfAbsent(code, k -> {
+            CandleInterval[] intervals = CandleInterval.values();
+            CandleSeries[] s = new CandleSeries[intervals.length];
+            for (CandleInterval interval : intervals) {
+                s[interval.ordinal()] = new CandleSeries(interval, props.capacity(interval));
+            }
+            return s;
+        });
+    }
+}
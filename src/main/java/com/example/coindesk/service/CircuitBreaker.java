@@ -0,0 +1,64 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import java.time.Duration; // 匯入 Duration，表示斷路器打開的時間
+
+/**
+ * 簡易斷路器（Circuit Breaker）
+ * - CLOSED：正常放行；連續失敗達門檻 → OPEN
+ * - OPEN：openDuration 內直接拒絕（呼叫端改用 fallback，不再打上游）
+ * - 時間到後放行「一次」試探（HALF_OPEN）：成功 → CLOSED；失敗 → 再次 OPEN
+ * <p>
+ * 呼叫量很低（single-flight 下每個 TTL 最多一次），以 synchronized 保護狀態即可
+ */
+public class CircuitBreaker {
+    /**
+     * 斷路器狀態
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold; // 連續失敗門檻
+    private final long openNanos; // 打開時間（奈秒）
+    private State state = State.CLOSED; // 目前狀態
+    private int consecutiveFailures; // 連續失敗次數
+    private long openedAt; // 打開的時間點（System.nanoTime()）
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * 是否允許呼叫上游
+     * - OPEN 且時間已到 → 轉為 HALF_OPEN 並放行一次試探；試探進行中的其他呼叫一律拒絕
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true; // 放行一次試探
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * 呼叫成功：歸零並關閉
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * 呼叫失敗：試探失敗或達到門檻 → 打開
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
@@ -1,82 +1,146 @@
 package com.example.coindesk.service; // 定義這個類別所在的套件位置
 
 import com.example.coindesk.dto.ConvertedDtos; // 匯入 DTO：轉換後回應格式
-import com.example.coindesk.repository.CurrencyRepository; // 匯入 Currency 的 Repository，供查詢中文名稱使用
-import com.fasterxml.jackson.databind.JsonNode; // 匯入 Jackson 的 JSON 節點物件
-import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 Jackson 的 ObjectMapper，解析 JSON 用
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.core.JsonGenerator; // 匯入 JsonGenerator，直接寫出回應 JSON
+import com.fasterxml.jackson.core.util.ByteArrayBuilder; // 匯入 ByteArrayBuilder，收集輸出位元組
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，沿用 Spring 的 JSON 設定序列化回應
 import org.springframework.stereotype.Service; // 匯入 Service 標註，標記此類別為 Service 元件
+import org.springframework.util.DigestUtils; // 匯入 DigestUtils，計算 ETag 雜湊
 
-import java.math.BigDecimal; // 匯入 BigDecimal，精確表示匯率
-import java.time.OffsetDateTime; // 匯入 OffsetDateTime，解析 updatedISO
+import java.io.IOException; // 匯入 IOException，序列化失敗
 import java.time.format.DateTimeFormatter; // 匯入時間格式器
 import java.util.ArrayList; // 匯入 ArrayList，建立清單用
-import java.util.Iterator; // 匯入 Iterator，遍歷 JSON 欄位
 import java.util.List; // 匯入 List，統一回傳明細集合
+import java.util.Map; // 匯入 Map，幣別中文名稱對照表
 
 /**
  * CoinDesk 轉換服務層
- * - 功能：將 CoinDesk 原始 JSON 轉換為題目要求格式
- * - 包含時間格式轉換、匯率解析、幣別中文名稱補全
+ * - 功能：將 CoinDesk 快照轉換為題目要求格式
+ * - 包含時間格式轉換、幣別中文名稱補全
+ * - 序列化後的 JSON 依「快照 + 中文名稱對照表」版本快取，並提供 ETag 供 304 使用
+ * - /coindesk/converted 的 JSON 以 JsonGenerator 直接寫出（匯率為 FixedRate），不建立 DTO 與 BigDecimal
  */
 @Service
 public class CoinDeskConvertService {
     private final CoinDeskService coinDeskService; // 依賴：負責抓取 CoinDesk API 或 Mock
-    private final CurrencyRepository currencyRepo; // 依賴：查詢幣別中文名稱
-    private final ObjectMapper mapper = new ObjectMapper(); // JSON 解析器
+    private final CurrencyNameCache nameCache; // 依賴：幣別中文名稱對照快取（不逐筆查 DB）
+    private final ObjectMapper mapper; // 依賴：Spring 設定好的 JSON 序列化器
+    private volatile RenderedResponse rendered; // 最近一次序列化的結果
     private static final DateTimeFormatter OUT_FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"); // 時間輸出格式
 
     /**
      * 建構子注入
      */
-    public CoinDeskConvertService(CoinDeskService coinDeskService, CurrencyRepository currencyRepo) {
+    public CoinDeskConvertService(CoinDeskService coinDeskService, CurrencyNameCache nameCache, ObjectMapper mapper) {
         this.coinDeskService = coinDeskService;
-        this.currencyRepo = currencyRepo;
+        this.nameCache = nameCache;
+        this.mapper = mapper;
     }
 
     /**
      * 取得轉換後的回應物件
-     * - 先呼叫 CoinDeskService 抓取原始 JSON
-     * - 解析更新時間（優先使用 updatedISO）
-     * - 解析幣別明細，補充中文名稱
+     * - 先呼叫 CoinDeskService 取得解析後的快照（JSON 由共用的串流解析器處理）
+     * - 格式化更新時間（優先使用 updatedISO）
+     * - 逐一處理幣別明細，補充中文名稱
      * - 回傳標準化 Response DTO
      */
     public ConvertedDtos.Response getConverted() {
-        String raw = coinDeskService.fetchRawJson(); // 成功→線上；失敗→Mock
+        RateSnapshot snapshot = coinDeskService.fetchSnapshot(); // 成功→線上；失敗→Mock（已解析好的快照）
+        return convert(snapshot, nameCache.names());
+    }
+
+    /**
+     * 將指定快照轉換為回應 DTO（例如同步後推播的匯率），中文名稱取自目前的對照表
+     */
+    public ConvertedDtos.Response toResponse(RateSnapshot snapshot) {
+        return convert(snapshot, nameCache.names());
+    }
+
+    /**
+     * 取得轉換後回應的 JSON 位元組（含 ETag）
+     * - 快照與中文名稱對照表都沒有變動時，直接回傳上次序列化好的結果，不重建 DTO、不重新序列化
+     * - 任一方變動（快照刷新或幣別異動）時，重新轉換並序列化一次
+     */
+    public RenderedResponse getConvertedJson() {
+        RateSnapshot snapshot = coinDeskService.fetchSnapshot(); // 快取中的快照（刷新前為同一個物件）
+        Map<String, String> names = nameCache.names(); // 快取中的對照表（失效前為同一個物件）
+        RenderedResponse r = rendered;
+        if (r != null && r.snapshot() == snapshot && r.names() == names) {
+            return r; // 版本相同 → 直接使用已序列化的位元組
+        }
         try {
-            JsonNode root = mapper.readTree(raw); // 解析 JSON 根節點
+            byte[] body = render(snapshot, names); // 序列化一次
+            String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\""; // 強 ETag：內容雜湊（內容相同即相同）
+            r = new RenderedResponse(snapshot, names, body, etag);
+        } catch (IOException ex) {
+            throw new IllegalStateException("轉換結果序列化失敗", ex); // 不應發生：輸出到記憶體
+        }
+        rendered = r; // 多個執行緒同時重建時，結果相同，後寫入者覆蓋即可
+        return r;
+    }
 
-            // 取出時間：優先 updatedISO，其次 updated
-            String iso = root.path("time").path("updatedISO").asText(null);
-            String updated = root.path("time").path("updated").asText(null);
+    /**
+     * 將快照轉換為回應 DTO
+     */
+    private ConvertedDtos.Response convert(RateSnapshot snapshot, Map<String, String> names) {
+        String formatted = updatedTime(snapshot);
 
-            String formatted;
-            if (iso != null) {
-                formatted = OffsetDateTime.parse(iso).toLocalDateTime().format(OUT_FMT); // ISO 格式轉換
-            } else if (updated != null) {
-                formatted = updated; // 簡化處理：直接使用原字串
-            } else {
-                formatted = ""; // 皆不存在 → 回空字串
-            }
+        // 逐一處理每個幣別，補上中文名稱（整個回應使用同一版本的對照表）
+        List<ConvertedDtos.Item> items = new ArrayList<>(snapshot.rates().size()); // 建立結果清單
+        for (RateSnapshot.Rate r : snapshot.rates()) {
+            // 從對照表取得中文名稱，若不存在則回傳空字串
+            String nameZh = names.getOrDefault(r.code(), "");
 
-            // 解析 bpi：逐一取出每個幣別
-            List<ConvertedDtos.Item> items = new ArrayList<>(); // 建立結果清單
-            JsonNode bpi = root.path("bpi"); // 取得 bpi 區塊
-            Iterator<String> it = bpi.fieldNames(); // 取得 JSON 物件 bpi 的所有 key（幣別代碼），以 Iterator 形式逐一取出
-            while (it.hasNext()) { // 逐一處理每個幣別代碼
-                String code = it.next(); // 取出當前幣別代碼
-                JsonNode node = bpi.path(code); // 取得該幣別的 JSON 節點
-                BigDecimal rate = node.path("rate_float").decimalValue(); // 解析浮點數匯率
+            items.add(new ConvertedDtos.Item(r.code(), nameZh, r.rate())); // 將結果加入清單
+        }
 
-                // 從資料庫查詢中文名稱，若不存在則回傳空字串
-                String nameZh = currencyRepo.findById(code).map(c -> c.getNameZh()).orElse("");
+        return new ConvertedDtos.Response(formatted, items); // 組裝並回傳 Response
+    }
 
-                items.add(new ConvertedDtos.Item(code, nameZh, rate)); // 將結果加入清單
+    /**
+     * 直接以 JsonGenerator 寫出回應 JSON（欄位與 ConvertedDtos.Response 相同）
+     * - 不建立 Item / BigDecimal，匯率以 FixedRate 直接寫出數字字元
+     */
+    private byte[] render(RateSnapshot snapshot, Map<String, String> names) throws IOException {
+        ByteArrayBuilder out = new ByteArrayBuilder(64 + snapshot.rates().size() * 64);
+        try (JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("updatedTime", updatedTime(snapshot));
+            g.writeArrayFieldStart("items");
+            for (RateSnapshot.Rate r : snapshot.rates()) {
+                g.writeStartObject();
+                g.writeStringField("code", r.code());
+                g.writeStringField("nameZh", names.getOrDefault(r.code(), ""));
+                g.writeFieldName("rate");
+                FixedRate.write(g, r.rate());
+                g.writeEndObject();
             }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        return out.toByteArray();
+    }
 
-            return new ConvertedDtos.Response(formatted, items); // 組裝並回傳 Response
-        } catch (Exception ex) {
-            // 解析失敗時，回傳空 Response（或可改丟出例外 502）
-            return new ConvertedDtos.Response("",List.of());
+    /**
+     * 取出時間：優先 updatedISO，其次 updated；皆不存在 → 空字串
+     */
+    private static String updatedTime(RateSnapshot snapshot) {
+        if (snapshot.updatedIso() != null) {
+            return snapshot.updatedIso().toLocalDateTime().format(OUT_FMT); // ISO 格式轉換
+        }
+        if (snapshot.updated() != null) {
+            return snapshot.updated(); // 簡化處理：直接使用原字串
         }
+        return "";
+    }
+
+    /**
+     * 已序列化的轉換結果
+     * - snapshot / names：產生此結果時的快照與對照表（以物件參考判斷是否仍是最新版本）
+     * - body：JSON 位元組
+     * - etag：強 ETag（含雙引號）
+     */
+    public record RenderedResponse(RateSnapshot snapshot, Map<String, String> names, byte[] body, String etag) {
     }
 }
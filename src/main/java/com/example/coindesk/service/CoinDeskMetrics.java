@@ -0,0 +1,209 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import io.micrometer.core.instrument.Gauge; // 匯入 Gauge，回報目前數值
+import io.micrometer.core.instrument.MeterRegistry; // 匯入 MeterRegistry，註冊所有指標
+import io.micrometer.core.instrument.Timer; // 匯入 Timer，量測耗時（含直方圖）
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+
+import java.time.Duration; // 匯入 Duration，計算資料年齡
+import java.time.Instant; // 匯入 Instant，記錄匯率更新時間
+import java.util.Map; // 匯入 Map
+import java.util.concurrent.ConcurrentHashMap; // 匯入 ConcurrentHashMap，各幣別最後更新時間
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+
+/**
+ * CoinDesk 各階段指標（Micrometer，經 /actuator/prometheus 輸出）
+ * - coindesk.upstream.latency：上游呼叫耗時（outcome=success/error/timeout），含直方圖
+ * - coindesk.upstream.failures：上游呼叫失敗次數（reason=timeout/error）
+ * - coindesk.upstream.fallback：改用 fallback 的次數（source=last_good/mock，reason=failure/circuit_open）
+ * - coindesk.upstream.circuit.state：斷路器狀態（0=CLOSED、1=OPEN、2=HALF_OPEN）
+ * - coindesk.parse.duration：上游 JSON 解析耗時；coindesk.parse.skipped：回應內容與上一次相同而略過解析的次數
+ * - coindesk.source.latency：各匯率來源的取得耗時（source=來源名稱，outcome=success/fallback/error/timeout）
+ * - coindesk.source.outliers：聚合時被剔除的離群匯率筆數（source=來源名稱）
+ * - coindesk.sync.duration：syncOnce() 耗時（outcome=success/unchanged/fallback/failure）；coindesk.sync.db.duration：其中 DB 寫入部分
+ * - coindesk.sync.rows：同步寫入的列數（op=insert/update/history；follower 由 DB 讀到的變動為 op=refresh）
+ * - coindesk.sync.interval：自適應排程目前選定的同步間隔（秒）；coindesk.sync.cadence：學到的上游更新週期（秒，尚未學到時為 NaN）
+ * - coindesk.sync.leader：本節點是否持有排程同步的租約（1=leader、0=follower）；coindesk.sync.refresh：follower 由 DB 重新載入的次數
+ * - coindesk.rate.staleness：各幣別匯率距上游更新時間的秒數（code=幣別）
+ */
+@Component
+public class CoinDeskMetrics {
+    private final MeterRegistry registry; // 指標註冊中心
+    private final Timer parseTimer; // 解析耗時
+    private final Timer syncDbTimer; // 同步的 DB 寫入耗時
+    private final Map<String, Instant> rateUpdatedAt = new ConcurrentHashMap<>(); // 各幣別最後一次套用的上游更新時間
+
+    public CoinDeskMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.parseTimer = timer("coindesk.parse.duration", "上游 JSON 解析耗時");
+        this.syncDbTimer = timer("coindesk.sync.db.duration", "同步時 DB 寫入耗時");
+    }
+
+    /**
+     * 記錄一次上游呼叫的耗時與結果
+     *
+     * @param outcome success、error 或 timeout（非 success 時同時計入 coindesk.upstream.failures 的 reason）
+     */
+    public void recordUpstream(long nanos, String outcome) {
+        Timer.builder("coindesk.upstream.latency")
+                .description("CoinDesk 上游呼叫耗時")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (!"success".equals(outcome)) {
+            registry.counter("coindesk.upstream.failures", "reason", outcome).increment();
+        }
+    }
+
+    /**
+     * 記錄一次 fallback
+     *
+     * @param source last_good 或 mock
+     * @param reason failure 或 circuit_open
+     */
+    public void recordFallback(String source, String reason) {
+        registry.counter("coindesk.upstream.fallback", "source", source, "reason", reason).increment();
+    }
+
+    /**
+     * 以 Gauge 回報斷路器狀態
+     */
+    public void bindCircuitBreaker(CircuitBreaker breaker) {
+        Gauge.builder("coindesk.upstream.circuit.state", breaker, b -> b.state().ordinal())
+                .description("斷路器狀態（0=CLOSED、1=OPEN、2=HALF_OPEN）")
+                .register(registry);
+    }
+
+    /**
+     * 記錄一次匯率來源取得的耗時與結果
+     *
+     * @param outcome success、fallback、error 或 timeout
+     */
+    public void recordSource(String source, long nanos, String outcome) {
+        Timer.builder("coindesk.source.latency")
+                .description("匯率來源取得耗時")
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 記錄一筆被剔除的離群匯率
+     */
+    public void recordOutlier(String source) {
+        registry.counter("coindesk.source.outliers", "source", source).increment();
+    }
+
+    /**
+     * 以 Gauge 回報本節點是否為排程同步的 leader
+     */
+    public void bindSyncLeader(SyncLeaseLock lock) {
+        Gauge.builder("coindesk.sync.leader", lock, l -> l.isLeader() ? 1 : 0)
+                .description("本節點是否持有排程同步的租約（1=leader、0=follower）")
+                .register(registry);
+    }
+
+    /**
+     * 以 Gauge 回報自適應排程的間隔與學到的上游更新週期
+     */
+    public void bindSyncInterval(AdaptiveSyncInterval interval) {
+        Gauge.builder("coindesk.sync.interval", interval, i -> i.current().toMillis() / 1000.0)
+                .description("自適應排程目前選定的同步間隔")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("coindesk.sync.cadence", interval, i -> i.cadence() != null ? i.cadence().toMillis() / 1000.0 : Double.NaN)
+                .description("由 updatedISO 學到的上游更新週期")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * 記錄一次 follower 由 DB 重新載入匯率
+     *
+     * @param changed 有變動的幣別數
+     */
+    public void recordFollowerRefresh(int changed) {
+        registry.counter("coindesk.sync.refresh").increment();
+        recordSyncRows("refresh", changed);
+    }
+
+    /**
+     * 記錄一次解析耗時
+     */
+    public void recordParse(long nanos) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 記錄一次略過解析（回應內容與上一次相同）
+     */
+    public void recordParseSkipped() {
+        registry.counter("coindesk.parse.skipped").increment();
+    }
+
+    /**
+     * 記錄一次同步的 DB 寫入耗時
+     */
+    public void recordSyncDb(long nanos) {
+        syncDbTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 記錄一次同步的耗時與結果
+     */
+    public void recordSync(long nanos, String outcome) {
+        Timer.builder("coindesk.sync.duration")
+                .description("匯率同步耗時")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 記錄同步寫入的列數
+     *
+     * @param op insert、update、history 或 refresh（follower 由 DB 讀到的變動）
+     */
+    public void recordSyncRows(String op, int rows) {
+        if (rows > 0) {
+            registry.counter("coindesk.sync.rows", "op", op).increment(rows);
+        }
+    }
+
+    /**
+     * 記錄幣別匯率已套用到某個上游更新時間；第一次出現的幣別會註冊一個 staleness Gauge
+     */
+    public void recordRateUpdated(String code, Instant updatedAt) {
+        if (rateUpdatedAt.put(code, updatedAt) == null) {
+            Gauge.builder("coindesk.rate.staleness", rateUpdatedAt, m -> stalenessSeconds(m.get(code)))
+                    .description("匯率距上游更新時間的秒數")
+                    .tag("code", code)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 計算距上游更新時間的秒數（沒有資料時回傳 NaN）
+     */
+    private static double stalenessSeconds(Instant updatedAt) {
+        if (updatedAt == null) {
+            return Double.NaN;
+        }
+        return Duration.between(updatedAt, Instant.now()).toMillis() / 1000.0;
+    }
+
+    /**
+     * 建立帶直方圖的 Timer
+     */
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.core.JsonFactory; // 匯入 JsonFactory，建立串流式 JsonParser
+import com.fasterxml.jackson.core.JsonParser; // 匯入 JsonParser，逐一讀取 JSON token（不建立樹狀結構）
+import com.fasterxml.jackson.core.JsonToken; // 匯入 JsonToken，判斷目前讀到的 token 種類
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，沿用 Spring 設定好的 JsonFactory
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+
+import java.io.ByteArrayInputStream; // 匯入 ByteArrayInputStream，將位元組包成 InputStream
+import java.io.IOException; // 匯入 IOException，解析失敗時拋出
+import java.io.InputStream; // 匯入 InputStream，直接從上游回應串流讀取
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，解析 updatedISO
+import java.util.ArrayList; // 匯入 ArrayList，收集幣別匯率
+import java.util.List; // 匯入 List
+
+/**
+ * CoinDesk JSON 串流解析器
+ * - 使用 Jackson 串流 API（JsonParser）逐 token 讀取，不建立 JsonNode 樹、不需先轉成 String
+ * - 只保留需要的欄位：time.updatedISO、time.updated、bpi.{code}.rate_float，其餘欄位直接略過
+ * - rate_float 直接由數字字元轉成 FixedRate（scaled long），不經過 double / BigDecimal
+ * - 轉換服務（CoinDeskConvertService）與同步服務（RateSyncService）共用
+ */
+@Component
+public class CoinDeskPayloadParser {
+    private final JsonFactory factory; // 串流解析器工廠（執行緒安全，可共用）
+
+    /**
+     * 建構子注入：沿用 Spring 的 ObjectMapper 設定
+     */
+    public CoinDeskPayloadParser(ObjectMapper mapper) {
+        this.factory = mapper.getFactory();
+    }
+
+    /**
+     * 解析位元組形式的 CoinDesk JSON
+     */
+    public RateSnapshot parse(byte[] json) throws IOException {
+        return parse(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * 從 InputStream 解析 CoinDesk JSON
+     *
+     * @param in 上游回應內容（呼叫端負責關閉）
+     * @return 解析後的快照
+     * @throws IOException JSON 格式錯誤或讀取失敗
+     */
+    public RateSnapshot parse(InputStream in) throws IOException {
+        OffsetDateTime updatedIso = null; // time.updatedISO
+        String updated = null; // time.updated
+        List<RateSnapshot.Rate> rates = new ArrayList<>(); // bpi 幣別匯率
+
+        try (JsonParser p = factory.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("CoinDesk JSON 根節點必須是物件");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) { // 逐一讀取根節點欄位
+                String field = p.currentName();
+                JsonToken value = p.nextToken(); // 移到欄位值
+                if ("time".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) { // 讀取 time 區塊
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("updatedISO".equals(name)) {
+                            String iso = p.getValueAsString(null); // null / 物件 → null
+                            updatedIso = iso != null ? OffsetDateTime.parse(iso) : null;
+                        } else if ("updated".equals(name)) {
+                            updated = p.getValueAsString(null);
+                        } else {
+                            p.skipChildren(); // 其他欄位（例如 updateduk）略過
+                        }
+                    }
+                } else if ("bpi".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) { // 讀取 bpi 區塊，key 即幣別代碼
+                        String code = p.currentName();
+                        p.nextToken();
+                        rates.add(new RateSnapshot.Rate(code, readRate(p)));
+                    }
+                } else {
+                    p.skipChildren(); // disclaimer、chartName 等欄位略過
+                }
+            }
+        }
+        return new RateSnapshot(updatedIso, updated, List.copyOf(rates));
+    }
+
+    /**
+     * 讀取單一幣別物件中的 rate_float
+     * - 數值與原本 BigDecimal.valueOf(double) 再寫入 DECIMAL(18,6) 相同（第 6 位小數 HALF_UP）
+     * - 缺少或非數字時回傳 0（對應 MissingNode.decimalValue()）
+     */
+    private long readRate(JsonParser p) throws IOException {
+        long rate = 0; // 預設 0
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren(); // 幣別值不是物件 → 略過
+            return rate;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("rate_float".equals(name) && value.isNumeric()) {
+                rate = FixedRate.parse(p); // 直接讀數字字元（整數或小數）
+            } else {
+                p.skipChildren(); // code、symbol、rate、description 等欄位略過
+            }
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import org.springframework.core.annotation.Order; // 匯入 @Order，決定來源順序（fallback 時採用第一個）
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+
+/**
+ * CoinDesk 匯率來源
+ * - 委派給 CoinDeskService（沿用其快取、single-flight、斷路器與 fallback）
+ * - CoinDeskService 回傳最後一次成功的資料或 Mock 時，標記為 fallback（與快照一起取得，不會分開讀取而不一致）
+ */
+@Component
+@Order(0) // 主要來源：所有來源都只有 fallback 資料時，採用此來源的結果
+public class CoinDeskRateSource implements RateSource {
+    private final CoinDeskService coinDeskService; // 依賴：CoinDesk 上游服務
+
+    public CoinDeskRateSource(CoinDeskService coinDeskService) {
+        this.coinDeskService = coinDeskService;
+    }
+
+    @Override
+    public String name() {
+        return "coindesk";
+    }
+
+    @Override
+    public Quote fetch() {
+        return coinDeskService.fetchQuote(); // 快照與 fallback 標記取自同一份快取內容
+    }
+}
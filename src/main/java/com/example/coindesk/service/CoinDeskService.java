@@ -1,23 +1,66 @@
 package com.example.coindesk.service; // 定義這個類別所在的套件位置
 
+import com.example.coindesk.config.CoinDeskProperties; // 匯入 CoinDesk 設定（快取 TTL、上游連線設定）
+import jakarta.annotation.PreDestroy; // 匯入 @PreDestroy，關閉時釋放連線池與執行緒
+import org.apache.hc.client5.http.config.ConnectionConfig; // 匯入連線層設定（連線逾時、讀取逾時）
+import org.apache.hc.client5.http.config.RequestConfig; // 匯入請求層設定（取連線逾時、回應逾時）
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient; // 匯入 Apache HttpClient 5
+import org.apache.hc.client5.http.impl.classic.HttpClients; // 匯入 HttpClients，建立 HttpClient
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager; // 匯入連線池
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder; // 匯入連線池建構器
+import org.apache.hc.core5.util.TimeValue; // 匯入 TimeValue，閒置連線回收時間
+import org.apache.hc.core5.util.Timeout; // 匯入 Timeout，各項逾時設定
 import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
 import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
 import org.springframework.http.MediaType; // 匯入 MediaType，指定回應格式 JSON
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory; // 匯入以 Apache HttpClient 為底層的 RestClient 請求工廠
 import org.springframework.stereotype.Service; // 匯入 Service 標註，標記此類別為 Service 元件
 import org.springframework.web.client.RestClient; // 匯入 RestClient，Spring 6+ 輕量 HTTP client
 
+import java.io.IOException; // 匯入 IOException，關閉連線池時可能拋出
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼，位元組與字串互轉
+import java.util.Arrays; // 匯入 Arrays，比較回應內容是否與上一次相同
+import java.util.concurrent.CompletableFuture; // 匯入 CompletableFuture，讓等待中的呼叫者共用同一次刷新結果
+import java.util.concurrent.ExecutionException; // 匯入 ExecutionException，上游呼叫失敗
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，在背景執行上游呼叫以套用總期限
+import java.util.concurrent.Executors; // 匯入 Executors，建立執行緒池
+import java.util.concurrent.Future; // 匯入 Future，等待上游呼叫結果
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.concurrent.TimeoutException; // 匯入 TimeoutException，超過總期限
+import java.util.concurrent.atomic.AtomicReference; // 匯入 AtomicReference，以 CAS 決定由誰負責刷新
+
 /**
  * CoinDesk 服務層
- * - 功能：負責呼叫 CoinDesk API，或在失敗時回傳 Mock JSON
+ * - 功能：負責呼叫 CoinDesk API，失敗時回傳最後一次成功取得的資料（last-known-good），從未成功過才回傳 Mock JSON
+ * - 快取：上游結果在 TTL（coindesk.cache-ttl）內共用，不會每個請求都打一次外部 API
+ * - Single-flight：快取過期時只有一個執行緒實際呼叫上游，其餘並行呼叫者等待同一份結果
+ * - 每次刷新只解析一次（串流解析器），快取同時保存原始 JSON 與解析後的 RateSnapshot；回應內容與上一次相同時不再解析
+ * - 連線：Apache HttpClient 連線池，設有連線 / 讀取逾時與單次呼叫總期限；連續失敗時由斷路器暫停呼叫上游
+ * - 指標：上游耗時、解析耗時、失敗與 fallback 次數記錄於 CoinDeskMetrics
  */
 @Service
 public class CoinDeskService {
     private static final Logger log = LoggerFactory.getLogger(CoinDeskService.class); // 建立 Logger 實例，用於記錄系統運行過程中的訊息（例如錯誤、警告、調試資訊）
+    private final CloseableHttpClient httpClient; // 依賴：具連線池的 HTTP client（關閉時釋放）
     private final RestClient rest; // 依賴：Spring 提供的 HTTP client，用於呼叫外部 API
-    private static final String COINDESK_URL = "https://api.coindesk.com/v1/bpi/currentprice.json"; // CoinDesk API URL
+    private final String url; // CoinDesk API URL（coindesk.upstream.url）
+    private final long totalTimeoutMillis; // 單次呼叫總期限（毫秒）
+    private final CircuitBreaker breaker; // 斷路器：連續失敗時暫停呼叫上游
+    private final ExecutorService upstreamExecutor = Executors.newCachedThreadPool(r -> { // 執行上游呼叫的背景執行緒
+        Thread t = new Thread(r, "coindesk-upstream");
+        t.setDaemon(true);
+        return t;
+    });
+    private final CoinDeskPayloadParser parser; // 依賴：CoinDesk JSON 串流解析器
+    private final CoinDeskMetrics metrics; // 依賴：上游 / 解析 / fallback 指標
+    private final long cacheTtlNanos; // 快取存活時間（奈秒），與 System.nanoTime() 比較用
+    private volatile CachedPayload cached; // 目前的快照（volatile：刷新後其他執行緒立即可見）
+    private volatile CachedPayload lastGood; // 最後一次成功從上游取得的快照（fallback 用）
+    private volatile byte[] lastGoodBody; // lastGood 的原始回應（內容相同時略過解析；只由刷新中的執行緒寫入）
+    private final AtomicReference<CompletableFuture<CachedPayload>> inFlight = new AtomicReference<>(); // 進行中的刷新（null 表示沒有人在刷新）
 
-    // 作業提供的 Mock data（Java 17 支援文字區塊 """..."""）
-    private static final String MOCK_JSON = """
+    // 作業提供的 Mock data（Java 17 支援文字區塊 """..."""；package-private 供基準測試使用）
+    static final String MOCK_JSON = """
             {
               "time": {
                 "updated": "Aug 3, 2022 20:25:00 UTC",
@@ -34,29 +77,283 @@ public class CoinDeskService {
             }""";
 
     /**
-     * 建構子：初始化 RestClient
-     * - 預設即可；若之後需要 proxy/timeout 再加設定
+     * 建構子：初始化連線池、RestClient、斷路器與快取設定
+     */
+    public CoinDeskService(CoinDeskProperties props, CoinDeskPayloadParser parser, CoinDeskMetrics metrics) {
+        CoinDeskProperties.Upstream up = props.upstream();
+        this.httpClient = createHttpClient(up); // 建立具連線池與逾時設定的 HttpClient
+        this.rest = RestClient.builder()
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build(); // 建立 RestClient 實例
+        this.url = up.url();
+        this.totalTimeoutMillis = up.totalTimeout().toMillis();
+        this.breaker = new CircuitBreaker(up.failureThreshold(), up.openDuration());
+        this.parser = parser;
+        this.metrics = metrics;
+        metrics.bindCircuitBreaker(breaker); // 斷路器狀態以 Gauge 輸出
+        this.cacheTtlNanos = props.cacheTtl().toNanos(); // 轉成奈秒，避免每次比較都換算
+    }
+
+    /**
+     * 建立 Apache HttpClient
+     * - 連線池：最多 maxConnections 條連線（單一主機），閒置 1 分鐘回收
+     * - 連線逾時 / 讀取逾時：避免上游卡住時執行緒無限等待
+     * - 取連線逾時：連線池用盡時最多等待 totalTimeout
      */
-    public CoinDeskService() {
-        this.rest = RestClient.create(); // 建立 RestClient 實例
+    private static CloseableHttpClient createHttpClient(CoinDeskProperties.Upstream up) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(up.maxConnections())
+                .setMaxConnPerRoute(up.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(up.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(up.readTimeout()))
+                        .build())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(up.totalTimeout()))
+                        .setResponseTimeout(Timeout.of(up.readTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofMinutes(1))
+                .build();
     }
 
     /**
-     * 取得 CoinDesk 原始 JSON
-     * - 成功：呼叫線上 API 並回傳結果
-     * - 失敗：保留原本呼叫程式碼（try 內），但改回傳 Mock JSON（符合題目需求）
+     * 取得 CoinDesk 原始 JSON（經過快取）
+     * - 快取未過期：直接回傳記憶體中的快照，不呼叫上游
+     * - 快取已過期：由單一執行緒刷新，其他並行呼叫者等待同一次刷新的結果
      */
     public String fetchRawJson() {
+        return current().json();
+    }
+
+    /**
+     * 取得解析後的 CoinDesk 快照（經過快取）
+     * - 與 fetchRawJson() 共用同一份快取，解析只在刷新時做一次
+     */
+    public RateSnapshot fetchSnapshot() {
+        return current().snapshot();
+    }
+
+    /**
+     * 取得快照與是否為 fallback（經過快取）
+     * - 兩者來自同一次讀取的快取內容，不會在兩次讀取之間被刷新替換而互相不一致
+     */
+    public RateSource.Quote fetchQuote() {
+        CachedPayload c = current();
+        return new RateSource.Quote(c.snapshot(), c.fallback());
+    }
+
+    /**
+     * 暖啟動：以上次保存的上游 JSON 作為快取與 fallback 資料，並在背景向上游刷新
+     * - 刷新完成前，請求直接由記憶體回應（標記為 fallback，同步不會把它當成即時資料）
+     * - 上游失敗時 fallback 使用這份資料，而不是 Mock
+     *
+     * @param json     上次保存的上游 JSON
+     * @param snapshot 解析後的快照
+     */
+    public void warmStart(String json, RateSnapshot snapshot) {
+        CachedPayload seeded = new CachedPayload(json, snapshot, System.nanoTime(), true);
+        lastGoodBody = json.getBytes(StandardCharsets.UTF_8); // 上游回應相同時可略過解析
+        lastGood = seeded;
+        if (cached == null) {
+            cached = seeded;
+        }
+        upstreamExecutor.execute(() -> {
+            try {
+                refresh(true);
+            } catch (RuntimeException ex) {
+                log.debug("暖啟動後的背景刷新失敗", ex); // load() 已記錄上游失敗
+            }
+        });
+    }
+
+    /**
+     * 最後一次成功取得（或暖啟動載入）的上游 JSON；從未成功過時回傳 null
+     */
+    public String lastGoodJson() {
+        CachedPayload good = lastGood;
+        return good != null ? good.json() : null;
+    }
+
+    /**
+     * 目前快取中的快照是否為 fallback（最後一次成功的資料或 Mock），而不是這次 TTL 內由上游取得的
+     * - 需要同時取得快照時請使用 fetchQuote()，分開讀取可能跨過一次刷新
+     */
+    public boolean isServingFallback() {
+        CachedPayload c = cached;
+        return c != null && c.fallback();
+    }
+
+    /**
+     * 目前斷路器狀態
+     */
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    /**
+     * 取得目前有效的快照；過期時進行 single-flight 刷新
+     */
+    private CachedPayload current() {
+        CachedPayload c = cached; // 先讀一次 volatile 欄位，避免判斷與回傳之間被替換
+        if (c != null && c.isFresh(cacheTtlNanos)) {
+            return c; // 快取命中
+        }
+        return refresh(false); // 快取過期 → single-flight 刷新
+    }
+
+    /**
+     * Single-flight 刷新
+     * - 以 CAS 搶到 inFlight 的執行緒負責呼叫上游，完成後寫回快取
+     * - 沒搶到的執行緒直接 join 同一個 CompletableFuture，不會再發出請求
+     *
+     * @param force true 表示快取未過期也要刷新（暖啟動後在背景取得最新資料）
+     */
+    private CachedPayload refresh(boolean force) {
+        while (true) {
+            CompletableFuture<CachedPayload> running = inFlight.get();
+            if (running != null) {
+                return running.join(); // 已有人在刷新 → 等待同一份結果
+            }
+            CompletableFuture<CachedPayload> mine = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, mine)) {
+                continue; // 被其他執行緒搶先 → 重新讀取 inFlight 並等待它
+            }
+            try {
+                CachedPayload c = cached;
+                if (force || c == null || !c.isFresh(cacheTtlNanos)) { // 再確認一次：可能前一位負責者剛好刷新完畢
+                    c = load();
+                    cached = c; // 先寫回快取，再清除 inFlight，確保後來者讀得到新快照
+                }
+                mine.complete(c);
+                return c;
+            } catch (RuntimeException | Error ex) {
+                mine.completeExceptionally(ex); // 讓等待者一起收到例外，而不是永遠卡住
+                throw ex;
+            } finally {
+                inFlight.set(null); // 刷新結束，下一次過期時可再由新的執行緒負責
+            }
+        }
+    }
+
+    /**
+     * 取得並解析一份新的快照
+     * - 斷路器打開時不呼叫上游，直接使用 fallback
+     * - 呼叫失敗、逾時或回應無法解析時，記錄失敗並使用 fallback
+     */
+    private CachedPayload load() {
+        if (!breaker.allowRequest()) {
+            log.debug("CoinDesk 斷路器打開中，略過上游呼叫");
+            return fallback("circuit_open");
+        }
+        byte[] body;
+        long start = System.nanoTime();
+        try {
+            body = fetchWithDeadline();
+            metrics.recordUpstream(System.nanoTime() - start, "success");
+        } catch (Exception ex) {
+            metrics.recordUpstream(System.nanoTime() - start, ex instanceof TimeoutException ? "timeout" : "error");
+            return onFailure(ex);
+        }
+        CachedPayload good = lastGood;
+        if (good != null && Arrays.equals(body, lastGoodBody)) {
+            metrics.recordParseSkipped(); // 上游內容沒變 → 沿用同一個快照物件，下游可直接以 equals 判斷沒有變動
+            CachedPayload same = new CachedPayload(good.json(), good.snapshot(), System.nanoTime(), false);
+            breaker.onSuccess();
+            lastGood = same;
+            return same;
+        }
         try {
-            return rest.get() // 發送 GET 請求
-                    .uri(COINDESK_URL)// 指定 API URL
-                    .accept(MediaType.APPLICATION_JSON) // 指定回應格式 JSON
-                    .retrieve()// 執行請求
-                    .body(String.class); // 轉換為字串回傳
+            long parseStart = System.nanoTime();
+            RateSnapshot snapshot = parser.parse(body);
+            metrics.recordParse(System.nanoTime() - parseStart);
+            CachedPayload fresh = new CachedPayload(new String(body, StandardCharsets.UTF_8), snapshot, System.nanoTime(), false);
+            breaker.onSuccess();
+            lastGood = fresh; // 記住最後一次成功的資料
+            lastGoodBody = body;
+            return fresh;
         } catch (Exception ex) {
-            log.warn("CoinDesk 呼叫失敗，改用 Mock", ex); // 異常時記錄警告訊息，並附帶 Exception
-            return MOCK_JSON; // 發生例外時，改用 Mock JSON
+            return onFailure(ex); // 回應無法解析，同樣視為上游失敗
+        }
+    }
+
+    /**
+     * 上游失敗：通知斷路器並改用 fallback
+     */
+    private CachedPayload onFailure(Exception ex) {
+        breaker.onFailure();
+        log.warn("CoinDesk 呼叫失敗，改用 {}", lastGood != null ? "最後一次成功的資料" : "Mock", ex); // 異常時記錄警告訊息，並附帶 Exception
+        return fallback("failure");
+    }
+
+    /**
+     * 在總期限內呼叫上游
+     * - 超過 totalTimeout 即放棄等待（背景呼叫會再受讀取逾時限制而結束）
+     */
+    private byte[] fetchWithDeadline() throws Exception {
+        Future<byte[]> f = upstreamExecutor.submit(this::fetchUpstream);
+        try {
+            return f.get(totalTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            f.cancel(true); // 不再等待這次呼叫
+            throw new TimeoutException("CoinDesk 呼叫超過總期限 " + totalTimeoutMillis + " ms");
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof Exception cause ? cause : ex; // 拆出原始例外，方便記錄
         }
     }
 
+    /**
+     * Fallback：有成功過的資料就用它，否則使用 Mock JSON
+     * - reason：failure（呼叫失敗）或 circuit_open（斷路器打開）
+     * - 以新的時間戳記放入快取，TTL 內不會再次嘗試上游
+     */
+    private CachedPayload fallback(String reason) {
+        CachedPayload good = lastGood;
+        metrics.recordFallback(good != null ? "last_good" : "mock", reason);
+        if (good != null) {
+            return new CachedPayload(good.json(), good.snapshot(), System.nanoTime(), true);
+        }
+        try {
+            return new CachedPayload(MOCK_JSON, parser.parse(MOCK_JSON.getBytes(StandardCharsets.UTF_8)), System.nanoTime(), true);
+        } catch (Exception mockEx) {
+            throw new IllegalStateException("Mock JSON 無法解析", mockEx); // 不應發生：Mock JSON 為固定內容
+        }
+    }
+
+    /**
+     * 實際呼叫 CoinDesk API
+     * - 回傳原始位元組，交給串流解析器直接讀取
+     * - 失敗時拋出例外，由 load() 統一處理 fallback（保留原呼叫程式碼）
+     */
+    byte[] fetchUpstream() {
+        return rest.get() // 發送 GET 請求
+                .uri(url)// 指定 API URL
+                .accept(MediaType.APPLICATION_JSON) // 指定回應格式 JSON
+                .retrieve()// 執行請求
+                .body(byte[].class); // 取回原始位元組，不經過 String 轉換
+    }
+
+    /**
+     * 關閉時釋放連線池與背景執行緒
+     */
+    @PreDestroy
+    void close() throws IOException {
+        upstreamExecutor.shutdownNow();
+        httpClient.close();
+    }
+
+    /**
+     * 快取中的上游快照
+     * - json：上游回傳（或 fallback）的原始 JSON
+     * - snapshot：解析後的快照
+     * - fetchedAtNanos：取得時間（System.nanoTime()，只用來計算經過時間）
+     * - fallback：是否為 fallback 資料（最後一次成功的資料或 Mock）
+     */
+    private record CachedPayload(String json, RateSnapshot snapshot, long fetchedAtNanos, boolean fallback) {
+        boolean isFresh(long ttlNanos) {
+            return System.nanoTime() - fetchedAtNanos < ttlNanos; // 經過時間小於 TTL 即視為有效
+        }
+    }
 }
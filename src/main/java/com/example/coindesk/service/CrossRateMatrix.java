@@ -0,0 +1,104 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import java.math.BigDecimal; // 匯入 BigDecimal，精確的匯率數值
+import java.math.MathContext; // 匯入 MathContext，除法的有效位數
+import java.math.RoundingMode; // 匯入 RoundingMode，進位規則
+import java.time.LocalDateTime; // 匯入 LocalDateTime，矩陣對應的匯率時間
+import java.util.Arrays; // 匯入 Arrays，去除缺值後截斷陣列
+import java.util.HashMap; // 匯入 HashMap，幣別代碼 → 索引
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+
+/**
+ * 交叉匯率矩陣（不可變）
+ * - CoinDesk 只提供 1 BTC = X 單位法幣；任兩種幣別之間的匯率為 rate[to] / rate[from]
+ * - 只保存每個幣別的 BTC 匯率與其倒數（2N 個值），查詢時以一次乘法算出，不預先建立 N×N 個格子
+ *   （幣別數上千時 N×N 個 BigDecimal 會佔用大量記憶體，而每次同步都會重建）
+ * - 匯率為 0 或負值（上游缺值）的幣別不列入矩陣
+ */
+public final class CrossRateMatrix {
+    public static final String BASE = "BTC"; // 基準幣別（CoinDesk 的 bpi 皆以 BTC 計價）
+    private static final MathContext RATE_MC = new MathContext(20, RoundingMode.HALF_EVEN); // 交叉匯率保留 20 位有效數字
+    public static final CrossRateMatrix EMPTY = new CrossRateMatrix(Map.of(), new BigDecimal[0], new BigDecimal[0], null);
+
+    private final Map<String, Integer> index; // 幣別代碼 → 索引
+    private final BigDecimal[] perBtc; // perBtc[i]：1 BTC 可換多少單位的幣別 i（BTC 本身為 1）
+    private final BigDecimal[] btcPer; // btcPer[i]：1 單位幣別 i 可換多少 BTC（perBtc 的倒數）
+    private final LocalDateTime asOf; // 匯率時間（上游 updatedISO）
+
+    private CrossRateMatrix(Map<String, Integer> index, BigDecimal[] perBtc, BigDecimal[] btcPer, LocalDateTime asOf) {
+        this.index = index;
+        this.perBtc = perBtc;
+        this.btcPer = btcPer;
+        this.asOf = asOf;
+    }
+
+    /**
+     * 由 BTC 匯率建立矩陣
+     *
+     * @param btcRates 1 BTC 可換多少單位的各幣別
+     * @param asOf     匯率時間
+     */
+    public static CrossRateMatrix of(List<RateSnapshot.Rate> btcRates, LocalDateTime asOf) {
+        Map<String, Integer> index = new HashMap<>();
+        BigDecimal[] perBtc = new BigDecimal[btcRates.size() + 1];
+        index.put(BASE, 0);
+        perBtc[0] = BigDecimal.ONE;
+        int n = 1;
+        for (RateSnapshot.Rate r : btcRates) {
+            if (r.rate() <= 0 || index.containsKey(r.code())) {
+                continue; // 缺值或重複的幣別不列入
+            }
+            index.put(r.code(), n);
+            perBtc[n++] = r.decimal();
+        }
+
+        BigDecimal[] btcPer = new BigDecimal[n];
+        btcPer[0] = BigDecimal.ONE;
+        for (int i = 1; i < n; i++) {
+            btcPer[i] = BigDecimal.ONE.divide(perBtc[i], RATE_MC); // 倒數只在建立時算一次（N 次除法）
+        }
+        return new CrossRateMatrix(Map.copyOf(index), Arrays.copyOf(perBtc, n), btcPer, asOf);
+    }
+
+    /**
+     * 查詢交叉匯率
+     *
+     * @return 1 單位 from 可換多少 to；任一幣別不在矩陣中時回傳 null
+     */
+    public BigDecimal rate(String from, String to) {
+        Integer i = index.get(from);
+        Integer j = index.get(to);
+        if (i == null || j == null) {
+            return null;
+        }
+        if (i.equals(j)) {
+            return BigDecimal.ONE;
+        }
+        if (i == 0) {
+            return perBtc[j]; // from 為 BTC：直接是 BTC 匯率，不經過乘法
+        }
+        return perBtc[j].multiply(btcPer[i], RATE_MC); // 1 from = btcPer[from] BTC = btcPer[from] × perBtc[to] to
+    }
+
+    /**
+     * 是否包含此幣別
+     */
+    public boolean contains(String code) {
+        return index.containsKey(code);
+    }
+
+    /**
+     * 矩陣中的幣別數（含 BTC）
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 匯率時間（EMPTY 為 null）
+     */
+    public LocalDateTime asOf() {
+        return asOf;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入 ExchangeRate 實體類別
+import com.example.coindesk.dto.ConvertDtos; // 匯入換算 DTO
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入 Repository，啟動時載入既有匯率
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
+import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
+import org.springframework.boot.context.event.ApplicationReadyEvent; // 匯入啟動完成事件
+import org.springframework.context.event.EventListener; // 匯入 @EventListener
+import org.springframework.http.HttpStatus; // 匯入 HttpStatus，提供 404/503 等狀態碼
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+import org.springframework.transaction.event.TransactionalEventListener; // 匯入 @TransactionalEventListener，commit 後才處理事件
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，丟出 HTTP 錯誤
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.math.RoundingMode; // 匯入 RoundingMode，結果四捨五入
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.Comparator; // 匯入 Comparator，取最新的更新時間
+import java.util.List; // 匯入 List
+import java.util.concurrent.atomic.AtomicReference; // 匯入 AtomicReference，整份替換矩陣
+
+/**
+ * 交叉匯率換算服務
+ * - 匯率變動（RatesChangedEvent，commit 後）時，以新快照重建交叉匯率矩陣（各幣別的 BTC 匯率與倒數）
+ * - 啟動時由 exchange_rate 資料表建立第一份矩陣，不必等第一次同步
+ * - 查詢時只讀取目前的矩陣（不加鎖），每次換算只做一次乘法
+ */
+@Service
+public class CrossRateService {
+    private static final Logger log = LoggerFactory.getLogger(CrossRateService.class); // 建立 Logger 實例
+    private static final int RESULT_SCALE = 6; // 換算結果小數位數（與 DB 匯率欄位相同）
+
+    private final ExchangeRateRepository rateRepo; // 依賴：匯率資料表
+    private final AtomicReference<CrossRateMatrix> matrix = new AtomicReference<>(); // 目前的矩陣（null 表示尚未載入）
+
+    public CrossRateService(ExchangeRateRepository rateRepo) {
+        this.rateRepo = rateRepo;
+    }
+
+    /**
+     * 換算金額
+     *
+     * @param fromCode 來源幣別
+     * @param toCode   目標幣別
+     * @param amount   金額
+     * @return 換算結果
+     * @throws ResponseStatusException 幣別不在矩陣中時丟出 404；尚無任何匯率時丟出 503
+     */
+    public ConvertDtos.Response convert(String fromCode, String toCode, BigDecimal amount) {
+        String from = fromCode.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
+        String to = toCode.trim().toUpperCase();
+        CrossRateMatrix m = current(); // 整個換算使用同一份矩陣
+        if (m.size() <= 1) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "尚無匯率資料");
+        }
+        BigDecimal rate = m.rate(from, to);
+        if (rate == null) {
+            String missing = m.contains(from) ? to : from;
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到匯率： " + missing);
+        }
+        BigDecimal result = amount.multiply(rate).setScale(RESULT_SCALE, RoundingMode.HALF_UP); // 唯一的一次乘法
+        return new ConvertDtos.Response(from, to, amount, rate, result, m.asOf());
+    }
+
+    /**
+     * 目前的矩陣（尚未載入時由 DB 建立）
+     */
+    public CrossRateMatrix current() {
+        CrossRateMatrix m = matrix.get();
+        return m != null ? m : loadFromDatabase();
+    }
+
+    /**
+     * 匯率變動事件（commit 後才觸發）：以快照重建矩陣
+     */
+    @TransactionalEventListener
+    public void onRatesChanged(RatesChangedEvent event) {
+        install(CrossRateMatrix.of(event.snapshot().rates(), event.updatedAt()));
+    }
+
+    /**
+     * 啟動完成後預先建立矩陣，第一個請求不必等待
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    /**
+     * 由 exchange_rate 資料表建立矩陣
+     */
+    CrossRateMatrix loadFromDatabase() {
+        List<ExchangeRate> rows = rateRepo.findAll();
+        List<RateSnapshot.Rate> rates = new ArrayList<>(rows.size());
+        for (ExchangeRate er : rows) {
+            rates.add(new RateSnapshot.Rate(er.getCode(), FixedRate.fromBigDecimal(er.getRate())));
+        }
+        LocalDateTime asOf = rows.stream().map(ExchangeRate::getUpdatedAt).max(Comparator.naturalOrder()).orElse(null);
+        CrossRateMatrix m = install(CrossRateMatrix.of(rates, asOf));
+        log.info("交叉匯率矩陣已由資料表建立：{} 種幣別", m.size());
+        return m;
+    }
+
+    /**
+     * 替換矩陣；只接受時間不早於目前矩陣的版本（避免啟動載入覆蓋較新的同步結果）
+     */
+    private CrossRateMatrix install(CrossRateMatrix next) {
+        return matrix.accumulateAndGet(next, (cur, n) -> cur == null || !isOlder(n, cur) ? n : cur);
+    }
+
+    /**
+     * a 的匯率時間是否早於 b
+     */
+    private static boolean isOlder(CrossRateMatrix a, CrossRateMatrix b) {
+        return a.asOf() != null && b.asOf() != null && a.asOf().isBefore(b.asOf());
+    }
+}
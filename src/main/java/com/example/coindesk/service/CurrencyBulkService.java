@@ -0,0 +1,257 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import com.example.coindesk.dto.CurrencyDtos; // 匯入幣別 DTO
+import com.example.coindesk.repository.CurrencyRepository; // 匯入 Repository，批次查詢 / 寫入 / 串流讀取
+import com.fasterxml.jackson.core.JsonProcessingException; // 匯入 JsonProcessingException，輸入格式錯誤
+import com.fasterxml.jackson.databind.MappingIterator; // 匯入 MappingIterator，逐筆讀取輸入
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，沿用 Spring 的 JSON 設定
+import com.fasterxml.jackson.databind.ObjectReader; // 匯入 ObjectReader，預先建立的輸入讀取器
+import com.fasterxml.jackson.databind.ObjectWriter; // 匯入 ObjectWriter，預先建立的輸出寫入器
+import com.fasterxml.jackson.databind.SequenceWriter; // 匯入 SequenceWriter，逐筆寫出
+import com.fasterxml.jackson.databind.exc.MismatchedInputException; // 匯入 MismatchedInputException，單筆欄位型別錯誤（含 InvalidFormatException）
+import com.fasterxml.jackson.dataformat.csv.CsvMapper; // 匯入 CsvMapper，CSV 讀寫
+import com.fasterxml.jackson.dataformat.csv.CsvParser; // 匯入 CsvParser.Feature，去除欄位前後空白
+import com.fasterxml.jackson.dataformat.csv.CsvSchema; // 匯入 CsvSchema，CSV 欄位定義
+import jakarta.persistence.EntityManager; // 匯入 EntityManager，匯入時直接 persist、匯出時逐筆 detach
+import jakarta.validation.ConstraintViolation; // 匯入 ConstraintViolation，驗證錯誤
+import jakarta.validation.Validator; // 匯入 Validator，沿用 CreateRequest 的驗證規則
+import org.springframework.dao.DataIntegrityViolationException; // 匯入 DataIntegrityViolationException，並行新增同一代碼
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+import org.springframework.transaction.PlatformTransactionManager; // 匯入交易管理器，建立 TransactionTemplate
+import org.springframework.transaction.support.TransactionTemplate; // 匯入 TransactionTemplate，每批一個交易
+
+import java.io.IOException; // 匯入 IOException
+import java.io.InputStream; // 匯入 InputStream，請求內容
+import java.io.OutputStream; // 匯入 OutputStream，回應內容
+import java.io.UncheckedIOException; // 匯入 UncheckedIOException，在交易回呼內轉拋 IOException
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.HashSet; // 匯入 HashSet，偵測重複代碼
+import java.util.LinkedHashMap; // 匯入 LinkedHashMap，保留輸入順序
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+import java.util.Set; // 匯入 Set
+import java.util.function.Function; // 匯入 Function
+import java.util.stream.Collectors; // 匯入 Collectors
+import java.util.stream.Stream; // 匯入 Stream，逐筆讀取 DB
+
+/**
+ * 幣別批次匯入 / 匯出服務（POST /currencies/import、GET /currencies/export）
+ * <p>
+ * 匯入：
+ * - 輸入 CSV（第一列為標題 code,nameZh）或 NDJSON（每行一筆 {"code":..,"nameZh":..}），逐筆讀取，不整批留在記憶體
+ * - 每筆以 CreateRequest 的驗證規則檢查；代碼去空白並轉大寫；同一份輸入中重複的代碼只採用第一筆
+ * - 每 500 筆一個交易：一次 findAllById 查出已存在的代碼，新代碼 INSERT、名稱不同才 UPDATE（JDBC batch 送出）
+ * - 單筆欄位型別錯誤（例：code 為物件）只拒絕該筆，繼續讀取後面的資料
+ * - JSON / CSV 語法錯誤時無法再往下讀，記錄一筆錯誤並停止讀取（已 commit 的批次保留）
+ * <p>
+ * 匯出：
+ * - 在唯讀交易內以資料庫游標逐筆讀取，寫出後立即 detach，記憶體用量與資料筆數無關
+ */
+@Service
+public class CurrencyBulkService {
+    static final int CHUNK_SIZE = 500; // 每個交易處理的筆數
+    static final int MAX_REPORTED_ERRORS = 100; // 回應中最多列出的錯誤筆數
+    private static final CsvSchema CSV_READ_SCHEMA = CsvSchema.emptySchema().withHeader(); // 欄位依標題列對應
+    private static final CsvSchema CSV_WRITE_SCHEMA = CsvSchema.builder()
+            .addColumn("code")
+            .addColumn("nameZh")
+            .build()
+            .withHeader(); // 輸出時先寫標題列
+
+    private final CurrencyRepository repo; // 依賴：幣別資料存取
+    private final CurrencyNameCache nameCache; // 依賴：中文名稱對照快取，匯入後需失效
+    private final UnknownCurrencyCache unknownCodes; // 依賴：負向快取，新增的代碼需移除
+    private final Validator validator; // 依賴：Bean Validation
+    private final EntityManager em; // 依賴：匯入時 persist 新實體、匯出時 detach 已寫出的實體
+    private final TransactionTemplate writeTx; // 匯入：每批一個交易
+    private final TransactionTemplate readTx; // 匯出：唯讀交易
+    private final ObjectReader ndjsonReader; // NDJSON 輸入讀取器
+    private final ObjectReader csvReader; // CSV 輸入讀取器
+    private final ObjectWriter ndjsonWriter; // NDJSON 輸出寫入器
+    private final ObjectWriter csvWriter; // CSV 輸出寫入器
+
+    public CurrencyBulkService(CurrencyRepository repo,
+                               CurrencyNameCache nameCache,
+                               UnknownCurrencyCache unknownCodes,
+                               Validator validator,
+                               EntityManager em,
+                               PlatformTransactionManager txManager,
+                               ObjectMapper mapper) {
+        this.repo = repo;
+        this.nameCache = nameCache;
+        this.unknownCodes = unknownCodes;
+        this.validator = validator;
+        this.em = em;
+        this.writeTx = new TransactionTemplate(txManager);
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        CsvMapper csv = CsvMapper.builder()
+                .enable(CsvParser.Feature.TRIM_SPACES) // 去除欄位前後空白
+                .build();
+        this.ndjsonReader = mapper.readerFor(CurrencyDtos.CreateRequest.class);
+        this.csvReader = csv.readerFor(CurrencyDtos.CreateRequest.class).with(CSV_READ_SCHEMA);
+        this.ndjsonWriter = mapper.writerFor(CurrencyDtos.Response.class).withRootValueSeparator("\n");
+        this.csvWriter = csv.writerFor(CurrencyDtos.Response.class).with(CSV_WRITE_SCHEMA);
+    }
+
+    /**
+     * 批次匯入
+     *
+     * @param in  請求內容
+     * @param csv true → CSV；false → NDJSON
+     * @return 匯入結果統計
+     */
+    public CurrencyDtos.ImportResult importCurrencies(InputStream in, boolean csv) throws IOException {
+        ImportTally tally = new ImportTally();
+        Set<String> seen = new HashSet<>(); // 已讀過的代碼（只存代碼字串）
+        Map<String, String> chunk = new LinkedHashMap<>(); // 本批：代碼 → 中文名稱
+        List<Long> chunkRows = new ArrayList<>(); // 本批各筆的資料列序號（寫入失敗時回報用）
+        try (MappingIterator<CurrencyDtos.CreateRequest> it = (csv ? csvReader : ndjsonReader).readValues(in)) {
+            try {
+                while (it.hasNextValue()) {
+                    CurrencyDtos.CreateRequest req;
+                    try {
+                        req = it.nextValue();
+                    } catch (MismatchedInputException ex) { // 語法正確但型別不符 → MappingIterator 會跳過該筆剩餘內容
+                        tally.reject(++tally.received, null, "欄位型別錯誤：" + ex.getOriginalMessage());
+                        continue;
+                    }
+                    long row = ++tally.received;
+                    String error = validate(req);
+                    if (error != null) {
+                        tally.reject(row, req == null ? null : req.code(), error);
+                        continue;
+                    }
+                    String code = req.code().trim().toUpperCase(); // 與 CurrencyService 相同的代碼正規化
+                    if (!seen.add(code)) {
+                        tally.reject(row, code, "重複的幣別代碼");
+                        continue;
+                    }
+                    chunk.put(code, req.nameZh());
+                    chunkRows.add(row);
+                    if (chunk.size() >= CHUNK_SIZE) {
+                        writeChunk(chunk, chunkRows, tally);
+                    }
+                }
+            } catch (JsonProcessingException ex) { // 語法錯誤
+                tally.reject(++tally.received, null, "格式錯誤：" + ex.getOriginalMessage()); // 無法再往下讀，記錄後結束
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkRows, tally);
+        }
+        return tally.toResult();
+    }
+
+    /**
+     * 批次匯出（依代碼排序）
+     *
+     * @param out 回應內容
+     * @param csv true → CSV（含標題列）；false → NDJSON
+     * @return 匯出筆數
+     */
+    public long exportCurrencies(OutputStream out, boolean csv) {
+        Long count = readTx.execute(status -> {
+            long rows = 0;
+            try (Stream<Currency> currencies = repo.streamAllByOrderByCodeAsc();
+                 SequenceWriter writer = (csv ? csvWriter : ndjsonWriter).writeValues(out)) {
+                for (Currency c : (Iterable<Currency>) currencies::iterator) {
+                    writer.write(new CurrencyDtos.Response(c.getCode(), c.getNameZh()));
+                    em.detach(c); // 已寫出，不再留在 persistence context
+                    rows++;
+                }
+                if (!csv && rows > 0) {
+                    out.write('\n'); // NDJSON 最後一行也以換行結尾
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return rows;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 以 CreateRequest 的驗證規則檢查單筆
+     *
+     * @return 錯誤訊息；通過時回傳 null
+     */
+    private String validate(CurrencyDtos.CreateRequest req) {
+        if (req == null) {
+            return "code、nameZh 必填";
+        }
+        Set<ConstraintViolation<CurrencyDtos.CreateRequest>> violations = validator.validate(req);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + "：" + v.getMessage())
+                .sorted() // 訊息順序固定
+                .collect(Collectors.joining("；"));
+    }
+
+    /**
+     * 在一個交易內寫入一批，完成後清空 chunk
+     * - 一次查詢取得已存在的代碼，只有新代碼 INSERT、名稱不同才 UPDATE
+     * - 並行新增同一代碼造成主鍵衝突時，整批回滾並記為拒絕
+     */
+    private void writeChunk(Map<String, String> chunk, List<Long> chunkRows, ImportTally tally) {
+        try {
+            int[] counts = writeTx.execute(status -> {
+                Map<String, Currency> existing = repo.findAllById(chunk.keySet()).stream()
+                        .collect(Collectors.toMap(Currency::getCode, Function.identity()));
+                List<Currency> inserts = new ArrayList<>();
+                int updated = 0;
+                for (Map.Entry<String, String> e : chunk.entrySet()) {
+                    Currency c = existing.get(e.getKey());
+                    if (c == null) {
+                        inserts.add(new Currency(e.getKey(), e.getValue()));
+                    } else if (!c.getNameZh().equals(e.getValue())) {
+                        c.setNameZh(e.getValue()); // 受管實體，commit 時以 UPDATE 寫回
+                        updated++;
+                    }
+                }
+                inserts.forEach(em::persist); // 已確認不存在 → 直接 persist（不經 merge 逐筆 SELECT），commit 時批次 INSERT
+                if (!inserts.isEmpty() || updated > 0) {
+                    nameCache.invalidateAfterCommit(); // commit 後讓中文名稱對照失效
+                }
+                unknownCodes.forgetAfterCommit(inserts.stream().map(Currency::getCode).toList()); // 新增的代碼不再視為查無資料
+                return new int[]{inserts.size(), updated};
+            });
+            tally.inserted += counts[0];
+            tally.updated += counts[1];
+            tally.unchanged += chunk.size() - counts[0] - counts[1];
+        } catch (DataIntegrityViolationException ex) {
+            int i = 0;
+            for (String code : chunk.keySet()) {
+                tally.reject(chunkRows.get(i++), code, "寫入失敗（代碼可能已被同時新增），本批已回滾");
+            }
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    /**
+     * 匯入過程的統計（單一請求內使用，不需同步）
+     */
+    private static final class ImportTally {
+        long received;
+        long inserted;
+        long updated;
+        long unchanged;
+        long rejected;
+        final List<CurrencyDtos.ImportError> errors = new ArrayList<>();
+
+        void reject(long row, String code, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new CurrencyDtos.ImportError(row, code, message));
+            }
+        }
+
+        CurrencyDtos.ImportResult toResult() {
+            return new CurrencyDtos.ImportResult(received, inserted, updated, unchanged, rejected, List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import com.example.coindesk.repository.CurrencyRepository; // 匯入 Repository，一次載入全部幣別
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+import org.springframework.transaction.support.TransactionSynchronization; // 匯入交易同步回呼（afterCommit）
+import org.springframework.transaction.support.TransactionSynchronizationManager; // 匯入交易同步管理器，註冊 afterCommit 回呼
+
+import java.util.HashMap; // 匯入 HashMap，組裝對照表
+import java.util.Map; // 匯入 Map，幣別代碼 → 中文名稱
+import java.util.concurrent.atomic.AtomicLong; // 匯入 AtomicLong，作為對照表的版本號
+
+/**
+ * 幣別中文名稱對照快取（code → nameZh）
+ * - 第一次使用時以一次查詢（findAll）載入整張表，之後直接讀記憶體，不再逐筆查 DB
+ * - CurrencyService 的新增/修改/刪除在交易 commit 後呼叫失效，下一次讀取時重新載入
+ * <p>
+ * 併發設計：
+ * - 對照表本身不可變（Map.copyOf），以 volatile 欄位整份替換，讀取不需加鎖
+ * - 每次失效都會遞增版本號；載入前先記下版本號，載入結果只在版本號仍相同時才視為有效
+ *   → 載入途中若有其他交易 commit，舊資料不會被當成最新版本繼續使用
+ */
+@Component
+public class CurrencyNameCache {
+    private final CurrencyRepository repo; // 依賴：幣別資料存取
+    private final AtomicLong version = new AtomicLong(); // 目前版本號（每次失效 +1）
+    private volatile Loaded loaded; // 最近一次載入的對照表與其版本號
+
+    public CurrencyNameCache(CurrencyRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * 查詢幣別中文名稱
+     *
+     * @param code 幣別代碼
+     * @return 中文名稱；查無資料時回傳空字串
+     */
+    public String nameOf(String code) {
+        return names().getOrDefault(code, "");
+    }
+
+    /**
+     * 取得完整對照表（不可變）
+     * - 版本號相符 → 直接回傳記憶體中的對照表
+     * - 版本號不符（已失效）→ 重新以一次查詢載入
+     */
+    public Map<String, String> names() {
+        long v = version.get(); // 先取版本號，再讀對照表
+        Loaded l = loaded;
+        if (l != null && l.version() == v) {
+            return l.names(); // 快取有效
+        }
+        Map<String, String> fresh = load(); // 一次查詢載入整張表
+        loaded = new Loaded(v, fresh); // 以「載入前」的版本號存入；若期間已失效，下次讀取會因版本不符而重載
+        return fresh;
+    }
+
+    /**
+     * 暖啟動：以上次保存的對照表作為目前內容（之後的失效照常生效）
+     */
+    public void seed(Map<String, String> names) {
+        loaded = new Loaded(version.get(), Map.copyOf(names));
+    }
+
+    /**
+     * 重新由 DB 載入並替換目前內容；讀取端在載入期間繼續使用舊內容
+     */
+    public void reload() {
+        long v = version.get();
+        loaded = new Loaded(v, load());
+    }
+
+    /**
+     * 立即失效（下一次讀取會重新載入）
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * 在目前交易 commit 後才失效
+     * - 若在 commit 前失效，其他執行緒可能立刻重載到尚未 commit 的舊資料
+     * - 交易回滾時不需失效（資料沒有變動）
+     * - 沒有進行中的交易時，直接失效
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * 從 DB 一次載入全部幣別
+     */
+    private Map<String, String> load() {
+        Map<String, String> m = new HashMap<>();
+        for (Currency c : repo.findAll()) {
+            m.put(c.getCode(), c.getNameZh());
+        }
+        return Map.copyOf(m); // 轉為不可變 Map，可安全地跨執行緒共用
+    }
+
+    /**
+     * 已載入的對照表與其版本號
+     */
+    private record Loaded(long version, Map<String, String> names) {
+    }
+}
@@ -3,13 +3,23 @@ package com.example.coindesk.service; // 定義這個類別所在的套件位置
 import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別（對應資料表）
 import com.example.coindesk.dto.CurrencyDtos; // 匯入 DTO（用來收/回傳 API 資料）
 import com.example.coindesk.repository.CurrencyRepository; // 匯入 Repository，負責存取幣別資料
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，沿用 Spring 的 JSON 設定
+import com.fasterxml.jackson.databind.ObjectWriter; // 匯入 ObjectWriter，預先建立的輸出寫入器
+import com.fasterxml.jackson.databind.SequenceWriter; // 匯入 SequenceWriter，逐筆寫出 JSON 陣列
+import jakarta.persistence.Cache; // 匯入 JPA Cache，清除本節點的二級快取
+import jakarta.persistence.EntityManager; // 匯入 EntityManager，串流輸出時逐筆 detach
+import org.springframework.data.domain.Limit; // 匯入 Limit，分頁查詢筆數
+import org.springframework.dao.DataIntegrityViolationException; // 匯入 DataIntegrityViolationException，主鍵重複時由 DB 拋出
 import org.springframework.http.HttpStatus; // 匯入 HttpStatus，提供 404/409 等狀態碼
 import org.springframework.stereotype.Service; // 匯入 Service 標註，標記此類別為 Service 元件
 import org.springframework.transaction.annotation.Transactional; // 匯入 Transactional，控制資料庫交易
 import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，丟出 HTTP 錯誤
 import org.springframework.http.HttpStatus.*; // 匯入 HttpStatus.*，可直接使用 NOT_FOUND, CONFLICT 等常數
 
+import java.io.IOException; // 匯入 IOException
+import java.io.OutputStream; // 匯入 OutputStream，串流輸出的目的地
 import java.util.List; // 匯入 List，用於回傳多筆資料
+import java.util.stream.Stream; // 匯入 Stream，逐筆讀取 DB
 
 /**
  * CurrencyService
@@ -21,17 +31,34 @@ import java.util.List; // 匯入 List，用於回傳多筆資料
  * 註：
  * 1. Service 層不直接處理 HTTP，這是 Controller 的責任
  * 2. Service 串接 Repository（資料存取層）與 Controller
+ * 3. 異動成功 commit 後，通知 CurrencyNameCache 失效，讓轉換 API 取得最新中文名稱
+ * 4. 列表查詢不一次載入整張表：分頁以代碼為游標（keyset），完整列表以 DB 游標逐筆串流輸出
+ * 5. 單筆查詢一律以 findById（主鍵）進行，可命中 Hibernate 二級快取；查無資料的代碼記在 UnknownCurrencyCache
+ * 6. 上述快取都是本機記憶體，commit 後的失效只發生在寫入的節點；多節點時由 RateSyncScheduler 每次排程呼叫
+ *    evictLocalCaches()，其他節點的異動最晚在下一次排程後（最長 coindesk.sync.schedule.max-interval）看到
  */
 @Service // 標記此類別為 Spring 的 Service，交由 IoC 容器管理
 public class CurrencyService {
 
     private final CurrencyRepository repo; // 依賴注入的 Repository，負責存取幣別資料
+    private final CurrencyNameCache nameCache; // 依賴注入的中文名稱對照快取，異動後需失效
+    private final UnknownCurrencyCache unknownCodes; // 依賴注入的負向快取，查無資料的代碼不再查 DB
+    private final EntityManager em; // 依賴注入的 EntityManager，串流輸出時 detach 已寫出的實體
+    private final ObjectWriter responseWriter; // 單筆 Response 寫入器
+
+    public static final int DEFAULT_PAGE_SIZE = 100; // 分頁預設筆數
+    public static final int MAX_PAGE_SIZE = 500; // 分頁筆數上限
 
     /**
-     * 建構子注入 CurrencyRepository
+     * 建構子注入 CurrencyRepository、CurrencyNameCache、UnknownCurrencyCache、EntityManager 與 ObjectMapper
      */
-    public CurrencyService(CurrencyRepository repo) {
+    public CurrencyService(CurrencyRepository repo, CurrencyNameCache nameCache, UnknownCurrencyCache unknownCodes,
+                           EntityManager em, ObjectMapper mapper) {
         this.repo = repo;
+        this.nameCache = nameCache;
+        this.unknownCodes = unknownCodes;
+        this.em = em;
+        this.responseWriter = mapper.writerFor(CurrencyDtos.Response.class);
     }
 
     /**
@@ -47,6 +74,53 @@ public class CurrencyService {
                 .toList(); // 收集成 List，最後回傳
     }
 
+    /**
+     * 分頁查詢（keyset：以代碼為游標）
+     * - 多查一筆判斷是否還有下一頁，不需要另外 COUNT
+     *
+     * @param after 上一頁最後一筆的代碼（第一頁傳 null 或空字串）
+     * @param limit 每頁筆數（1 ~ MAX_PAGE_SIZE）
+     * @return 本頁資料與下一頁游標
+     * @throws ResponseStatusException 筆數超出範圍時丟出 400
+     */
+    @Transactional(readOnly = true) // 查詢操作，標記為唯讀
+    public CurrencyDtos.Page page(String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 需介於 1 ~ " + MAX_PAGE_SIZE);
+        }
+        String cursor = after == null ? "" : after.trim().toUpperCase(); // 代碼格式與儲存時一致；空字串小於所有代碼
+        List<CurrencyDtos.Response> items = repo.findByCodeGreaterThanOrderByCodeAsc(cursor, Limit.of(limit + 1))
+                .stream()
+                .map(c -> new CurrencyDtos.Response(c.getCode(), c.getNameZh()))
+                .toList();
+        if (items.size() <= limit) {
+            return new CurrencyDtos.Page(items, null); // 最後一頁
+        }
+        List<CurrencyDtos.Response> page = items.subList(0, limit);
+        return new CurrencyDtos.Page(page, page.get(limit - 1).code());
+    }
+
+    /**
+     * 依代碼排序，將全部幣別以 JSON 陣列逐筆寫出
+     * - 在唯讀交易內以 DB 游標讀取，每寫出一筆就 detach，記憶體用量與資料筆數無關
+     *
+     * @param out 輸出目的地（例如 HTTP 回應）
+     * @return 寫出筆數
+     */
+    @Transactional(readOnly = true) // 查詢操作，標記為唯讀；Stream 必須在交易內使用
+    public long writeSorted(OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<Currency> currencies = repo.streamAllByOrderByCodeAsc();
+             SequenceWriter writer = responseWriter.writeValuesAsArray(out)) {
+            for (Currency c : (Iterable<Currency>) currencies::iterator) {
+                writer.write(new CurrencyDtos.Response(c.getCode(), c.getNameZh()));
+                em.detach(c); // 已寫出，不再留在 persistence context
+                rows++;
+            }
+        }
+        return rows;
+    }
+
     /**
      * 查詢單一幣別
      *
@@ -57,8 +131,7 @@ public class CurrencyService {
     @Transactional(readOnly = true) // 查詢操作，標記為唯讀
     public CurrencyDtos.Response getOne(String codePath) {
         String code = codePath.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
-        Currency c = repo.findById(code) // 從資料庫查詢該代碼
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到幣別： " + code)); // 查無資料 → 404
+        Currency c = findOrThrow(code); // 查詢該代碼，查無資料 → 404
         return new CurrencyDtos.Response(c.getCode(), c.getNameZh()); // 組成回應 DTO
     }
 
@@ -67,17 +140,25 @@ public class CurrencyService {
      *
      * @param req 建立請求 DTO
      * @return 幣別回應 DTO
-     * @throws ResponseStatusException 若幣別代碼已存在則丟出 409
+     * @throws ResponseStatusException 若幣別代碼已存在則丟出 409（含並行新增同一代碼時由 DB 主鍵擋下的情況）
      */
     @Transactional // 開啟交易，允許 INSERT（若失敗會自動回滾）
     public CurrencyDtos.Response create(CurrencyDtos.CreateRequest req) {
         String code = req.code().trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
         // 驗證是否已存在相同代碼
         // - 若代碼已存在，拋出 409 Conflict（避免重複建立同一幣別）
-        if (repo.existsByCode(code)) {
+        if (repo.findById(code).isPresent()) { // 以主鍵查詢，可命中二級快取
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "幣別代碼已存在： " + code);
+        }
+        Currency saved;
+        try {
+            saved = repo.saveAndFlush(new Currency(code, req.nameZh())); // 新增資料並立即 flush，讓主鍵衝突在此處就被發現
+        } catch (DataIntegrityViolationException ex) {
+            // 並行請求在 existsByCode 之後搶先新增同一代碼 → 同樣回 409，而不是 500
             throw new ResponseStatusException(HttpStatus.CONFLICT, "幣別代碼已存在： " + code);
         }
-        Currency saved = repo.save(new Currency(code, req.nameZh())); // 新增資料
+        nameCache.invalidateAfterCommit(); // commit 後讓中文名稱對照失效
+        unknownCodes.forgetAfterCommit(code); // 此代碼已存在，不再視為查無資料
         return new CurrencyDtos.Response(saved.getCode(), saved.getNameZh()); // 回傳建立後資料
     }
 
@@ -92,11 +173,11 @@ public class CurrencyService {
     @Transactional // 開啟交易，允許 UPDATE；發生例外會自動回滾
     public CurrencyDtos.Response update(String codepath, CurrencyDtos.UpdateRequest req) {
         String code = codepath.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
-        Currency c = repo.findById(code) // 從資料庫查詢該代碼
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到幣別： " + code)); // 查無資料 → 404
+        Currency c = findOrThrow(code); // 查詢該代碼，查無資料 → 404
         c.setNameZh(req.nameZh()); // 僅更新中文名稱
         // updatedAt 欄位由 @PreUpdate 自動帶入，無需手動設定
         Currency saved = repo.save(c); // 儲存更新
+        nameCache.invalidateAfterCommit(); // commit 後讓中文名稱對照失效
         return new CurrencyDtos.Response(saved.getCode(), saved.getNameZh()); // 回傳更新後資料
     }
 
@@ -109,10 +190,37 @@ public class CurrencyService {
     @Transactional // 開啟交易，允許 DELETE；發生例外會自動回滾
     public void delete(String codePath) {
         String code = codePath.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
-        // 從資料庫查詢該代碼，查無資料 → 404
-        if (!repo.existsByCode(code)) {
+        Currency c = findOrThrow(code); // 查詢該代碼，查無資料 → 404
+        repo.delete(c); // 執行刪除（二級快取中的項目由 Hibernate 一併移除）
+        nameCache.invalidateAfterCommit(); // commit 後讓中文名稱對照失效
+    }
+
+    /**
+     * 清除本節點的幣別快取，下一次讀取時由 DB 重新載入
+     * - Currency 二級快取與查詢快取（分頁）：查詢快取依本機的資料表異動時間判斷是否過期，看不到其他節點的寫入
+     * - 中文名稱對照與查無資料的負向快取
+     */
+    public void evictLocalCaches() {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Currency.class);
+        cache.unwrap(org.hibernate.Cache.class).evictQueryRegions();
+        nameCache.invalidate();
+        unknownCodes.forgetAll();
+    }
+
+    /**
+     * 依代碼查詢，查無資料丟出 404
+     * - 負向快取中已知不存在的代碼直接回 404，不查 DB
+     * - findById 先查二級快取，未命中才查 DB；查無資料時記入負向快取（查詢期間有新增幣別時不記入）
+     */
+    private Currency findOrThrow(String code) {
+        if (unknownCodes.isUnknown(code)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到幣別： " + code);
         }
-        repo.deleteById(code); // 執行刪除
+        long generation = unknownCodes.generation(); // 必須在查 DB 之前取得
+        return repo.findById(code).orElseThrow(() -> {
+            unknownCodes.markUnknown(code, generation);
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到幣別： " + code);
+        });
     }
 }
@@ -0,0 +1,211 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.RateSourceProperties; // 匯入多來源聚合設定（共同期限、離群值門檻）
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import jakarta.annotation.PreDestroy; // 匯入 @PreDestroy，關閉時釋放執行緒
+import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
+import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
+import org.springframework.stereotype.Service; // 匯入 Service 標註，標記此類別為 Service 元件
+
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，聚合後的更新時間
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.Arrays; // 匯入 Arrays，排序匯率
+import java.util.LinkedHashMap; // 匯入 LinkedHashMap，依第一次出現的順序排列幣別
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+import java.util.concurrent.ExecutionException; // 匯入 ExecutionException，來源呼叫失敗
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，並行呼叫各來源
+import java.util.concurrent.Executors; // 匯入 Executors，建立執行緒池
+import java.util.concurrent.Future; // 匯入 Future，等待各來源結果
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.concurrent.TimeoutException; // 匯入 TimeoutException，超過共同期限
+
+/**
+ * 多來源匯率聚合
+ * - 所有 RateSource 同時開始抓取，共用同一個期限（coindesk.sources.deadline）；總耗時取決於期限內最慢的來源，而不是各來源耗時總和
+ * - 期限內沒有回應或失敗的來源不列入本次聚合
+ * - 依幣別取各來源匯率的中位數；與中位數相對偏差超過 maxDeviation 的值視為離群值剔除後，再取一次中位數
+ * - 只有一個即時來源時直接採用其快照；沒有任何即時來源時，採用第一個來源（@Order）的 fallback 資料
+ * - 更新時間取各即時來源中最新的 updatedISO
+ */
+@Service
+public class RateAggregator {
+    private static final Logger log = LoggerFactory.getLogger(RateAggregator.class); // 建立 Logger 實例
+    private final List<RateSource> sources; // 所有匯率來源（依 @Order 排序）
+    private final long deadlineNanos; // 共同期限（奈秒）
+    private final double maxDeviation; // 離群值門檻（相對偏差）
+    private final CoinDeskMetrics metrics; // 依賴：各來源耗時與離群值指標
+    private final ExecutorService sourceExecutor = Executors.newCachedThreadPool(r -> { // 執行來源呼叫的背景執行緒
+        Thread t = new Thread(r, "rate-source");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RateAggregator(List<RateSource> sources, RateSourceProperties props, CoinDeskMetrics metrics) {
+        this.sources = List.copyOf(sources);
+        this.deadlineNanos = props.deadline().toNanos();
+        this.maxDeviation = props.maxDeviation();
+        this.metrics = metrics;
+    }
+
+    /**
+     * 並行抓取所有來源並聚合成一份快照
+     *
+     * @return 聚合後的快照；沒有任何即時來源、改用 fallback 資料時 fallback() 為 true
+     * @throws IllegalStateException 期限內沒有任何來源回應
+     */
+    public RateSource.Quote fetch() {
+        long start = System.nanoTime();
+        long deadline = start + deadlineNanos;
+        List<Future<RateSource.Quote>> futures = new ArrayList<>(sources.size());
+        for (RateSource source : sources) {
+            futures.add(sourceExecutor.submit(() -> fetchTimed(source, start)));
+        }
+
+        List<Fetched> live = new ArrayList<>();
+        List<Fetched> fallbacks = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            RateSource source = sources.get(i);
+            Future<RateSource.Quote> f = futures.get(i);
+            try {
+                RateSource.Quote q = f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS); // 剩餘時間，不是每個來源各給一個期限
+                (q.fallback() ? fallbacks : live).add(new Fetched(source.name(), q.snapshot()));
+            } catch (TimeoutException ex) {
+                f.cancel(true); // 不再等待這個來源
+                metrics.recordSource(source.name(), System.nanoTime() - start, "timeout");
+                log.warn("匯率來源 {} 超過共同期限 {} ms，不列入本次聚合", source.name(), TimeUnit.NANOSECONDS.toMillis(deadlineNanos));
+            } catch (ExecutionException ex) {
+                log.warn("匯率來源 {} 取得失敗，不列入本次聚合", source.name(), ex.getCause()); // 耗時已在 fetchTimed 記錄
+            } catch (InterruptedException ex) {
+                futures.forEach(other -> other.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待匯率來源時被中斷", ex);
+            }
+        }
+
+        if (live.isEmpty()) {
+            if (fallbacks.isEmpty()) {
+                throw new IllegalStateException("期限內沒有任何匯率來源回應");
+            }
+            return new RateSource.Quote(fallbacks.get(0).snapshot(), true); // 全部都只有 fallback → 採用主要來源
+        }
+        if (live.size() == 1) {
+            return RateSource.Quote.live(live.get(0).snapshot()); // 單一來源不需要聚合
+        }
+        return RateSource.Quote.live(aggregate(live));
+    }
+
+    /**
+     * 呼叫單一來源並記錄耗時（在背景執行緒執行，耗時為實際完成時間，不受等待順序影響）
+     */
+    private RateSource.Quote fetchTimed(RateSource source, long start) throws Exception {
+        try {
+            RateSource.Quote q = source.fetch();
+            if (q == null || q.snapshot() == null) {
+                throw new IllegalStateException("匯率來源 " + source.name() + " 沒有回傳快照");
+            }
+            metrics.recordSource(source.name(), System.nanoTime() - start, q.fallback() ? "fallback" : "success");
+            return q;
+        } catch (Exception ex) {
+            metrics.recordSource(source.name(), System.nanoTime() - start, "error");
+            throw ex;
+        }
+    }
+
+    /**
+     * 依幣別聚合多個即時來源的快照
+     * - 沒有任何來源提供有效匯率（皆缺值）的幣別不列入，DB 保留上一次的匯率，不會被 0 覆寫
+     */
+    private RateSnapshot aggregate(List<Fetched> live) {
+        Map<String, List<Point>> byCode = new LinkedHashMap<>(); // 幣別 → 各來源的匯率（順序依第一次出現）
+        OffsetDateTime updatedIso = null;
+        String updated = null;
+        for (Fetched f : live) {
+            for (RateSnapshot.Rate r : f.snapshot().rates()) {
+                List<Point> points = byCode.computeIfAbsent(r.code(), k -> new ArrayList<>());
+                if (r.rate() > 0) {
+                    points.add(new Point(f.source(), r.rate())); // 缺值（0）不參與計算
+                }
+            }
+            OffsetDateTime t = f.snapshot().updatedIso();
+            if (t != null && (updatedIso == null || t.isAfter(updatedIso))) {
+                updatedIso = t;
+                updated = f.snapshot().updated();
+            } else if (updatedIso == null && updated == null) {
+                updated = f.snapshot().updated();
+            }
+        }
+
+        List<RateSnapshot.Rate> rates = new ArrayList<>(byCode.size());
+        for (Map.Entry<String, List<Point>> e : byCode.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                continue; // 各來源皆缺值
+            }
+            rates.add(new RateSnapshot.Rate(e.getKey(), robustMedian(e.getKey(), e.getValue())));
+        }
+        return new RateSnapshot(updatedIso, updated, List.copyOf(rates));
+    }
+
+    /**
+     * 剔除離群值後的中位數
+     * - 先取所有值的中位數，再剔除相對偏差超過 maxDeviation 的值後重新取中位數
+     * - 全部都被剔除（例如只有兩個來源且差距過大）時無法判斷哪個正確，直接採用所有值的中位數
+     *
+     * @param points 至少一個有效值
+     * @return 匯率（FixedRate）
+     */
+    private long robustMedian(String code, List<Point> points) {
+        long median = median(points.stream().mapToLong(Point::rate).toArray());
+        double limit = median * maxDeviation;
+        long[] kept = points.stream()
+                .filter(p -> Math.abs(p.rate() - median) <= limit)
+                .mapToLong(Point::rate)
+                .toArray();
+        if (kept.length == 0) {
+            log.warn("幣別 {} 各來源差距過大，無法剔除離群值：{}", code, points);
+            return median;
+        }
+        if (kept.length < points.size()) {
+            for (Point p : points) {
+                if (Math.abs(p.rate() - median) > limit) {
+                    metrics.recordOutlier(p.source());
+                    log.warn("幣別 {} 來源 {} 的匯率 {} 偏離中位數 {} 超過 {}%，已剔除", code, p.source(),
+                            FixedRate.toString(p.rate()), FixedRate.toString(median), maxDeviation * 100);
+                }
+            }
+        }
+        return median(kept);
+    }
+
+    /**
+     * 中位數（偶數筆取中間兩筆的平均，四捨五入）
+     */
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        int mid = values.length / 2;
+        if (values.length % 2 == 1) {
+            return values[mid];
+        }
+        return (values[mid - 1] + values[mid] + 1) / 2; // 皆為正值且 ≤ 10^18，相加不會溢位
+    }
+
+    /**
+     * 關閉時釋放背景執行緒
+     */
+    @PreDestroy
+    void close() {
+        sourceExecutor.shutdownNow();
+    }
+
+    /**
+     * 單一來源的即時結果
+     */
+    private record Fetched(String source, RateSnapshot snapshot) {
+    }
+
+    /**
+     * 單一來源對某幣別的匯率
+     */
+    private record Point(String source, long rate) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.dto.RateHistoryDtos; // 匯入匯率歷史 DTO
+import com.example.coindesk.repository.ExchangeRateHistoryRepository; // 匯入匯率歷史 Repository
+import org.springframework.http.HttpStatus; // 匯入 HttpStatus，提供 400 等狀態碼
+import org.springframework.jdbc.core.JdbcTemplate; // 匯入 JdbcTemplate，以 JDBC 批次寫入歷史資料
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，確保交易一致性
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，丟出 HTTP 錯誤
+
+import java.math.RoundingMode; // 匯入 RoundingMode，平均值四捨五入
+import java.sql.Timestamp; // 匯入 Timestamp，JDBC 時間參數
+import java.time.Duration; // 匯入 Duration，表示時間桶寬度
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+
+/**
+ * ===========================================
+ * 匯率歷史服務 (RateHistoryService)
+ * ===========================================
+ * 功能：
+ * - append：由 RateSyncService 在同一交易內呼叫，將本次快照寫入歷史表（append-only）
+ * - history：依時間區間與桶寬查詢，在 DB 端降採樣為 last/avg/min/max
+ * <p>
+ * 設計說明：
+ * - 寫入使用 H2 的 MERGE ... KEY(code, recorded_at) 批次語句：同一時間點重複同步不會重複寫入，也不需先查詢
+ * - 查詢限制桶數上限，避免一次回傳過多資料
+ */
+@Service
+public class RateHistoryService {
+    static final int MAX_BUCKETS = 10_000; // 單次查詢最多回傳的時間桶數
+    private static final int RATE_SCALE = 6; // 與 exchange_rate.rate 的小數位數一致
+    private static final String MERGE_SQL =
+            "MERGE INTO exchange_rate_history (code, rate, recorded_at) KEY (code, recorded_at) VALUES (?, ?, ?)";
+
+    private final ExchangeRateHistoryRepository historyRepo; // 依賴：歷史資料查詢
+    private final JdbcTemplate jdbc; // 依賴：批次寫入（與 JPA 共用同一交易與連線）
+
+    public RateHistoryService(ExchangeRateHistoryRepository historyRepo, JdbcTemplate jdbc) {
+        this.historyRepo = historyRepo;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * 寫入一次快照的所有幣別
+     *
+     * @param recordedAt 匯率時間（上游 updatedISO）
+     * @param rates      本次快照的幣別匯率
+     */
+    @Transactional // 加入呼叫端（RateSyncService）的交易
+    public void append(LocalDateTime recordedAt, List<RateSnapshot.Rate> rates) {
+        if (rates.isEmpty()) {
+            return;
+        }
+        Timestamp at = Timestamp.valueOf(recordedAt);
+        jdbc.batchUpdate(MERGE_SQL, rates, rates.size(), (ps, r) -> { // 整批一次送出
+            ps.setString(1, r.code());
+            ps.setBigDecimal(2, r.decimal()); // JDBC 邊界才轉成 BigDecimal
+            ps.setTimestamp(3, at);
+        });
+    }
+
+    /**
+     * 查詢降採樣後的匯率歷史
+     *
+     * @param codePath 幣別代碼（path variable）
+     * @param from     區間起點（含）
+     * @param to       區間終點（不含）
+     * @param step     時間桶寬度（至少 1 秒）
+     * @return 每個有資料的時間桶的 last/avg/min/max
+     * @throws ResponseStatusException 參數不合法或桶數過多時丟出 400
+     */
+    @Transactional(readOnly = true) // 查詢操作，標記為唯讀
+    public RateHistoryDtos.Response history(String codePath, LocalDateTime from, LocalDateTime to, Duration step) {
+        String code = codePath.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
+        long stepSeconds = step.getSeconds();
+        if (stepSeconds < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "step 至少為 1 秒");
+        }
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from 必須早於 to");
+        }
+        if (Duration.between(from, to).getSeconds() / stepSeconds >= MAX_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "時間桶數超過上限 " + MAX_BUCKETS + "，請加大 step");
+        }
+
+        List<RateHistoryDtos.Bucket> buckets = historyRepo.downsample(code, from, to, stepSeconds).stream()
+                .map(b -> new RateHistoryDtos.Bucket(
+                        from.plusSeconds(b.getBucket() * stepSeconds), // 桶起始時間
+                        b.getLast(),
+                        b.getAvg().setScale(RATE_SCALE, RoundingMode.HALF_UP), // AVG 的小數位數較多，統一為 6 位
+                        b.getMin(),
+                        b.getMax(),
+                        b.getCount()))
+                .toList();
+        return new RateHistoryDtos.Response(code, from, to, stepSeconds, buckets);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import java.math.BigDecimal; // 匯入 BigDecimal，JPA / JDBC 邊界使用
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，表示含時區的更新時間
+import java.util.List; // 匯入 List，存放各幣別匯率
+
+/**
+ * CoinDesk 快照（解析後的精簡型別）
+ * - updatedIso：time.updatedISO（可能為 null）
+ * - updated：time.updated 原字串（可能為 null，僅在沒有 updatedISO 時使用）
+ * - rates：bpi 內各幣別的匯率，順序與上游 JSON 相同
+ * <p>
+ * 轉換服務與同步服務共用這份結果，不需各自再解析一次 JSON
+ */
+public record RateSnapshot(
+        OffsetDateTime updatedIso, // 更新時間（ISO 8601）
+        String updated, // 更新時間（上游原字串）
+        List<Rate> rates // 幣別匯率清單
+) {
+    /**
+     * 單一幣別匯率
+     * - code：幣別代碼（bpi 的 key，例如 USD）
+     * - rate：rate_float，以 FixedRate 表示（匯率 × 10^6 的 long，第 6 位小數四捨五入；缺少時為 0）
+     */
+    public record Rate(
+            String code, // 幣別代碼
+            long rate // 匯率（FixedRate）
+    ) {
+        /**
+         * 匯率的 BigDecimal 形式（scale 6），只在寫入 DB 時使用
+         */
+        public BigDecimal decimal() {
+            return FixedRate.toBigDecimal(rate);
+        }
+    }
+}
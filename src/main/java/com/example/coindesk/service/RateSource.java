@@ -0,0 +1,40 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+/**
+ * 匯率來源（SPI）
+ * - 每個來源提供一份以 BTC 計價的快照（與 CoinDesk bpi 相同的語意：1 BTC = X 單位幣別）
+ * - 所有實作為 Spring Bean 的來源都會由 RateAggregator 並行呼叫，結果依幣別聚合成一份快照
+ * - fetch() 失敗時直接拋出例外；逾時由 RateAggregator 的共同期限控制，實作不需自行處理
+ */
+public interface RateSource {
+
+    /**
+     * 來源名稱（用於日誌與指標 tag，例如 coindesk）
+     */
+    String name();
+
+    /**
+     * 取得一份快照
+     *
+     * @return 快照與是否為 fallback 資料
+     * @throws Exception 呼叫或解析失敗
+     */
+    Quote fetch() throws Exception;
+
+    /**
+     * 單一來源的取得結果
+     * - snapshot：解析後的快照
+     * - fallback：是否為非即時資料（例如上游失敗時的最後一次成功資料或 Mock）；只在沒有任何即時來源時才採用
+     */
+    record Quote(
+            RateSnapshot snapshot, // 快照
+            boolean fallback // 是否為 fallback 資料
+    ) {
+        /**
+         * 即時資料
+         */
+        public static Quote live(RateSnapshot snapshot) {
+            return new Quote(snapshot, false);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入 ExchangeRate 實體類別
+import com.example.coindesk.dto.RateDtos; // 匯入目前匯率 DTO
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入 Repository，啟動時載入既有匯率
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.springframework.beans.factory.SmartInitializingSingleton; // 匯入 SmartInitializingSingleton，所有 singleton 建立後、Web 伺服器啟動前執行
+import org.springframework.http.HttpStatus; // 匯入 HttpStatus，提供 404 狀態碼
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+import org.springframework.transaction.event.TransactionalEventListener; // 匯入 @TransactionalEventListener，commit 後才處理事件
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，丟出 HTTP 錯誤
+
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.Comparator; // 匯入 Comparator，依代碼排序
+import java.util.HashMap; // 匯入 HashMap，組裝新的對照表
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map，幣別代碼 → 匯率
+import java.util.concurrent.atomic.AtomicReference; // 匯入 AtomicReference，整份替換快照
+
+/**
+ * 目前匯率的記憶體讀取端（GET /rates、GET /rates/{code}）
+ * - 快照不可變（Map.copyOf / List.copyOf），連同 GET /rates 的回應物件一起預先建立，以 AtomicReference 整份替換
+ * - 讀取只做一次 volatile 讀取與一次 Map 查詢，不加鎖也不查 DB；讀取量可隨 CPU 核心數線性擴展
+ * - 寫入：RateSyncService 發布的 RatesChangedEvent（commit 後）只替換有變動的幣別，其他幣別沿用原本的項目
+ * - 所有 singleton 建立後（Web 伺服器接受連線前）由 exchange_rate 資料表建立第一份快照
+ */
+@Service
+public class RateStore implements SmartInitializingSingleton {
+    private final ExchangeRateRepository rateRepo; // 依賴：匯率資料表（只在啟動時讀取）
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY); // 目前的快照
+
+    public RateStore(ExchangeRateRepository rateRepo) {
+        this.rateRepo = rateRepo;
+    }
+
+    /**
+     * 不可變快照
+     *
+     * @param byCode   幣別代碼 → 匯率
+     * @param response 預先建立的 GET /rates 回應（依代碼排序）
+     */
+    record Snapshot(Map<String, RateDtos.Rate> byCode, RateDtos.Response response) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), new RateDtos.Response(null, List.of()));
+
+        static Snapshot of(Map<String, RateDtos.Rate> byCode) {
+            List<RateDtos.Rate> sorted = new ArrayList<>(byCode.values());
+            sorted.sort(Comparator.comparing(RateDtos.Rate::code));
+            LocalDateTime asOf = sorted.stream().map(RateDtos.Rate::updatedAt).max(Comparator.naturalOrder()).orElse(null);
+            return new Snapshot(Map.copyOf(byCode), new RateDtos.Response(asOf, List.copyOf(sorted)));
+        }
+    }
+
+    /**
+     * 所有幣別的目前匯率（依代碼排序）
+     */
+    public RateDtos.Response all() {
+        return current.get().response();
+    }
+
+    /**
+     * 單一幣別的目前匯率
+     *
+     * @param codePath 幣別代碼（path variable）
+     * @throws ResponseStatusException 沒有此幣別的匯率時丟出 404
+     */
+    public RateDtos.Rate get(String codePath) {
+        String code = codePath.trim().toUpperCase(); // 去掉前後空白（trim），再轉成大寫（toUpperCase），確保代碼格式一致
+        RateDtos.Rate rate = current.get().byCode().get(code);
+        if (rate == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到匯率： " + code);
+        }
+        return rate;
+    }
+
+    /**
+     * 所有 singleton 建立後執行（早於 Web 伺服器啟動）：由 DB 建立第一份快照
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /**
+     * 由 exchange_rate 資料表重建快照
+     */
+    void reload() {
+        Map<String, RateDtos.Rate> byCode = new HashMap<>();
+        for (ExchangeRate er : rateRepo.findAll()) {
+            byCode.put(er.getCode(), new RateDtos.Rate(er.getCode(), FixedRate.fromBigDecimal(er.getRate()), er.getUpdatedAt()));
+        }
+        current.set(Snapshot.of(byCode));
+    }
+
+    /**
+     * 匯率變動事件（commit 後才觸發）：替換有變動的幣別
+     * - 匯率時間早於目前項目的變動（較舊的同步）不覆蓋
+     */
+    @TransactionalEventListener
+    public void onRatesChanged(RatesChangedEvent event) {
+        current.updateAndGet(s -> {
+            Map<String, RateDtos.Rate> byCode = new HashMap<>(s.byCode());
+            for (RatesChangedEvent.Change c : event.changes().values()) {
+                RateDtos.Rate existing = byCode.get(c.code());
+                if (existing == null || !event.updatedAt().isBefore(existing.updatedAt())) {
+                    byCode.put(c.code(), new RateDtos.Rate(c.code(), c.current(), event.updatedAt()));
+                }
+            }
+            return Snapshot.of(byCode);
+        });
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.RateStreamProperties; // 匯入 SSE 推播設定
+import com.example.coindesk.dto.ConvertedDtos; // 匯入 DTO：轉換後回應格式（推播內容）
+import jakarta.annotation.PreDestroy; // 匯入 @PreDestroy，關閉時釋放執行緒
+import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
+import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
+import org.springframework.http.MediaType; // 匯入 MediaType，指定推播內容為 JSON
+import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
+import org.springframework.transaction.event.TransactionalEventListener; // 匯入 @TransactionalEventListener，commit 後才處理事件
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // 匯入 SseEmitter，Server-Sent Events 連線
+
+import java.io.IOException; // 匯入 IOException，送出失敗（用戶端斷線）
+import java.util.Set; // 匯入 Set，存放訂閱者
+import java.util.concurrent.ConcurrentHashMap; // 匯入 ConcurrentHashMap，執行緒安全的訂閱者集合
+import java.util.concurrent.Executors; // 匯入 Executors，建立送出逾時的監看執行緒
+import java.util.concurrent.LinkedBlockingQueue; // 匯入 LinkedBlockingQueue，等待送出的訂閱者佇列
+import java.util.concurrent.ScheduledExecutorService; // 匯入 ScheduledExecutorService，送出逾時檢查
+import java.util.concurrent.ScheduledFuture; // 匯入 ScheduledFuture，送出完成後取消逾時檢查
+import java.util.concurrent.ThreadFactory; // 匯入 ThreadFactory，建立 daemon 執行緒
+import java.util.concurrent.ThreadPoolExecutor; // 匯入 ThreadPoolExecutor，執行緒數有上限的送出池
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean; // 匯入 AtomicBoolean，標記是否正在送出
+import java.util.concurrent.atomic.AtomicInteger; // 匯入 AtomicInteger，計算連續合併次數
+import java.util.concurrent.atomic.AtomicReference; // 匯入 AtomicReference，每個訂閱者只保留一筆待送事件、記錄送出中的權杖
+
+/**
+ * ===========================================
+ * 匯率推播服務 (RateStreamService)
+ * ===========================================
+ * 功能：
+ * - 提供 SSE 訂閱（GET /coindesk/stream），連線建立時先送出目前的轉換結果
+ * - RateSyncService 寫入有變動的匯率並 commit 後，推播 ConvertedDtos.Response 給所有訂閱者
+ * <p>
+ * 背壓設計（避免慢速用戶端拖垮記憶體）：
+ * - 每個訂閱者只有「一格」待送緩衝：送出尚未完成時，新事件直接覆蓋舊事件（合併，只送最新狀態）
+ * - 連續合併超過 coindesk.stream.max-coalesced 次（代表用戶端長時間卡住）即中斷該訂閱者
+ * - 送出在背景執行緒進行，不會阻塞同步交易；執行緒數有上限（coindesk.stream.sender-threads）
+ * - 單次送出超過 coindesk.stream.send-timeout 即中斷該次送出並移除訂閱者，卡住的連線不會一直佔住送出執行緒
+ */
+@Service
+public class RateStreamService {
+    private static final Logger log = LoggerFactory.getLogger(RateStreamService.class); // 建立 Logger 實例
+    static final String EVENT_NAME = "rates"; // SSE 事件名稱
+
+    private final CoinDeskConvertService convertService; // 依賴：將快照轉換為回應 DTO
+    private final RateStreamProperties props; // 依賴：推播設定
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet(); // 目前的訂閱者
+    private final ThreadPoolExecutor sender; // 背景送出用執行緒（數量有上限，閒置 60 秒自動回收）
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(daemon("rate-stream-watchdog")); // 送出逾時檢查
+
+    public RateStreamService(CoinDeskConvertService convertService, RateStreamProperties props) {
+        this.convertService = convertService;
+        this.props = props;
+        this.sender = new ThreadPoolExecutor(props.senderThreads(), props.senderThreads(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemon("rate-stream-sender")); // 每個訂閱者最多一個送出工作，佇列長度不超過訂閱者數
+        this.sender.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 建立新的 SSE 訂閱
+     * - 先送出目前的轉換結果，讓用戶端不需等到下一次同步
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(props.timeout().toMillis());
+        Subscriber sub = register(emitter);
+        sub.offer(convertService.getConverted());
+        return emitter;
+    }
+
+    /**
+     * 註冊訂閱者，並在連線結束（完成、逾時、錯誤）時移除
+     */
+    Subscriber register(SseEmitter emitter) {
+        Subscriber sub = new Subscriber(emitter);
+        subscribers.add(sub);
+        emitter.onCompletion(() -> subscribers.remove(sub));
+        emitter.onTimeout(() -> subscribers.remove(sub));
+        emitter.onError(ex -> subscribers.remove(sub));
+        return sub;
+    }
+
+    /**
+     * 匯率變動事件（commit 後才觸發；交易回滾時不推播）
+     */
+    @TransactionalEventListener
+    public void onRatesChanged(RatesChangedEvent event) {
+        broadcast(convertService.toResponse(event.snapshot()));
+    }
+
+    /**
+     * 推播給所有訂閱者（每個訂閱者各自合併，互不影響）
+     */
+    void broadcast(ConvertedDtos.Response response) {
+        for (Subscriber sub : subscribers) {
+            sub.offer(response);
+        }
+    }
+
+    /**
+     * 目前訂閱者數量
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 單一訂閱者
+     * - pending：唯一一格待送緩衝（新事件覆蓋舊事件）
+     * - draining：是否已有背景工作在送出
+     * - coalesced：送出卡住期間，被覆蓋的事件數
+     * - closed：已移除，不再送出
+     * - sending：正在進行的 send() 的權杖（逾時或移除時經由權杖中斷它）
+     */
+    class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<ConvertedDtos.Response> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicInteger coalesced = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicReference<SendToken> sending = new AtomicReference<>();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * 放入一筆事件；若上一筆尚未送出則覆蓋（合併）
+         */
+        void offer(ConvertedDtos.Response response) {
+            if (closed.get()) {
+                return;
+            }
+            if (pending.getAndSet(response) != null && coalesced.incrementAndGet() > props.maxCoalesced()) {
+                drop(); // 長時間卡住 → 中斷，釋放資源
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain); // 沒有送出工作 → 啟動一個
+            }
+        }
+
+        /**
+         * 背景送出：一直送到沒有待送事件為止
+         * - 每次 send() 都有逾時檢查；訂閱者在送出期間被移除時，由這裡在 send() 返回後結束連線
+         */
+        private void drain() {
+            while (true) {
+                if (closed.get()) {
+                    emitter.complete(); // 送出期間已被移除 → send() 已返回，結束連線不會再等待 emitter 的鎖
+                    return;
+                }
+                ConvertedDtos.Response next = pending.getAndSet(null);
+                if (next == null) {
+                    draining.set(false);
+                    // 釋放旗標後再確認一次，避免剛好漏掉在此期間放入的事件或移除
+                    if ((pending.get() != null || closed.get()) && draining.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    return;
+                }
+                coalesced.set(0); // 成功取出 → 重新計算合併次數
+                SendToken token = new SendToken();
+                sending.set(token);
+                ScheduledFuture<?> guard = watchdog.schedule(this::sendTimedOut, props.sendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                try {
+                    emitter.send(SseEmitter.event().name(EVENT_NAME).data(next, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException ex) {
+                    log.debug("SSE 訂閱者已斷線，移除", ex);
+                    drop();
+                } finally {
+                    guard.cancel(false);
+                    sending.compareAndSet(token, null);
+                    token.finish(); // 之後 drop() 拿到的若是這個權杖，不會再中斷本執行緒
+                }
+            }
+        }
+
+        /**
+         * 送出逾時：移除訂閱者並中斷卡住的 send()，釋放送出執行緒
+         */
+        private void sendTimedOut() {
+            log.debug("SSE 送出超過 {}，移除訂閱者", props.sendTimeout());
+            drop();
+        }
+
+        /**
+         * 移除訂閱者並結束連線（不阻塞呼叫端）
+         * - 沒有送出中的工作 → 直接結束連線
+         * - 送出中 → 中斷卡住的 send()，由 drain() 在 send() 返回後結束連線（send() 持有 emitter 的鎖，不能在這裡等待）
+         */
+        private void drop() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.remove(this);
+            pending.set(null);
+            if (draining.compareAndSet(false, true)) {
+                emitter.complete();
+                return;
+            }
+            SendToken token = sending.get();
+            if (token != null) {
+                token.interrupt(); // 這次 send() 已結束時不做任何事（執行緒可能已在送出其他訂閱者）
+            }
+        }
+    }
+
+    /**
+     * 單次 send() 的中斷權杖
+     * - 只有在這次 send() 結束前才會中斷執行緒；drop() 讀到權杖後 send() 才結束的話，中斷不會落到下一個工作
+     * - 結束時清除這次送出收到的中斷旗標，不影響同一執行緒的下一次 send()
+     */
+    static final class SendToken {
+        private final Thread thread = Thread.currentThread(); // 執行 send() 的執行緒
+        private boolean finished; // send() 已結束（以 this 的鎖保護）
+        private boolean interrupted; // 已經由此權杖中斷
+
+        synchronized void interrupt() {
+            if (!finished && thread != Thread.currentThread()) {
+                interrupted = true;
+                thread.interrupt();
+            }
+        }
+
+        synchronized void finish() {
+            finished = true;
+            if (interrupted) {
+                Thread.interrupted(); // 清除中斷旗標
+            }
+        }
+    }
+}
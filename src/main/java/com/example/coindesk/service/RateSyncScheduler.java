@@ -0,0 +1,126 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.SyncLockProperties; // 匯入叢集鎖設定（檢查租約長度）
+import com.example.coindesk.config.SyncScheduleProperties; // 匯入自適應排程設定
+import jakarta.annotation.PreDestroy; // 匯入 @PreDestroy，關閉時取消下一次排程
+import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
+import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
+import org.springframework.boot.context.event.ApplicationReadyEvent; // 匯入 ApplicationReadyEvent，啟動完成後開始排程
+import org.springframework.context.event.EventListener; // 匯入 @EventListener
+import org.springframework.dao.DataAccessException; // 匯入 DataAccessException，DB 無法使用時略過本次排程
+import org.springframework.scheduling.TaskScheduler; // 匯入 TaskScheduler，每次同步後依新的間隔排下一次
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+
+import java.time.Duration; // 匯入 Duration，同步間隔
+import java.time.Instant; // 匯入 Instant，下一次執行時間
+import java.util.concurrent.ScheduledFuture; // 匯入 ScheduledFuture，取消排程用
+
+/**
+ * 匯率同步排程（自適應間隔）
+ * - 每次執行先向 SyncLeaseLock 取得（續約）租約：取得者（leader）呼叫上游並寫入 DB，其餘節點（follower）只由 DB 重新載入
+ * - 多個節點同時觸發時只有一個節點同步，不會重複呼叫上游或在 exchange_rate 上互相競爭
+ * - 下一次的間隔由 AdaptiveSyncInterval 依上游更新週期、匯率波動與失敗次數決定，執行完才排下一次（不會重疊）
+ * - 透過 RateSyncService 的代理呼叫，@Transactional 才會生效（同一類別內自我呼叫不會開啟交易）
+ * - 多節點（啟用租約）時，每次執行不分 leader / follower 都先清除本節點的幣別快取（二級快取、查詢快取、
+ *   中文名稱對照、負向快取）：幣別 API 可打到任一節點，commit 後的失效只發生在寫入的節點
+ * <p>
+ * 跨節點一致性：
+ * - 本節點的寫入：commit 後立即可見
+ * - 其他節點的匯率寫入：follower 於下一次排程重新載入時可見（leader 本身就是寫入者）
+ * - 其他節點的幣別異動：下一次排程後可見，最長為目前的同步間隔（不超過 coindesk.sync.schedule.max-interval）
+ */
+@Component
+public class RateSyncScheduler {
+    private static final Logger log = LoggerFactory.getLogger(RateSyncScheduler.class); // 建立 Logger 實例
+    private final RateSyncService rateSyncService; // 依賴：同步與 follower 重新載入
+    private final CurrencyService currencyService; // 依賴：清除本節點的幣別快取
+    private final SyncLeaseLock lock; // 依賴：DB 租約鎖
+    private final TaskScheduler taskScheduler; // 依賴：Spring 排程執行緒
+    private final AdaptiveSyncInterval interval; // 自適應間隔
+    private final boolean enabled; // 是否啟用排程
+    private final boolean clustered; // 是否啟用租約（多節點）
+    private volatile ScheduledFuture<?> pending; // 已排定的下一次執行
+    private volatile boolean stopped; // 關閉中，不再排下一次
+
+    public RateSyncScheduler(RateSyncService rateSyncService, CurrencyService currencyService, SyncLeaseLock lock,
+                             TaskScheduler taskScheduler, SyncScheduleProperties props, SyncLockProperties lockProps,
+                             CoinDeskMetrics metrics) {
+        this.rateSyncService = rateSyncService;
+        this.currencyService = currencyService;
+        this.lock = lock;
+        this.taskScheduler = taskScheduler;
+        this.interval = new AdaptiveSyncInterval(props);
+        this.enabled = props.enabled();
+        this.clustered = lockProps.enabled();
+        metrics.bindSyncInterval(interval); // 目前間隔與學到的更新週期以 Gauge 輸出
+        if (lockProps.enabled() && lockProps.leaseDuration().compareTo(props.maxInterval()) <= 0) {
+            log.warn("coindesk.sync.lock.lease-duration（{}）不大於 coindesk.sync.schedule.max-interval（{}），leader 可能來不及續約而在節點間輪替",
+                    lockProps.leaseDuration(), props.maxInterval());
+        }
+    }
+
+    /**
+     * 啟動完成後排定第一次同步
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduleIn(interval.current());
+        }
+    }
+
+    /**
+     * 執行一次：leader 同步，follower 由 DB 重新載入
+     *
+     * @return 本次結果
+     */
+    public SyncResult run() {
+        boolean leader;
+        try {
+            leader = lock.tryAcquire();
+        } catch (DataAccessException ex) {
+            log.warn("無法取得匯率同步租約，略過本次排程", ex);
+            return SyncResult.failure();
+        }
+        if (clustered) {
+            currencyService.evictLocalCaches(); // 其他節點的幣別異動不會使本節點的快取失效
+        }
+        return leader
+                ? rateSyncService.syncOnce() // 失敗時由 syncOnce 自行記錄
+                : rateSyncService.refreshFromDatabase();
+    }
+
+    /**
+     * 排程觸發：執行一次並依結果排下一次
+     */
+    private void tick() {
+        SyncResult result = SyncResult.failure();
+        try {
+            result = run();
+        } catch (RuntimeException ex) {
+            log.warn("排程同步失敗", ex);
+        } finally {
+            Duration next = interval.next(result);
+            log.debug("排程同步結果 {}，下一次在 {} 後", result.outcome(), next);
+            scheduleIn(next);
+        }
+    }
+
+    private void scheduleIn(Duration delay) {
+        if (!stopped) {
+            pending = taskScheduler.schedule(this::tick, Instant.now().plus(delay));
+        }
+    }
+
+    /**
+     * 關閉時取消下一次排程
+     */
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        ScheduledFuture<?> f = pending;
+        if (f != null) {
+            f.cancel(false);
+        }
+    }
+}
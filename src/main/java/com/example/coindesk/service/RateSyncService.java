@@ -4,91 +4,249 @@ import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
 import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
 import com.example.coindesk.domain.ExchangeRate; // 匯入 ExchangeRate 實體類別，用來存放匯率資訊
 import com.example.coindesk.repository.ExchangeRateRepository; // 匯入 Repository，提供匯率資料的 CRUD 操作
-import com.fasterxml.jackson.databind.JsonNode; // 匯入 Jackson 的 JsonNode，用於處理 JSON 樹狀結構
-import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，負責 JSON ↔ Java 物件轉換
-import org.springframework.scheduling.annotation.Scheduled; // 匯入 @Scheduled，定期排程用
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import jakarta.persistence.EntityManager; // 匯入 EntityManager，將未變動的實體 detach
+import org.springframework.context.ApplicationEventPublisher; // 匯入事件發布器，通知匯率變動
 import org.springframework.stereotype.Service; // 匯入 @Service，標記為 Spring Service 元件
 import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，確保交易一致性
+import org.springframework.transaction.interceptor.TransactionAspectSupport; // 匯入 TransactionAspectSupport，失敗時將交易標記為只回滾
+import org.springframework.transaction.support.TransactionSynchronization; // 匯入交易同步回呼（afterCommit）
+import org.springframework.transaction.support.TransactionSynchronizationManager; // 匯入交易同步管理器，註冊 afterCommit 回呼
 
-import java.math.BigDecimal; // 匯入 BigDecimal，處理精確數字（避免浮點誤差）
+import java.time.Instant; // 匯入 Instant，記錄上游更新時間（staleness 指標）
 import java.time.LocalDateTime; // 匯入 LocalDateTime，表示本地端時間（不含時區）
-import java.time.OffsetDateTime; // 匯入 OffsetDateTime，可處理含時區的時間
-import java.util.Iterator; // 匯入 Iterator，用於遍歷 JSON 欄位名稱
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，同步結果的上游更新時間
+import java.time.ZoneOffset; // 匯入 ZoneOffset，由 DB 時間還原 updatedISO
+import java.util.ArrayList; // 匯入 ArrayList，收集待新增的匯率
+import java.util.Collections; // 匯入 Collections，包裝成唯讀集合
+import java.util.Comparator; // 匯入 Comparator，follower 依代碼排序
+import java.util.HashMap; // 匯入 HashMap，以幣別代碼索引既有資料
+import java.util.LinkedHashMap; // 匯入 LinkedHashMap，依快照順序記錄有變動的幣別
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+import java.util.Objects; // 匯入 Objects，比較可能為 null 的更新時間
 
 /**
  * ===========================================
  * 匯率同步服務 (RateSyncService)
  * ===========================================
  * 功能：
- * - 呼叫 CoinDesk API 抓取匯率 JSON
- * - 解析更新時間與幣別匯率
- * - 儲存或更新到資料庫 (Upsert)
- * - 提供手動與排程同步兩種方式
+ * - 向 RateAggregator 取得各來源聚合後的匯率快照（目前來源：CoinDesk）
+ * - 取出更新時間與幣別匯率
+ * - 批次儲存或更新到資料庫 (Upsert)：一次查詢既有資料，INSERT/UPDATE 以 JDBC batch 送出
+ * - 變動偵測：快照與上一次套用的相同時整個略過；否則只寫入新增或匯率有變動的幣別
+ * - 同時寫入匯率歷史 (exchange_rate_history)，供歷史查詢 API 使用
+ * - 套用的匯率同時更新 K 線（CandleService）；follower 由 DB 載入的變動只更新記憶體中的 K 線
+ * - 有幣別新增或匯率變動時發布 RatesChangedEvent，附各幣別變動前後的匯率（例如 SSE 推播在 commit 後收到）
+ * - 提供手動與排程同步兩種方式（排程由 RateSyncScheduler 觸發，多節點時只有持有租約的 leader 同步）
+ * - follower 以 refreshFromDatabase() 由 DB 重新載入 leader 寫入的匯率
+ * - 記錄同步耗時、DB 寫入耗時、寫入列數與各幣別資料年齡（CoinDeskMetrics）
  * <p>
  * 設計說明：
- * - @Transactional 確保 DB 操作具備交易性，失敗時會自動回滾
- * - @Scheduled 提供定期背景工作（每 10 分鐘）
+ * - @Transactional 確保 DB 操作具備交易性；syncOnce() 自行處理例外並回傳 FAILURE，因此在 catch 內將交易標記為只回滾，
+ *   匯率、歷史與 K 線要嘛一起寫入，要嘛都不寫入
  */
 @Service // 標記此類別為 Spring 的 Service，交由 IoC 容器管理
 public class RateSyncService {
 
     private static final Logger log = LoggerFactory.getLogger(RateSyncService.class); // 建立 Logger 實例，用於記錄系統運行過程中的訊息（例如錯誤、警告、調試資訊）
-    private final CoinDeskService coinDeskService; // 依賴注入：負責呼叫 CoinDesk API
+    private final RateAggregator rateAggregator; // 依賴注入：並行抓取各匯率來源並聚合
     private final ExchangeRateRepository rateRepo; // 依賴注入：存取 ExchangeRate 資料表
-    private final ObjectMapper mapper = new ObjectMapper(); // JSON 解析器
+    private final RateHistoryService historyService; // 依賴注入：寫入匯率歷史（append-only）
+    private final CandleService candleService; // 依賴注入：更新 K 線（收盤的 K 線同一交易內寫入）
+    private final ApplicationEventPublisher events; // 依賴注入：發布匯率變動事件
+    private final CoinDeskMetrics metrics; // 依賴注入：同步相關指標
+    private final EntityManager em; // 依賴注入：將未變動的實體 detach
+    private volatile RateSnapshot lastApplied; // 上一次成功套用（已 commit）的快照
+    private volatile Map<String, Long> databaseView; // follower 上一次由 DB 載入的匯率（幣別 → FixedRate）
 
     // 建構式注入，確保必要元件被提供
-    public RateSyncService(CoinDeskService coinDeskService, ExchangeRateRepository rateRepo) {
-        this.coinDeskService = coinDeskService;
+    public RateSyncService(RateAggregator rateAggregator, ExchangeRateRepository rateRepo, RateHistoryService historyService,
+                           CandleService candleService, ApplicationEventPublisher events, CoinDeskMetrics metrics, EntityManager em) {
+        this.rateAggregator = rateAggregator;
         this.rateRepo = rateRepo;
+        this.historyService = historyService;
+        this.candleService = candleService;
+        this.events = events;
+        this.metrics = metrics;
+        this.em = em;
     }
 
     /**
      * 單次同步匯率（可由 Controller 呼叫）
-     * 1. 向 CoinDesk API 取回 JSON
-     * 2. 解析 updatedISO（若缺少則用 now()）
-     * 3. 逐一解析 bpi 幣別匯率，執行 upsert
+     * 1. 向 RateAggregator 取回聚合後的快照（各來源並行抓取，共用同一個期限）
+     *    沒有任何即時來源（fallback 資料：最後一次成功的資料或 Mock）→ 不寫入匯率、歷史與 K 線，直接回傳 FALLBACK
+     * 2. 與上一次成功套用（已 commit）的快照相同 → 略過，不查詢也不寫入 DB
+     * 3. 取出 updatedISO（若缺少則用 now()）
+     * 4. 以一次查詢取回既有幣別，只寫入新增或匯率有變動的幣別（commit 時批次寫入）；未變動的實體 detach，不參與 dirty checking
+     *
+     * @return 同步結果（排程依此調整下一次的間隔）；沒有即時來源時結果為 FALLBACK，DB 維持上一次即時資料
      */
     @Transactional // DB 寫入操作，確保交易一致性
-    public void syncOnce() {
-        String raw = coinDeskService.fetchRawJson(); // 呼叫外部 API 取回原始 JSON 字串
+    public SyncResult syncOnce() {
+        long start = System.nanoTime();
         try {
-            JsonNode root = mapper.readTree(raw); // 解析 JSON → 轉成樹狀結構
+            RateSource.Quote quote = rateAggregator.fetch(); // 取回各來源聚合後的快照
+            RateSnapshot snapshot = quote.snapshot();
+            if (quote.fallback()) {
+                // Mock 或舊資料寫入的話，歷史與 K 線會出現假的 tick，Mock 還會把匯率倒退回固定值
+                metrics.recordSync(System.nanoTime() - start, "fallback");
+                return new SyncResult(SyncResult.Outcome.FALLBACK, null, 0);
+            }
+            if (snapshot.equals(lastApplied)) { // 上游沒有更新時 CoinDeskService 回傳同一個快照物件，比較成本極低
+                metrics.recordSync(System.nanoTime() - start, "unchanged");
+                return new SyncResult(SyncResult.Outcome.UNCHANGED, snapshot.updatedIso(), 0);
+            }
 
             // 取出更新時間：優先使用 updatedISO（UTC），若沒有則取當前時間
-            String iso = root.path("time").path("updatedISO").asText(null);
-            LocalDateTime updatedAt = iso != null
-                    ? OffsetDateTime.parse(iso).toLocalDateTime()
+            LocalDateTime updatedAt = snapshot.updatedIso() != null
+                    ? snapshot.updatedIso().toLocalDateTime()
                     : LocalDateTime.now();
 
+            // 一次查詢取回所有既有幣別（WHERE code IN (...)），避免逐筆 findById
+            List<String> codes = snapshot.rates().stream().map(RateSnapshot.Rate::code).toList();
+            Map<String, ExchangeRate> existing = new HashMap<>();
+            for (ExchangeRate er : rateRepo.findAllById(codes)) {
+                existing.put(er.getCode(), er);
+            }
+
+            // 遍歷每一個幣別（例如 USD / GBP / EUR），只處理新增或匯率有變動的幣別
+            long dbStart = System.nanoTime();
+            List<ExchangeRate> created = new ArrayList<>();
+            Map<String, RatesChangedEvent.Change> changes = new LinkedHashMap<>(); // 新增或匯率有變動的幣別（依快照順序）
+            List<RateSnapshot.Rate> changedRates = new ArrayList<>(); // 同上，寫入歷史用
+            for (RateSnapshot.Rate r : snapshot.rates()) {
+                ExchangeRate er = existing.get(r.code());
+                if (er == null) {
+                    created.add(new ExchangeRate(r.code(), r.decimal(), updatedAt)); // 不存在 → 新增（JPA 邊界才轉成 BigDecimal）
+                    changes.put(r.code(), new RatesChangedEvent.Change(r.code(), 0, r.rate()));
+                    changedRates.add(r);
+                    continue;
+                }
+                long previous = FixedRate.fromBigDecimal(er.getRate()); // 以 FixedRate 比較（DB 為 6 位小數）
+                if (previous == r.rate()) {
+                    em.detach(er); // 未變動 → 不寫入，也不參與 flush 時的 dirty checking
+                    continue;
+                }
+                er.setRate(r.decimal()); // 匯率變動 → 更新（受管理實體，commit 時自動 UPDATE）
+                er.setUpdatedAt(updatedAt); // 更新時間
+                changes.put(r.code(), new RatesChangedEvent.Change(r.code(), previous, r.rate()));
+                changedRates.add(r);
+            }
+            rateRepo.saveAll(created); // 新實體直接 persist，INSERT 依 hibernate.jdbc.batch_size 分批送出
+            rateRepo.flush(); // 在此送出批次 INSERT/UPDATE，讓 DB 寫入耗時計入 coindesk.sync.db.duration
 
-            JsonNode bpi = root.path("bpi"); // 取出 bpi 節點，包含所有幣別匯率
-            Iterator<String> it = bpi.fieldNames(); // 建立迭代器，逐一走訪幣別代碼（例如 USD / GBP / EUR）
+            // 歷史：新的時間點寫入所有幣別；同一時間點只覆寫有變動的幣別（例如多來源聚合結果改變）
+            RateSnapshot previousSnapshot = lastApplied;
+            boolean newTimestamp = previousSnapshot == null || !Objects.equals(previousSnapshot.updatedIso(), snapshot.updatedIso());
+            List<RateSnapshot.Rate> historyRates = newTimestamp ? snapshot.rates() : changedRates;
+            historyService.append(updatedAt, historyRates); // 同一交易內寫入歷史（同一時間點不重複）
+            candleService.record(updatedAt, historyRates); // 與歷史相同的 tick 更新 K 線；同一時間點重新套用只修正收盤
+            metrics.recordSyncDb(System.nanoTime() - dbStart);
+            metrics.recordSyncRows("insert", created.size());
+            metrics.recordSyncRows("update", changes.size() - created.size());
+            metrics.recordSyncRows("history", historyRates.size());
 
-            // 遍歷每一個幣別
-            while (it.hasNext()) {
-                String code = it.next(); // 幣別代碼
-                BigDecimal rate = bpi.path(code).path("rate_float").decimalValue(); // 匯率數值
+            Instant upstreamTime = snapshot.updatedIso() != null ? snapshot.updatedIso().toInstant() : Instant.now();
+            for (RateSnapshot.Rate r : snapshot.rates()) {
+                metrics.recordRateUpdated(r.code(), upstreamTime); // 更新各幣別資料年齡
+            }
 
-                // Upsert 操作：若存在則更新，不存在則新增
-                ExchangeRate er = rateRepo.findById(code)
-                        .orElse(new ExchangeRate(code, rate, updatedAt)); // 預設新建
-                er.setRate(rate); // 更新匯率
-                er.setUpdatedAt(updatedAt); // 更新時間
-                rateRepo.save(er); // 寫入資料庫
+            if (!changes.isEmpty()) {
+                events.publishEvent(new RatesChangedEvent(snapshot, updatedAt, Collections.unmodifiableMap(changes))); // 監聽者於 commit 後收到
             }
+            rememberAfterCommit(snapshot);
+            metrics.recordSync(System.nanoTime() - start, "success");
+            SyncResult.Outcome outcome = changes.isEmpty() ? SyncResult.Outcome.UNCHANGED : SyncResult.Outcome.CHANGED;
+            return new SyncResult(outcome, snapshot.updatedIso(), maxChange(changes));
         } catch (Exception ex) {
+            metrics.recordSync(System.nanoTime() - start, "failure");
             log.warn("同步匯率失敗", ex); // 異常時記錄警告訊息，並附帶 Exception
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                // 例外已在這裡處理，不會傳到交易代理；不標記的話已 flush 的匯率會照常 commit，
+                // 歷史 / K 線卻缺漏、事件也沒有發布，下一次同步又看不出變動
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            }
+            return SyncResult.failure();
+        }
+    }
+
+    /**
+     * 各幣別匯率的最大相對變動（新增的幣別或前值為 0 的幣別沒有比較基準，不計）
+     */
+    private static double maxChange(Map<String, RatesChangedEvent.Change> changes) {
+        double max = 0;
+        for (RatesChangedEvent.Change c : changes.values()) {
+            if (!c.added() && c.previous() > 0) { // 前值為 0 時相除會得到 Infinity
+                max = Math.max(max, Math.abs((double) (c.current() - c.previous()) / c.previous()));
+            }
         }
+        return max;
     }
 
     /**
-     * 定期同步（排程）
-     * 每 10 分鐘執行一次
-     * cron 表達式格式：秒 分 時 日 月 週
+     * 交易 commit 後才記住這次套用的快照；回滾時下一次同步會重新寫入
      */
-    @Scheduled(cron = "0 */10 * * * *") // 每 10 分鐘觸發一次
-    public void scheduleSync() {
-        syncOnce(); // 呼叫單次同步邏輯
+    private void rememberAfterCommit(RateSnapshot snapshot) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastApplied = snapshot;
+                databaseView = null; // 成為 follower 時重新由 DB 建立
+            }
+        });
+    }
+
+    /**
+     * 忘記上一次套用的快照，下一次同步會重新與 DB 比對（例如 DB 資料被外部清除後）
+     */
+    void forgetLastApplied() {
+        lastApplied = null;
+    }
+
+    /**
+     * Follower：由 DB 重新載入匯率（leader 已寫入），有變動時發布 RatesChangedEvent
+     * - 先清除本節點 ExchangeRate 的二級快取，避免讀到 leader 寫入前的舊資料
+     * - 與上一次載入的結果比較，只把有變動的幣別放進事件（交叉匯率矩陣、SSE 推播在 commit 後更新）
+     * - 本節點不再確定 DB 內容與自己上一次寫入的相同，成為 leader 時需要重新與 DB 比對
+     *
+     * @return 重新載入的結果（CHANGED / UNCHANGED，upstreamTime 為 DB 中最新的匯率時間）
+     */
+    @Transactional(readOnly = true) // 查詢操作，標記為唯讀；事件在 commit 後送出
+    public SyncResult refreshFromDatabase() {
+        lastApplied = null;
+        em.getEntityManagerFactory().getCache().evict(ExchangeRate.class); // 二級快取為本機記憶體，leader 的寫入不會反映到這裡
+
+        List<ExchangeRate> rows = new ArrayList<>(rateRepo.findAll());
+        rows.sort(Comparator.comparing(ExchangeRate::getCode));
+        Map<String, Long> view = new HashMap<>();
+        Map<String, RatesChangedEvent.Change> changes = new LinkedHashMap<>();
+        List<RateSnapshot.Rate> rates = new ArrayList<>(rows.size());
+        LocalDateTime updatedAt = null;
+        Map<String, Long> previousView = databaseView;
+        for (ExchangeRate er : rows) {
+            long rate = FixedRate.fromBigDecimal(er.getRate());
+            view.put(er.getCode(), rate);
+            rates.add(new RateSnapshot.Rate(er.getCode(), rate));
+            Long previous = previousView != null ? previousView.get(er.getCode()) : null;
+            if (previous == null || previous != rate) {
+                changes.put(er.getCode(), new RatesChangedEvent.Change(er.getCode(), previous != null ? previous : 0, rate));
+            }
+            if (updatedAt == null || er.getUpdatedAt().isAfter(updatedAt)) {
+                updatedAt = er.getUpdatedAt();
+            }
+        }
+        databaseView = view;
+        metrics.recordFollowerRefresh(changes.size());
+        OffsetDateTime upstreamTime = updatedAt != null ? updatedAt.atOffset(ZoneOffset.UTC) : null; // updatedAt 由 updatedISO（UTC）轉換而來
+        if (changes.isEmpty()) {
+            return new SyncResult(SyncResult.Outcome.UNCHANGED, upstreamTime, 0);
+        }
+        RateSnapshot snapshot = new RateSnapshot(upstreamTime, null, List.copyOf(rates));
+        candleService.observe(updatedAt, changes.values().stream()
+                .map(c -> new RateSnapshot.Rate(c.code(), c.current()))
+                .toList()); // 只有變動的幣別；K 線寫入由 leader 負責
+        events.publishEvent(new RatesChangedEvent(snapshot, updatedAt, Collections.unmodifiableMap(changes)));
+        return new SyncResult(SyncResult.Outcome.CHANGED, upstreamTime, maxChange(changes));
     }
 }
@@ -0,0 +1,44 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import java.time.LocalDateTime; // 匯入 LocalDateTime，表示匯率時間
+import java.util.Map; // 匯入 Map，幣別代碼 → 變動內容
+import java.util.Set; // 匯入 Set，存放有變動的幣別代碼
+
+/**
+ * 匯率變動事件
+ * - 由 RateSyncService 在同步交易內發布；監聽者以 @TransactionalEventListener 在 commit 後處理
+ * - snapshot：本次同步套用的完整快照
+ * - updatedAt：寫入 DB 的匯率時間
+ * - changes：本次新增或匯率有變動的幣別（代碼 → 變動前後的匯率，順序與快照相同；不會是空的，沒有變動時不發布事件）
+ */
+public record RatesChangedEvent(
+        RateSnapshot snapshot, // 本次套用的快照
+        LocalDateTime updatedAt, // 匯率時間
+        Map<String, Change> changes // 有變動的幣別
+) {
+    /**
+     * 有變動的幣別代碼
+     */
+    public Set<String> changedCodes() {
+        return changes.keySet();
+    }
+
+    /**
+     * 單一幣別的匯率變動
+     * - previous：變動前的匯率（FixedRate）；新增的幣別為 0
+     * - current：變動後的匯率（FixedRate）
+     */
+    public record Change(
+            String code, // 幣別代碼
+            long previous, // 變動前匯率
+            long current // 變動後匯率
+    ) {
+        /**
+         * 是否為新增的幣別
+         */
+        public boolean added() {
+            return previous == 0;
+        }
+    }
+}
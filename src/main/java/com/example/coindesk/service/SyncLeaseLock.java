@@ -0,0 +1,128 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.SyncLockProperties; // 匯入叢集鎖設定（租約長度、節點 ID）
+import jakarta.annotation.PreDestroy; // 匯入 @PreDestroy，關閉時釋放租約
+import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
+import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
+import org.springframework.dao.DataAccessException; // 匯入 DataAccessException，釋放租約失敗時略過
+import org.springframework.dao.DuplicateKeyException; // 匯入 DuplicateKeyException，其他節點搶先建立租約
+import org.springframework.jdbc.core.JdbcTemplate; // 匯入 JdbcTemplate，以單一 SQL 語句取得租約
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+
+import java.net.InetAddress; // 匯入 InetAddress，取得主機名稱作為預設節點 ID
+import java.sql.Timestamp; // 匯入 Timestamp，JDBC 時間參數
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.time.ZoneOffset; // 匯入 ZoneOffset，租約時間一律使用 UTC
+import java.util.UUID; // 匯入 UUID，節點 ID 的亂數部分
+
+/**
+ * 排程同步的 DB 租約鎖（sync_lock 資料表）
+ * - tryAcquire()：目前沒有人持有、租約已過期，或本節點就是持有者時，取得（續約）租約並回傳 true
+ * - 取得與續約都是單一條件式 UPDATE（WHERE owner = 我 OR 已過期），由 DB 的列鎖保證同一時間只有一個節點成功；列不存在時以 INSERT 建立，主鍵衝突即表示被其他節點搶先
+ * - 每個語句自動 commit，不加入呼叫端交易，其他節點立即看得到
+ * - 關閉時將自己持有的租約設為已過期，其他節點下一次排程即可接手；節點當機時則等租約自然到期
+ * - 時間以各節點的時鐘（UTC）計算，節點間的時鐘誤差需遠小於租約長度
+ */
+@Component
+public class SyncLeaseLock {
+    private static final Logger log = LoggerFactory.getLogger(SyncLeaseLock.class); // 建立 Logger 實例
+    static final String RATE_SYNC = "rate-sync"; // 匯率同步使用的鎖名稱
+    private static final String ACQUIRE_SQL =
+            "UPDATE sync_lock SET owner = ?, locked_at = ?, locked_until = ? WHERE name = ? AND (owner = ? OR locked_until <= ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO sync_lock (name, owner, locked_at, locked_until) VALUES (?, ?, ?, ?)";
+    private static final String RELEASE_SQL =
+            "UPDATE sync_lock SET locked_until = ? WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbc; // 依賴：直接執行租約 SQL
+    private final boolean enabled; // 是否啟用（關閉時一律視為 leader）
+    private final long leaseMillis; // 租約長度（毫秒）
+    private final String nodeId; // 本節點識別
+    private volatile LocalDateTime heldUntil; // 本節點持有的租約到期時間（null 表示未持有）
+
+    public SyncLeaseLock(JdbcTemplate jdbc, SyncLockProperties props, CoinDeskMetrics metrics) {
+        this.jdbc = jdbc;
+        this.enabled = props.enabled();
+        this.leaseMillis = props.leaseDuration().toMillis();
+        this.nodeId = props.nodeId() != null && !props.nodeId().isBlank() ? props.nodeId() : defaultNodeId();
+        metrics.bindSyncLeader(this); // 是否為 leader 以 Gauge 輸出
+    }
+
+    /**
+     * 嘗試取得或續約匯率同步的租約
+     *
+     * @return true 表示本節點在租約期間內負責同步
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime until = now.plusNanos(leaseMillis * 1_000_000);
+        Timestamp nowTs = Timestamp.valueOf(now);
+        Timestamp untilTs = Timestamp.valueOf(until);
+        boolean acquired = jdbc.update(ACQUIRE_SQL, nodeId, nowTs, untilTs, RATE_SYNC, nodeId, nowTs) == 1;
+        if (!acquired) {
+            try {
+                acquired = jdbc.update(INSERT_SQL, RATE_SYNC, nodeId, nowTs, untilTs) == 1; // 第一次使用：建立租約
+            } catch (DuplicateKeyException ex) {
+                acquired = false; // 租約已存在且由其他節點持有
+            }
+        }
+        LocalDateTime previous = heldUntil;
+        heldUntil = acquired ? until : null;
+        if (acquired && previous == null) {
+            log.info("節點 {} 取得匯率同步租約（至 {} UTC）", nodeId, until);
+        } else if (!acquired && previous != null) {
+            log.info("節點 {} 已失去匯率同步租約，改為 follower", nodeId);
+        }
+        return acquired;
+    }
+
+    /**
+     * 本節點目前是否持有未過期的租約
+     */
+    public boolean isLeader() {
+        if (!enabled) {
+            return true;
+        }
+        LocalDateTime until = heldUntil;
+        return until != null && LocalDateTime.now(ZoneOffset.UTC).isBefore(until);
+    }
+
+    /**
+     * 本節點識別
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 關閉時釋放自己持有的租約（設為已過期），讓其他節點下一次排程即可接手
+     */
+    @PreDestroy
+    void release() {
+        if (!enabled || heldUntil == null) {
+            return;
+        }
+        try {
+            jdbc.update(RELEASE_SQL, Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC)), RATE_SYNC, nodeId);
+            heldUntil = null;
+        } catch (DataAccessException ex) {
+            log.warn("釋放匯率同步租約失敗，其他節點將在租約到期後接手", ex);
+        }
+    }
+
+    /**
+     * 預設節點 ID：主機名稱-PID-亂數（同一台主機上的多個程序、同一 JVM 內的多個 Context 也不會重複）
+     */
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception ex) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
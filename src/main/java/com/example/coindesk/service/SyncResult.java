@@ -0,0 +1,33 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，上游更新時間
+
+/**
+ * 單次同步（或 follower 重新載入）的結果，供 AdaptiveSyncInterval 決定下一次的間隔
+ * - outcome：結果分類
+ * - upstreamTime：本次套用的上游更新時間（updatedISO；失敗或沒有資料時為 null）
+ * - maxChange：各幣別匯率的最大相對變動（0.01 = 1%；新增的幣別不計）
+ */
+public record SyncResult(
+        Outcome outcome, // 結果分類
+        OffsetDateTime upstreamTime, // 上游更新時間
+        double maxChange // 最大相對變動
+) {
+    /**
+     * 結果分類
+     * - CHANGED：有幣別新增或匯率變動
+     * - UNCHANGED：與上一次相同（沒有寫入）
+     * - FALLBACK：沒有任何即時來源，只拿到 fallback 資料（視同上游失敗，不寫入）
+     * - FAILURE：同步失敗
+     */
+    public enum Outcome {
+        CHANGED, UNCHANGED, FALLBACK, FAILURE
+    }
+
+    /**
+     * 同步失敗
+     */
+    public static SyncResult failure() {
+        return new SyncResult(Outcome.FAILURE, null, 0);
+    }
+}
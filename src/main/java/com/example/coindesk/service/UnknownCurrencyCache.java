@@ -0,0 +1,116 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.EntityCacheProperties; // 匯入實體快取設定
+import com.github.benmanes.caffeine.cache.Cache; // 匯入 Caffeine Cache
+import com.github.benmanes.caffeine.cache.Caffeine; // 匯入 Caffeine 建構器
+import io.micrometer.core.instrument.MeterRegistry; // 匯入 MeterRegistry，輸出命中率
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics; // 匯入 CaffeineCacheMetrics，將快取統計轉成指標
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+import org.springframework.transaction.support.TransactionSynchronization; // 匯入交易同步回呼（afterCommit）
+import org.springframework.transaction.support.TransactionSynchronizationManager; // 匯入交易同步管理器，註冊 afterCommit 回呼
+
+import java.util.Collection; // 匯入 Collection
+import java.util.List; // 匯入 List
+import java.util.concurrent.atomic.AtomicLong; // 匯入 AtomicLong，新增代碼的世代計數
+
+/**
+ * 查無幣別代碼的負向快取
+ * - Hibernate 二級快取只快取「存在」的實體；查無資料的代碼每次仍會打到 DB
+ * - 查無資料時記下代碼，存活期間內同一代碼直接回 404（例如大量請求不存在的代碼時保護 DB）
+ * - 新增幣別後，於交易 commit 時移除該代碼（commit 前先移除一次，commit 後再移除一次，
+ *   避免 commit 前的並行查詢又把它標記為不存在）
+ * - 世代檢查：查詢在讀 DB 前取得 generation()，markUnknown 時若期間有代碼被移除（世代改變）就不記入；
+ *   否則 commit 前讀到「查無資料」、commit 後才記入的查詢，會讓剛新增的代碼在存活期間內一直回 404
+ * - 統計輸出為 cache.gets{cache=currency.unknown, result=hit|miss} 等指標
+ */
+@Component
+public class UnknownCurrencyCache {
+    private static final String CACHE_NAME = "currency.unknown"; // 指標上的快取名稱
+
+    private final Cache<String, Boolean> unknown; // 查無資料的代碼；null 表示停用
+    private final AtomicLong generation = new AtomicLong(); // 每次移除代碼（新增幣別）時遞增
+
+    public UnknownCurrencyCache(EntityCacheProperties props, MeterRegistry registry) {
+        if (!props.enabled()) {
+            this.unknown = null;
+            return;
+        }
+        this.unknown = Caffeine.newBuilder()
+                .expireAfterWrite(props.unknownCodeTtl())
+                .maximumSize(props.unknownCodeMaxSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, unknown, CACHE_NAME);
+    }
+
+    /**
+     * 是否已知此代碼不存在
+     */
+    public boolean isUnknown(String code) {
+        return unknown != null && unknown.getIfPresent(code) != null;
+    }
+
+    /**
+     * 目前的世代；查詢 DB 前取得，查無資料時傳給 markUnknown
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 記下查無資料的代碼
+     * - 先寫入再檢查世代：與 forget 的「先遞增世代再移除」交錯時，兩邊至少有一邊會把這筆移除
+     *
+     * @param observedGeneration 查詢 DB 前取得的 generation()
+     */
+    public void markUnknown(String code, long observedGeneration) {
+        if (unknown == null) {
+            return;
+        }
+        unknown.put(code, Boolean.TRUE);
+        if (generation.get() != observedGeneration) {
+            unknown.invalidate(code); // 讀 DB 期間有代碼新增，查詢結果可能已過時
+        }
+    }
+
+    /**
+     * 代碼已新增：立即移除，並在目前交易 commit 後再移除一次
+     */
+    public void forgetAfterCommit(String code) {
+        forgetAfterCommit(List.of(code));
+    }
+
+    /**
+     * 多個代碼已新增（批次匯入）：立即移除，並在目前交易 commit 後再移除一次
+     */
+    public void forgetAfterCommit(Collection<String> codes) {
+        if (unknown == null || codes.isEmpty()) {
+            return;
+        }
+        forget(codes);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<String> copy = List.copyOf(codes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(copy);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清除全部代碼（例如其他節點可能已新增幣別，本節點收不到它的 commit）
+     */
+    public void forgetAll() {
+        if (unknown != null) {
+            generation.incrementAndGet();
+            unknown.invalidateAll();
+        }
+    }
+
+    private void forget(Collection<String> codes) {
+        generation.incrementAndGet(); // 先遞增，進行中的查詢才不會在移除之後又記入
+        unknown.invalidateAll(codes);
+    }
+}
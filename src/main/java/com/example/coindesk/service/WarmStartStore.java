@@ -0,0 +1,231 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.WarmStartProperties; // 匯入暖啟動設定（是否啟用、檔案位置）
+import org.slf4j.Logger; // 匯入 Logger，提供日誌紀錄功能
+import org.slf4j.LoggerFactory; // 匯入 LoggerFactory，用來建立 Logger 實例
+import org.springframework.beans.factory.SmartInitializingSingleton; // 匯入 SmartInitializingSingleton，所有 singleton 建立後、Web 伺服器啟動前執行
+import org.springframework.boot.context.event.ApplicationReadyEvent; // 匯入啟動完成事件
+import org.springframework.context.event.EventListener; // 匯入 @EventListener
+import org.springframework.stereotype.Component; // 匯入 @Component，交由 Spring 管理
+import org.springframework.transaction.event.TransactionalEventListener; // 匯入 @TransactionalEventListener，commit 後才處理事件
+
+import java.io.ByteArrayOutputStream; // 匯入 ByteArrayOutputStream，先在記憶體組好整份檔案
+import java.io.DataOutputStream; // 匯入 DataOutputStream，以固定格式寫出數值
+import java.io.IOException; // 匯入 IOException
+import java.nio.ByteBuffer; // 匯入 ByteBuffer，讀取映射後的檔案內容
+import java.nio.MappedByteBuffer; // 匯入 MappedByteBuffer，以記憶體映射讀檔
+import java.nio.channels.FileChannel; // 匯入 FileChannel，開啟檔案並建立映射
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.nio.file.Files; // 匯入 Files，寫入暫存檔與搬移
+import java.nio.file.Path; // 匯入 Path，檔案位置
+import java.nio.file.StandardCopyOption; // 匯入 StandardCopyOption，原子性替換檔案
+import java.nio.file.StandardOpenOption; // 匯入 StandardOpenOption，唯讀開啟
+import java.time.Instant; // 匯入 Instant，保存時間
+import java.util.Map; // 匯入 Map，幣別代碼 → 中文名稱
+import java.util.Optional; // 匯入 Optional，檔案不存在或損毀時為空
+import java.util.TreeMap; // 匯入 TreeMap，依代碼排序寫出（內容相同時檔案也相同）
+import java.util.concurrent.CompletableFuture; // 匯入 CompletableFuture，在背景重新載入中文名稱
+import java.util.zip.CRC32; // 匯入 CRC32，檢查檔案是否完整
+
+/**
+ * 暖啟動：保存最後一份上游快照與幣別中文名稱對照，重新啟動時由本機檔案直接提供服務
+ * - 保存：匯率變動事件（commit 後）觸發，寫入暫存檔後以原子搬移替換，不會留下寫到一半的檔案
+ * - 載入：所有 singleton 建立後、Web 伺服器開始接受連線前，以記憶體映射讀取並預先填入
+ *   CoinDeskService 與 CurrencyNameCache；第一個請求直接由記憶體回應，上游與 DB 在背景追上
+ * - 檔案不存在、版本不符或 CRC 不符時略過（照常冷啟動）
+ * <p>
+ * 檔案格式（big-endian）：
+ * - magic(int) / 格式版本(int) / 保存時間 epoch millis(long)
+ * - 上游 JSON 長度(int，-1 表示沒有) / UTF-8 位元組
+ * - 對照表筆數(int) / 每筆：代碼長度(short) + UTF-8、名稱長度(short) + UTF-8
+ * - 以上所有位元組的 CRC32(long)
+ */
+@Component
+public class WarmStartStore implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(WarmStartStore.class); // 建立 Logger 實例
+    private static final int MAGIC = 0x43445753; // "CDWS"
+    private static final int FORMAT_VERSION = 1; // 格式變更時遞增，舊檔案直接略過
+
+    private final WarmStartProperties props; // 依賴：暖啟動設定
+    private final CoinDeskService coinDeskService; // 依賴：上游快照（預先填入 / 取得最後一份成功的 JSON）
+    private final CoinDeskPayloadParser parser; // 依賴：載入時解析保存的 JSON
+    private final CurrencyNameCache nameCache; // 依賴：中文名稱對照（預先填入 / 保存）
+
+    public WarmStartStore(WarmStartProperties props, CoinDeskService coinDeskService, CoinDeskPayloadParser parser,
+                          CurrencyNameCache nameCache) {
+        this.props = props;
+        this.coinDeskService = coinDeskService;
+        this.parser = parser;
+        this.nameCache = nameCache;
+    }
+
+    /**
+     * 保存的內容
+     *
+     * @param json    上游 JSON（從未成功取得過時為 null）
+     * @param names   幣別代碼 → 中文名稱
+     * @param savedAt 保存時間
+     */
+    public record Saved(String json, Map<String, String> names, Instant savedAt) {
+    }
+
+    /**
+     * 所有 singleton 建立後執行（早於 Web 伺服器啟動）：載入檔案並預先填入快取
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (props.enabled()) {
+            warmStart();
+        }
+    }
+
+    /**
+     * 載入檔案並預先填入 CoinDeskService 與 CurrencyNameCache
+     *
+     * @return 是否成功載入
+     */
+    boolean warmStart() {
+        Optional<Saved> saved = read();
+        if (saved.isEmpty()) {
+            return false;
+        }
+        Saved s = saved.get();
+        nameCache.seed(s.names());
+        if (s.json() != null) {
+            try {
+                coinDeskService.warmStart(s.json(), parser.parse(s.json().getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException | RuntimeException ex) {
+                log.warn("暖啟動檔案中的上游快照無法解析，改為冷啟動：{}", ex.toString());
+                return false;
+            }
+        }
+        log.info("暖啟動：載入 {} 保存的快照與 {} 筆幣別名稱", s.savedAt(), s.names().size());
+        return true;
+    }
+
+    /**
+     * 啟動完成後在背景由 DB 重新載入中文名稱（名稱在停機期間可能已被其他節點修改）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshNames() {
+        if (props.enabled()) {
+            CompletableFuture.runAsync(nameCache::reload)
+                    .exceptionally(ex -> {
+                        log.warn("暖啟動後重新載入幣別名稱失敗：{}", ex.toString()); // 下一次失效時會再載入
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * 匯率變動事件（commit 後才觸發）：保存目前的上游快照與中文名稱對照
+     */
+    @TransactionalEventListener
+    public void onRatesChanged(RatesChangedEvent event) {
+        if (props.enabled()) {
+            save();
+        }
+    }
+
+    /**
+     * 保存目前的上游快照與中文名稱對照；寫入失敗只記錄警告
+     */
+    void save() {
+        try {
+            write(coinDeskService.lastGoodJson(), nameCache.names());
+        } catch (IOException ex) {
+            log.warn("暖啟動檔案寫入失敗：{}", ex.toString());
+        }
+    }
+
+    /**
+     * 寫入檔案（暫存檔 + 原子搬移）
+     */
+    void write(String json, Map<String, String> names) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(json == null ? 1024 : json.length() + 1024);
+        DataOutputStream out = new DataOutputStream(buf);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(System.currentTimeMillis());
+        if (json == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        Map<String, String> sorted = new TreeMap<>(names);
+        out.writeInt(sorted.size());
+        for (Map.Entry<String, String> e : sorted.entrySet()) {
+            writeShortString(out, e.getKey());
+            writeShortString(out, e.getValue());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        Path file = props.file().toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, buf.toByteArray());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 以記憶體映射讀取檔案；不存在或內容不完整時回傳空
+     */
+    Optional<Saved> read() {
+        Path file = props.file();
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                throw new IOException("檔案大小不符：" + size);
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(map.slice(0, (int) size - Long.BYTES));
+            if (map.getLong((int) size - Long.BYTES) != crc.getValue()) {
+                throw new IOException("CRC 不符");
+            }
+            if (map.getInt() != MAGIC || map.getInt() != FORMAT_VERSION) {
+                throw new IOException("格式不符");
+            }
+            Instant savedAt = Instant.ofEpochMilli(map.getLong());
+            int jsonLength = map.getInt();
+            String json = null;
+            if (jsonLength >= 0) {
+                byte[] bytes = new byte[jsonLength];
+                map.get(bytes);
+                json = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int count = map.getInt();
+            Map<String, String> names = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                names.put(readShortString(map), readShortString(map));
+            }
+            return Optional.of(new Saved(json, Map.copyOf(names), savedAt));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("暖啟動檔案 {} 無法使用，改為冷啟動：{}", file, ex.toString());
+            return Optional.empty();
+        }
+    }
+
+    private static void writeShortString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("字串過長：" + bytes.length);
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readShortString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.coindesk.util; // 定義這個類別所在的套件位置
+
+import com.fasterxml.jackson.core.JsonGenerator; // 匯入 JsonGenerator，直接寫出數字字元
+import com.fasterxml.jackson.core.JsonParser; // 匯入 JsonParser，直接讀取數字字元
+import com.fasterxml.jackson.databind.SerializerProvider; // 匯入 SerializerProvider（Jackson 序列化器參數）
+import com.fasterxml.jackson.databind.ser.std.StdSerializer; // 匯入 StdSerializer，DTO 上的 long 匯率以小數輸出
+
+import java.io.IOException; // 匯入 IOException
+import java.math.BigDecimal; // 匯入 BigDecimal，只在 JPA / JDBC 邊界轉換
+import java.math.RoundingMode; // 匯入 RoundingMode，四捨五入規則
+
+/**
+ * 定點數匯率（scaled long）
+ * - 以 long 表示「匯率 × 10^6」，對應 DB 欄位 precision = 18, scale = 6
+ * - 解析：直接讀 JSON 數字字元，在第 6 位小數四捨五入（HALF_UP，與寫入 DECIMAL(18,6) 欄位相同）
+ * - 輸出：寫出一般小數格式（不使用科學記號），去除尾端 0，至少保留 1 位小數（與 Double.toString 的輸出一致）
+ * - 解析、轉換、輸出都不建立 BigDecimal；只有寫入 / 讀出 DB 時才轉成 BigDecimal
+ */
+public final class FixedRate {
+    public static final int SCALE = 6; // 小數位數
+    public static final long ONE = 1_000_000L; // 1.0 的表示
+    private static final long MAX = 999_999_999_999_999_999L; // precision 18 的上限（10^18 - 1）
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[24]); // 輸出用暫存（每個執行緒一份）
+
+    private FixedRate() {
+    }
+
+    /**
+     * 由 JSON 數字 token 讀取（VALUE_NUMBER_INT / VALUE_NUMBER_FLOAT）
+     * - 直接使用 parser 內部的字元緩衝區，不產生 String
+     */
+    public static long parse(JsonParser p) throws IOException {
+        return parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+    }
+
+    /**
+     * 解析十進位數字字元
+     *
+     * @throws NumberFormatException 格式錯誤
+     * @throws ArithmeticException   超出 precision 18 範圍
+     */
+    public static long parse(char[] buf, int offset, int len) {
+        int i = offset;
+        int end = offset + len;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long value = 0; // 目前累計的 scaled 值（不含符號）
+        int fraction = -1; // 已讀取的小數位數（-1 表示尚未遇到小數點）
+        boolean roundUp = false; // 第 7 位小數 ≥ 5 → 進位
+        boolean digits = false;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fraction < 0) {
+                    value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+                    if (value > MAX / ONE) {
+                        throw new ArithmeticException("匯率超出 precision 18 範圍");
+                    }
+                } else if (fraction < SCALE) {
+                    value = value * 10 + (c - '0');
+                    fraction++;
+                } else if (fraction == SCALE) {
+                    roundUp = c >= '5'; // 只看第 7 位（HALF_UP）
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (c == 'e' || c == 'E') {
+                return fromBigDecimal(new BigDecimal(buf, offset, len)); // 科學記號（少見）：改走 BigDecimal
+            } else {
+                throw new NumberFormatException("不是合法的數字： " + new String(buf, offset, len));
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("不是合法的數字： " + new String(buf, offset, len));
+        }
+        if (fraction < 0) {
+            value *= ONE; // 整數
+        } else {
+            for (int f = Math.min(fraction, SCALE); f < SCALE; f++) {
+                value *= 10; // 補足 6 位小數
+            }
+        }
+        if (roundUp) {
+            value++;
+        }
+        if (value > MAX) {
+            throw new ArithmeticException("匯率超出 precision 18 範圍");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 由 BigDecimal 轉換（JPA 邊界；HALF_UP 至 6 位小數）
+     */
+    public static long fromBigDecimal(BigDecimal value) {
+        long scaled = value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (Math.abs(scaled) > MAX) {
+            throw new ArithmeticException("匯率超出 precision 18 範圍");
+        }
+        return scaled;
+    }
+
+    /**
+     * 轉成 BigDecimal（JPA / JDBC 邊界）
+     */
+    public static BigDecimal toBigDecimal(long scaled) {
+        return BigDecimal.valueOf(scaled, SCALE);
+    }
+
+    /**
+     * 以 JSON 數字寫出（不產生 String / BigDecimal）
+     */
+    public static void write(JsonGenerator g, long scaled) throws IOException {
+        char[] buf = BUFFER.get();
+        int len = format(scaled, buf);
+        g.writeNumber(buf, 0, len);
+    }
+
+    /**
+     * 轉成字串（例：23342011200 → "23342.0112"、1000000 → "1.0"）
+     */
+    public static String toString(long scaled) {
+        char[] buf = new char[24];
+        return new String(buf, 0, format(scaled, buf));
+    }
+
+    /**
+     * 將 scaled 值格式化到 buf，回傳字元數
+     */
+    static int format(long scaled, char[] buf) {
+        int pos = 0;
+        long abs = scaled;
+        if (scaled < 0) {
+            buf[pos++] = '-';
+            abs = -scaled; // |scaled| ≤ MAX，不會溢位
+        }
+        long integer = abs / ONE;
+        long fraction = abs % ONE;
+
+        // 整數部分（由後往前寫，再整段搬移）
+        int start = pos;
+        do {
+            buf[pos++] = (char) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer > 0);
+        for (int l = start, r = pos - 1; l < r; l++, r--) {
+            char t = buf[l];
+            buf[l] = buf[r];
+            buf[r] = t;
+        }
+
+        // 小數部分：去除尾端 0，至少 1 位
+        buf[pos++] = '.';
+        int digits = SCALE;
+        while (digits > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        for (int d = digits - 1; d >= 0; d--) {
+            buf[pos + d] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return pos + digits;
+    }
+
+    /**
+     * DTO 上以 long 表示的匯率，序列化為小數（例：ConvertedDtos.Item.rate）
+     */
+    public static class JsonSerializer extends StdSerializer<Long> {
+        public JsonSerializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            write(gen, value);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.service.CoinDeskPayloadParser; // 匯入串流解析器，將 Mock JSON 解析成快照
+import com.example.coindesk.service.CoinDeskService; // 匯入 CoinDeskService（以 Mock 取代）
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; // 匯入 @AutoConfigureMockMvc，建立 MockMvc
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.http.HttpHeaders; // 匯入 HttpHeaders，ETag / If-None-Match 標頭名稱
+import org.springframework.test.context.bean.override.mockito.MockitoBean; // 匯入 @MockitoBean
+import org.springframework.test.web.servlet.MockMvc; // 匯入 MockMvc，模擬 HTTP 請求
+
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; // 匯入 GET 請求建構
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*; // 匯入回應驗證工具
+
+/**
+ * ===========================================
+ * CoinDesk API 測試 (CoinDeskControllerTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 /coindesk/converted 回傳強 ETag
+ * - 驗證帶相符 If-None-Match 時回 304 且不送 body；不相符時回 200
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CoinDeskControllerTest {
+
+    @Autowired
+    private MockMvc mvc; // 模擬 HTTP 請求
+
+    @Autowired
+    private CoinDeskPayloadParser parser; // 將 Mock JSON 解析成快照
+
+    @MockitoBean
+    private CoinDeskService coinDeskService; // 以 Mock 取代，避免對外打網路
+
+    private static final String MOCK_JSON = """
+        {
+          "time": { "updatedISO": "2022-08-03T20:25:00+00:00" },
+          "bpi": {
+            "USD": { "code": "USD", "rate_float": 23342.0112 },
+            "EUR": { "code": "EUR", "rate_float": 22738.5269 }
+          }
+        }""";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        given(coinDeskService.fetchSnapshot()).willReturn(parser.parse(MOCK_JSON.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void getConverted_matchingEtag_shouldReturn304() throws Exception {
+        String etag = mvc.perform(get("/coindesk/converted"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updatedTime").value("2022/08/03 20:25:00"))
+                .andExpect(jsonPath("$.items[0].code").value("USD"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/")); // 強 ETag
+
+        mvc.perform(get("/coindesk/converted").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mvc.perform(get("/coindesk/converted").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+}
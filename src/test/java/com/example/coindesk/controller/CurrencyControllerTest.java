@@ -0,0 +1,76 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import com.example.coindesk.repository.CurrencyRepository; // 匯入幣別 Repository，準備測試資料
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; // 匯入 @AutoConfigureMockMvc，建立 MockMvc
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.test.web.servlet.MockMvc; // 匯入 MockMvc，模擬 HTTP 請求
+import org.springframework.test.web.servlet.MvcResult; // 匯入 MvcResult，取得非同步結果
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch; // 匯入 asyncDispatch，完成串流回應
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; // 匯入 GET 請求建構
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*; // 匯入回應驗證工具
+
+/**
+ * ===========================================
+ * 幣別 API 測試 (CurrencyControllerTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 GET /currencies 未帶參數時，以串流輸出依代碼排序的完整 JSON 陣列
+ * - 驗證 keyset 分頁：X-Next-Cursor 標頭可接續取得下一頁，最後一頁不帶標頭
+ * - 驗證 limit 超出範圍時回 400
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CurrencyControllerTest {
+
+    @Autowired
+    private MockMvc mvc; // 模擬 HTTP 請求
+
+    @Autowired
+    private CurrencyRepository repo; // 準備測試資料
+
+    @BeforeEach
+    void setUp() {
+        repo.deleteAll();
+        repo.save(new Currency("USD", "美元"));
+        repo.save(new Currency("GBP", "英鎊"));
+        repo.save(new Currency("EUR", "歐元"));
+    }
+
+    @Test
+    void list_withoutParams_shouldStreamAllSorted() throws Exception {
+        MvcResult result = mvc.perform(get("/currencies"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].code").value("EUR"))
+                .andExpect(jsonPath("$[2].code").value("USD"));
+    }
+
+    @Test
+    void list_withLimit_shouldPageByCursor() throws Exception {
+        mvc.perform(get("/currencies").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "GBP"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].code").value("GBP"));
+
+        mvc.perform(get("/currencies").param("after", "gbp").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor")) // 最後一頁
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].code").value("USD"));
+    }
+
+    @Test
+    void list_limitOutOfRange_shouldReturn400() throws Exception {
+        mvc.perform(get("/currencies").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
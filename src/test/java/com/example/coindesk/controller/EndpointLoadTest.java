@@ -0,0 +1,177 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import org.junit.jupiter.api.AfterAll; // 匯入 @AfterAll，關閉假上游
+import org.junit.jupiter.api.Tag; // 匯入 @Tag，預設建置不執行（mvn -Ploadtest test 才執行）
+import org.junit.jupiter.params.ParameterizedTest; // 匯入 @ParameterizedTest，每個端點一組結果
+import org.junit.jupiter.params.provider.ValueSource; // 匯入 @ValueSource，受測端點
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.boot.test.web.server.LocalServerPort; // 匯入 @LocalServerPort，取得隨機埠號
+import org.springframework.test.context.DynamicPropertyRegistry; // 匯入 DynamicPropertyRegistry，啟動前設定上游 URL
+import org.springframework.test.context.DynamicPropertySource; // 匯入 @DynamicPropertySource
+
+import java.io.IOException; // 匯入 IOException
+import java.io.UncheckedIOException; // 匯入 UncheckedIOException
+import java.net.URI; // 匯入 URI
+import java.net.http.HttpClient; // 匯入 JDK HttpClient，模擬並行用戶端
+import java.net.http.HttpRequest; // 匯入 HttpRequest
+import java.net.http.HttpResponse; // 匯入 HttpResponse
+import java.time.Duration; // 匯入 Duration
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.Arrays; // 匯入 Arrays，排序延遲
+import java.util.List; // 匯入 List
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，並行用戶端
+import java.util.concurrent.Executors; // 匯入 Executors
+import java.util.concurrent.Future; // 匯入 Future
+import java.util.concurrent.atomic.AtomicInteger; // 匯入 AtomicInteger，分配請求序號
+import java.util.concurrent.atomic.AtomicLong; // 匯入 AtomicLong，計算錯誤數
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 端點壓力測試 (EndpointLoadTest)
+ * ===========================================
+ * 目的：
+ * - 以本機假上游（StubCoinDeskUpstream）取代 CoinDesk，啟動完整應用程式（隨機埠號），以並行用戶端量測
+ *   /coindesk/converted、/coindesk/raw、/currencies 的吞吐量與延遲百分位數
+ * - 超過門檻即失敗，讓 CoinDeskService / CoinDeskConvertService 的效能退化在建置時就被發現
+ *
+ * 執行：mvn -Ploadtest test（預設建置排除 load 標籤）
+ * 參數（-D 系統屬性）：
+ * - loadtest.clients（16）、loadtest.requests（每個端點 3000）、loadtest.warmup（每個端點 300）
+ * - loadtest.upstream-latency-ms（50）、loadtest.upstream-failure-rate（0.1）、loadtest.currencies（50）
+ * - 門檻：loadtest.max-p99-ms（500）、loadtest.min-throughput（每秒 200 次）、loadtest.max-error-rate（0）
+ * <p>
+ * 快取 TTL 設為 200ms，量測期間上游會被反覆呼叫（含延遲與失敗），而非只讀快取
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EndpointLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 16); // 並行用戶端數
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 3000); // 每個端點量測的請求數
+    private static final int WARMUP = Integer.getInteger("loadtest.warmup", 300); // 每個端點預熱的請求數（不計入結果）
+    private static final double MAX_P99_MS = doubleProperty("loadtest.max-p99-ms", 500);
+    private static final double MIN_THROUGHPUT = doubleProperty("loadtest.min-throughput", 200);
+    private static final double MAX_ERROR_RATE = doubleProperty("loadtest.max-error-rate", 0);
+
+    private static final StubCoinDeskUpstream UPSTREAM = startUpstream(); // 假上游（整個測試類別共用）
+
+    @LocalServerPort
+    private int port; // 應用程式的隨機埠號
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        registry.add("coindesk.upstream.url", UPSTREAM::url);
+        registry.add("coindesk.cache-ttl", () -> "200ms");
+        registry.add("coindesk.upstream.open-duration", () -> "1s"); // 斷路器打開後很快再試探，持續對上游施壓
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        UPSTREAM.close();
+    }
+
+    /**
+     * 量測結果
+     */
+    record Result(String path, int requests, long errors, double seconds, long[] latenciesNanos) {
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double p) {
+            int i = (int) Math.ceil(p / 100 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, Math.min(i, latenciesNanos.length - 1))] / 1e6;
+        }
+
+        double errorRate() {
+            return (double) errors / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %6d 次  %8.1f 次/秒  p50 %7.2f ms  p90 %7.2f ms  p99 %7.2f ms  max %7.2f ms  錯誤 %d",
+                    path, requests, throughput(), percentileMillis(50), percentileMillis(90), percentileMillis(99),
+                    percentileMillis(100), errors);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/coindesk/converted", "/coindesk/raw", "/currencies"})
+    void endpoint_shouldMeetThroughputAndLatencyThresholds(String path) throws Exception {
+        run(path, WARMUP); // 預熱：JIT、連線池、快取
+        Result r = run(path, REQUESTS);
+
+        System.out.printf("[loadtest] %s  （用戶端 %d、上游延遲 %s ms、失敗率 %s、回應 %d bytes、上游請求累計 %d / 失敗 %d）%n",
+                r, CLIENTS, System.getProperty("loadtest.upstream-latency-ms", "50"),
+                System.getProperty("loadtest.upstream-failure-rate", "0.1"), UPSTREAM.payloadBytes(),
+                UPSTREAM.requests.get(), UPSTREAM.failures.get());
+        assertTrue(r.errorRate() <= MAX_ERROR_RATE, () -> "錯誤率超過門檻：" + r);
+        assertTrue(r.percentileMillis(99) <= MAX_P99_MS, () -> "p99 超過 " + MAX_P99_MS + " ms：" + r);
+        assertTrue(r.throughput() >= MIN_THROUGHPUT, () -> "吞吐量低於每秒 " + MIN_THROUGHPUT + " 次：" + r);
+    }
+
+    /**
+     * 以 CLIENTS 個並行用戶端送出共 n 個 GET 請求（非 2xx 與連線錯誤計為錯誤）
+     */
+    private Result run(String path, int n) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + path);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).GET().build();
+        long[] latencies = new long[n];
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.add(pool.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < n; i = next.getAndIncrement()) {
+                        long t = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resp = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (resp.statusCode() / 100 != 2) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencies[i] = System.nanoTime() - t;
+                    }
+                }));
+            }
+            for (Future<?> f : clients) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(path, n, errors.get(), seconds, latencies);
+    }
+
+    private static StubCoinDeskUpstream startUpstream() {
+        try {
+            return new StubCoinDeskUpstream(
+                    Duration.ofMillis(Long.getLong("loadtest.upstream-latency-ms", 50)),
+                    doubleProperty("loadtest.upstream-failure-rate", 0.1),
+                    Integer.getInteger("loadtest.currencies", 50));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String v = System.getProperty(name);
+        return v != null ? Double.parseDouble(v) : defaultValue;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入定點數匯率工具
+import com.example.coindesk.service.RateHistoryService; // 匯入匯率歷史服務，準備測試資料
+import com.example.coindesk.service.RateSnapshot; // 匯入匯率快照
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; // 匯入 @AutoConfigureMockMvc，建立 MockMvc
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.test.web.servlet.MockMvc; // 匯入 MockMvc，模擬 HTTP 請求
+import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，測試結束後回滾
+
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.time.ZoneOffset; // 匯入 ZoneOffset，歷史資料以 UTC 儲存
+import java.util.List; // 匯入 List
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; // 匯入 GET 請求建構
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*; // 匯入回應驗證工具
+
+/**
+ * ===========================================
+ * 匯率 API 測試 (RateControllerTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 /rates/{code}/history 的 step 格式錯誤時回 400（不是 500）
+ * - 驗證未指定 to 時，預設區間以 UTC 的現在時間為終點
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class RateControllerTest {
+
+    @Autowired
+    private MockMvc mvc; // 模擬 HTTP 請求
+
+    @Autowired
+    private RateHistoryService historyService; // 準備歷史資料
+
+    @Test
+    void history_invalidStep_shouldReturn400() throws Exception {
+        mvc.perform(get("/rates/USD/history").param("step", "abc"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/rates/USD/history").param("step", "1x"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void history_defaultRange_shouldEndAtUtcNow() throws Exception {
+        LocalDateTime recent = LocalDateTime.now(ZoneOffset.UTC).minusMinutes(5);
+        historyService.append(recent, List.of(new RateSnapshot.Rate("ZZT", 23342 * FixedRate.ONE)));
+
+        mvc.perform(get("/rates/ZZT/history").param("step", "1d"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets.length()").value(1))
+                .andExpect(jsonPath("$.buckets[0].count").value(1)); // 5 分鐘前（UTC）的資料落在預設區間內
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.coindesk.controller; // 定義這個類別所在的套件位置
+
+import com.sun.net.httpserver.HttpServer; // 匯入 JDK 內建的 HttpServer，作為本機假上游
+
+import java.io.IOException; // 匯入 IOException
+import java.io.OutputStream; // 匯入 OutputStream，寫出回應
+import java.net.InetSocketAddress; // 匯入 InetSocketAddress，綁定隨機埠號
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.time.Duration; // 匯入 Duration，模擬延遲
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，並行處理請求
+import java.util.concurrent.Executors; // 匯入 Executors
+import java.util.concurrent.ThreadLocalRandom; // 匯入 ThreadLocalRandom，依比例產生失敗
+import java.util.concurrent.atomic.AtomicLong; // 匯入 AtomicLong，計算請求與失敗次數
+
+/**
+ * 本機假 CoinDesk 上游（壓力測試用）
+ * - latency：每個請求回應前的延遲
+ * - failureRate：回 500 的比例（0 ~ 1）
+ * - currencies：bpi 內的幣別數（決定回應大小；前三個為 USD / GBP / EUR，其餘為合成代碼）
+ * - 以隨機埠號啟動，url() 供 coindesk.upstream.url 使用
+ */
+class StubCoinDeskUpstream implements AutoCloseable {
+    private final HttpServer server; // 內建 HTTP 伺服器
+    private final ExecutorService executor = Executors.newCachedThreadPool(); // 處理請求的執行緒（預設只有一條）
+    private final byte[] body; // 固定的回應內容
+    private final Duration latency; // 模擬延遲
+    private final double failureRate; // 失敗比例
+    final AtomicLong requests = new AtomicLong(); // 收到的請求數
+    final AtomicLong failures = new AtomicLong(); // 回 500 的次數
+
+    StubCoinDeskUpstream(Duration latency, double failureRate, int currencies) throws IOException {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.body = payload(currencies).getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/bpi/currentprice.json", exchange -> {
+            requests.incrementAndGet();
+            try (exchange) {
+                if (!latency.isZero()) {
+                    Thread.sleep(latency.toMillis());
+                }
+                if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                    failures.incrementAndGet();
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 上游 URL（設定到 coindesk.upstream.url）
+     */
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/bpi/currentprice.json";
+    }
+
+    /**
+     * 回應大小（位元組）
+     */
+    int payloadBytes() {
+        return body.length;
+    }
+
+    /**
+     * 產生 CoinDesk 格式的回應
+     */
+    static String payload(int currencies) {
+        StringBuilder sb = new StringBuilder("""
+                {"time":{"updated":"Aug 3, 2022 20:25:00 UTC","updatedISO":"2022-08-03T20:25:00+00:00"},\
+                "chartName":"Bitcoin","bpi":{""");
+        String[] fixed = {"USD", "GBP", "EUR"};
+        for (int i = 0; i < currencies; i++) {
+            String code = i < fixed.length ? fixed[i] : "Z" + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            double rate = 20000 + i * 123.4567;
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(code).append("\":{\"code\":\"").append(code)
+                    .append("\",\"symbol\":\"&#36;\",\"rate\":\"").append(String.format("%,.4f", rate))
+                    .append("\",\"description\":\"Currency ").append(code)
+                    .append("\",\"rate_float\":").append(String.format("%.4f", rate)).append('}');
+        }
+        return sb.append("}}").toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.SyncScheduleProperties; // 匯入自適應排程設定
+import org.junit.jupiter.api.Test; // 匯入 @Test
+
+import java.time.Duration; // 匯入 Duration
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 自適應同步間隔測試 (AdaptiveSyncIntervalTest)
+ * ===========================================
+ * 目的：
+ * - 驗證由 updatedISO 學到上游更新週期並作為基準間隔
+ * - 驗證上游更新比輪詢快時，週期不會跟著輪詢間隔膨脹；上游變慢時仍可往上修正
+ * - 驗證波動時間隔減半、平靜時逐步放寬
+ * - 驗證失敗時指數退避、成功後恢復，且一律限制在上下限之內
+ */
+class AdaptiveSyncIntervalTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void next_shouldLearnCadenceFromUpstreamTime() {
+        AdaptiveSyncInterval interval = interval(1.0); // 不平滑：直接採用最近一次的時間差
+
+        assertEquals(Duration.ofMinutes(1), interval.next(changed(T0, 0.001))); // 尚未學到 → 初始間隔
+        assertNull(interval.cadence());
+
+        assertEquals(Duration.ofMinutes(2), interval.next(changed(T0.plusMinutes(2), 0.001)));
+        assertEquals(Duration.ofMinutes(2), interval.cadence());
+    }
+
+    @Test
+    void next_upstreamFasterThanInterval_shouldNotInflateCadence() {
+        AdaptiveSyncInterval interval = interval(1.0);
+        // 上游每 20 秒更新一次，輪詢間隔 1 分鐘以上：每次都看到新的時間點，時間差是輪詢間隔而不是上游週期
+        interval.next(changed(T0, 0.001));
+        interval.next(changed(T0.plusSeconds(60), 0.001));
+        assertEquals(Duration.ofSeconds(60), interval.cadence());
+
+        OffsetDateTime t = T0.plusSeconds(60);
+        for (int i = 0; i < 5; i++) {
+            t = t.plus(interval.current()).minusSeconds(interval.current().toSeconds() % 20); // 輪詢時看到的最近一次上游更新
+            interval.next(new SyncResult(SyncResult.Outcome.UNCHANGED, t, 0)); // 匯率沒變 → 平靜時放寬間隔
+        }
+        assertEquals(Duration.ofSeconds(60), interval.cadence()); // 不隨放寬的間隔膨脹
+        assertEquals(Duration.ofMillis(455_625), interval.current()); // 60 秒 × 1.5^5：放寬只由平靜次數決定
+
+        interval.next(changed(t.plusSeconds(40), 0.001)); // 看到更短的時間差 → 往下修正
+        assertEquals(Duration.ofSeconds(40), interval.cadence());
+    }
+
+    @Test
+    void next_upstreamSlowsDown_shouldRaiseCadenceAfterRepeatedTimestamp() {
+        AdaptiveSyncInterval interval = interval(1.0);
+        interval.next(changed(T0, 0.001));
+        interval.next(changed(T0.plusMinutes(1), 0.001)); // 週期 1 分鐘
+
+        interval.next(unchanged(T0.plusMinutes(1))); // 同一時間點再次出現 → 輪詢比上游快
+        interval.next(changed(T0.plusMinutes(4), 0.001));
+
+        assertEquals(Duration.ofMinutes(3), interval.cadence()); // 時間差接近真實週期 → 往上修正
+    }
+
+    @Test
+    void next_volatileRatesShouldTightenAndQuietRatesShouldLoosen() {
+        AdaptiveSyncInterval interval = interval(1.0);
+        interval.next(changed(T0, 0.001));
+        interval.next(changed(T0.plusMinutes(2), 0.001)); // 週期 2 分鐘
+
+        assertEquals(Duration.ofMinutes(1), interval.next(changed(T0.plusMinutes(4), 0.02))); // 變動 2% → 減半
+
+        assertEquals(Duration.ofMinutes(3), interval.next(unchanged(T0.plusMinutes(4)))); // 平靜 → ×1.5
+        assertEquals(Duration.ofMillis(270_000), interval.next(unchanged(T0.plusMinutes(4)))); // 再 ×1.5
+        for (int i = 0; i < 10; i++) {
+            interval.next(unchanged(T0.plusMinutes(4)));
+        }
+        assertEquals(Duration.ofMinutes(10), interval.current()); // 不超過上限
+    }
+
+    @Test
+    void next_failuresShouldBackOffExponentiallyAndResetOnSuccess() {
+        AdaptiveSyncInterval interval = interval(0.3);
+
+        assertEquals(Duration.ofMinutes(2), interval.next(SyncResult.failure()));
+        assertEquals(Duration.ofMinutes(4), interval.next(new SyncResult(SyncResult.Outcome.FALLBACK, T0, 0))); // fallback 視同失敗
+        assertEquals(Duration.ofMinutes(8), interval.next(SyncResult.failure()));
+        assertEquals(Duration.ofMinutes(10), interval.next(SyncResult.failure())); // 上限
+
+        assertEquals(Duration.ofMinutes(1), interval.next(changed(T0, 0.001))); // 成功 → 恢復
+    }
+
+    @Test
+    void next_shouldNotGoBelowMinimum() {
+        AdaptiveSyncInterval interval = interval(1.0);
+        interval.next(changed(T0, 0.001));
+        interval.next(changed(T0.plusSeconds(10), 0.05)); // 週期 10 秒、波動 → 5 秒
+
+        assertEquals(Duration.ofSeconds(30), interval.current());
+    }
+
+    private static AdaptiveSyncInterval interval(double smoothing) {
+        return new AdaptiveSyncInterval(new SyncScheduleProperties(true, Duration.ofMinutes(1), Duration.ofSeconds(30),
+                Duration.ofMinutes(10), 0.005, smoothing));
+    }
+
+    private static SyncResult changed(OffsetDateTime upstreamTime, double maxChange) {
+        return new SyncResult(SyncResult.Outcome.CHANGED, upstreamTime, maxChange);
+    }
+
+    private static SyncResult unchanged(OffsetDateTime upstreamTime) {
+        return new SyncResult(SyncResult.Outcome.UNCHANGED, upstreamTime, 0);
+    }
+}
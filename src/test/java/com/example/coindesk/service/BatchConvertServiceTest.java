@@ -0,0 +1,113 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repo（以 Mockito 取代）
+import com.fasterxml.jackson.databind.DeserializationFeature; // 匯入 DeserializationFeature，讀回時保留小數位數
+import com.fasterxml.jackson.databind.JsonNode; // 匯入 JsonNode，驗證輸出
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+
+import java.io.ByteArrayInputStream; // 匯入 ByteArrayInputStream，模擬請求內容
+import java.io.ByteArrayOutputStream; // 匯入 ByteArrayOutputStream，收集回應內容
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
+import static org.mockito.Mockito.mock; // 匯入 mock
+
+/**
+ * ===========================================
+ * 批次換算測試 (BatchConvertServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 JSON 陣列輸入 → JSON 陣列輸出，順序與輸入相同
+ * - 驗證 NDJSON 輸入 → NDJSON 輸出，單筆錯誤不影響其他筆
+ * - 驗證欄位型別錯誤只影響該筆，語法錯誤時才寫出錯誤後停止，輸出仍為合法 JSON
+ */
+class BatchConvertServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS); // 讀回輸出時以 BigDecimal 比較，避免 double 誤差
+    private BatchConvertService service;
+
+    @BeforeEach
+    void setUp() {
+        ExchangeRateRepository repo = mock(ExchangeRateRepository.class);
+        LocalDateTime t = LocalDateTime.of(2022, 8, 3, 20, 25);
+        given(repo.findAll()).willReturn(List.of(
+                new ExchangeRate("USD", new BigDecimal("20000"), t),
+                new ExchangeRate("EUR", new BigDecimal("25000"), t),
+                new ExchangeRate("GBP", new BigDecimal("16000"), t)));
+        service = new BatchConvertService(new CrossRateService(repo), mapper);
+    }
+
+    @Test
+    void convert_jsonArray_shouldReturnArrayInInputOrder() throws Exception {
+        String in = "[{\"from\":\"EUR\",\"to\":\"GBP\",\"amount\":100},{\"from\":\"usd\",\"to\":\"EUR\",\"amount\":2}]";
+
+        JsonNode out = mapper.readTree(run(in, false));
+
+        assertEquals(2, out.size());
+        assertResult("64.000000", out.get(0));
+        assertEquals("EUR", out.get(1).get("to").asText());
+        assertResult("2.500000", out.get(1));
+        assertFalse(out.get(0).has("error")); // 成功時不輸出 error
+    }
+
+    @Test
+    void convert_ndjson_shouldReportErrorsPerRow() throws Exception {
+        String in = """
+                {"from":"EUR","to":"GBP","amount":1}
+                {"from":"EUR","to":"XYZ","amount":1}
+                {"from":"EUR","amount":1}
+                {"from":"GBP","to":"EUR","amount":16}
+                """;
+
+        List<String> lines = run(in, true).lines().toList();
+
+        assertEquals(4, lines.size());
+        assertResult("0.640000", mapper.readTree(lines.get(0)));
+        assertTrue(mapper.readTree(lines.get(1)).get("error").asText().contains("XYZ"));
+        assertTrue(mapper.readTree(lines.get(2)).has("error"));
+        assertResult("25.000000", mapper.readTree(lines.get(3))); // 錯誤之後的列照常換算
+    }
+
+    @Test
+    void convert_typeMismatch_shouldReportErrorOnThatRowOnly() throws Exception {
+        String in = "[{\"from\":\"EUR\",\"to\":\"GBP\",\"amount\":\"abc\"},"
+                + "{\"from\":{\"code\":\"EUR\"},\"to\":\"GBP\",\"amount\":1},"
+                + "{\"from\":\"GBP\",\"to\":\"EUR\",\"amount\":16}]";
+
+        JsonNode out = mapper.readTree(run(in, false));
+
+        assertEquals(3, out.size());
+        assertTrue(out.get(0).get("error").asText().startsWith("第 1 筆欄位型別錯誤"), out.get(0).toString()); // amount 不是數字
+        assertTrue(out.get(1).get("error").asText().startsWith("第 2 筆欄位型別錯誤"), out.get(1).toString()); // from 是物件
+        assertResult("25.000000", out.get(2)); // 型別錯誤之後的列照常換算
+    }
+
+    @Test
+    void convert_malformedInput_shouldStopWithErrorAndKeepValidJson() throws Exception {
+        String in = "[{\"from\":\"EUR\",\"to\":\"GBP\",\"amount\":1},{\"from\":";
+
+        JsonNode out = mapper.readTree(run(in, false));
+
+        assertEquals(2, out.size());
+        assertResult("0.640000", out.get(0));
+        assertTrue(out.get(1).get("error").asText().startsWith("第 2 筆格式錯誤"));
+    }
+
+    private static void assertResult(String expected, JsonNode row) {
+        assertEquals(0, new BigDecimal(expected).compareTo(row.get("result").decimalValue()), row.toString());
+    }
+
+    private String run(String in, boolean ndjson) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.convert(new ByteArrayInputStream(in.getBytes(StandardCharsets.UTF_8)), out, ndjson);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.CandleProperties; // 匯入 K 線設定
+import com.example.coindesk.domain.RateCandle; // 匯入 RateCandle 實體類別
+import com.example.coindesk.dto.CandleDtos; // 匯入 K 線 DTO
+import com.example.coindesk.repository.RateCandleRepository; // 匯入 K 線 Repository，驗證寫入結果
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import jakarta.persistence.EntityManager; // 匯入 EntityManager，讀取前清除已載入的實體
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.jdbc.core.JdbcTemplate; // 匯入 JdbcTemplate，建立獨立的 CandleService
+import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，測試結束自動回滾
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.Comparator; // 匯入 Comparator
+import java.util.List; // 匯入 List
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * K 線服務測試 (CandleServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 1m / 1h K 線的 open/high/low/close/count，以及收盤與進行中的 K 線寫入 rate_candle
+ * - 驗證同一時間點重新套用只修正收盤、較舊的 tick 被忽略
+ * - 驗證環狀緩衝區只保留設定的根數
+ * - 驗證重新啟動後由 rate_candle 載入 K 線，進行中的 K 線接續累計（OHLC 不中斷）
+ *
+ * 作法：
+ * - 每個測試建立獨立的 CandleService（不與應用程式的序列共用），使用真實的 DB 與交易
+ */
+@SpringBootTest
+@Transactional
+class CandleServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2022, 8, 3, 10, 0); // 測試基準時間
+
+    @Autowired
+    private RateCandleRepository candleRepo; // 用來驗證 DB 結果
+
+    @Autowired
+    private JdbcTemplate jdbc; // 建立獨立的 CandleService
+
+    @Autowired
+    private EntityManager em; // warmUp 載入的實體不會反映之後的 JDBC MERGE，讀取前先清除
+
+    private CandleService service; // 測試目標
+
+    @BeforeEach
+    void setUp() {
+        candleRepo.deleteAllInBatch(); // 清空，避免殘留資料影響
+        service = newService(new CandleProperties(1440, 720, 365));
+    }
+
+    private CandleService newService(CandleProperties props) {
+        return new CandleService(props, candleRepo, jdbc);
+    }
+
+    private void tick(CandleService s, int seconds, String usd) {
+        s.record(T0.plusSeconds(seconds), List.of(new RateSnapshot.Rate("USD", FixedRate.fromBigDecimal(new BigDecimal(usd)))));
+    }
+
+    @Test
+    void record_shouldAggregateAndPersistClosedCandles() {
+        tick(service, 0, "100");
+        tick(service, 20, "130");
+        tick(service, 40, "90");
+        tick(service, 50, "110");
+        tick(service, 65, "120"); // 下一分鐘 → 10:00 的 1m K 線收盤
+
+        List<CandleDtos.Candle> minutes = service.candles("usd", "1m", 100).candles();
+        assertEquals(2, minutes.size());
+        CandleDtos.Candle first = minutes.get(0);
+        assertEquals(T0, first.start());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("100")), first.open());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("130")), first.high());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("90")), first.low());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("110")), first.close());
+        assertEquals(4, first.count());
+        assertTrue(first.closed());
+        assertFalse(minutes.get(1).closed()); // 10:01 仍在進行中
+
+        CandleDtos.Candle hour = service.candles("USD", "1h", 100).candles().get(0);
+        assertEquals(5, hour.count());
+        assertFalse(hour.closed());
+
+        List<RateCandle> rows = minuteRows();
+        assertEquals(2, rows.size()); // 收盤的 10:00 + 進行中的 10:01
+        assertEquals(0, new BigDecimal("110").compareTo(rows.get(0).getCloseRate()));
+        assertEquals(T0.plusSeconds(50), rows.get(0).getLastTickAt());
+        assertEquals(1, rows.get(1).getTickCount());
+        assertEquals(1, candleRepo.findAll().stream().filter(r -> r.getResolution().equals("1h")).count()); // 進行中的 1h 也寫入
+    }
+
+    @Test
+    void record_sameTimestamp_shouldOnlyAdjustClose_andIgnoreOlderTicks() {
+        tick(service, 0, "100");
+        tick(service, 30, "105");
+        tick(service, 30, "107"); // 同一時間點重新套用
+        tick(service, 10, "1"); // 較舊的 tick
+
+        CandleDtos.Candle c = service.candles("USD", "1m", 1).candles().get(0);
+        assertEquals(2, c.count());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("107")), c.close());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("100")), c.low());
+    }
+
+    @Test
+    void candles_shouldKeepOnlyConfiguredCapacity() {
+        CandleService small = newService(new CandleProperties(3, 3, 3));
+        for (int m = 0; m < 6; m++) {
+            tick(small, m * 60, String.valueOf(100 + m));
+        }
+
+        List<CandleDtos.Candle> candles = small.candles("USD", "1m", 4).candles();
+        assertEquals(4, candles.size()); // 3 根已收盤 + 進行中
+        assertEquals(T0.plusMinutes(2), candles.get(0).start()); // 最舊的兩根已被覆寫
+        assertEquals(T0.plusMinutes(5), candles.get(3).start());
+        assertEquals(6, minuteRows().size()); // 資料表保留全部 K 線（5 根已收盤 + 進行中）
+    }
+
+    @Test
+    void warmUp_shouldRestoreCandlesFromTable() {
+        for (int m = 0; m < 4; m++) {
+            tick(service, m * 60, String.valueOf(100 + m));
+        }
+
+        CandleService restarted = newService(new CandleProperties(1440, 720, 365));
+        restarted.warmUp();
+        tick(restarted, 60 + 30, "1"); // 已收盤的 10:01 不會被重新開啟
+        tick(restarted, 4 * 60, "104");
+
+        List<CandleDtos.Candle> candles = restarted.candles("USD", "1m", 100).candles();
+        assertEquals(List.of(T0, T0.plusMinutes(1), T0.plusMinutes(2), T0.plusMinutes(3), T0.plusMinutes(4)),
+                candles.stream().map(CandleDtos.Candle::start).toList()); // 重新啟動前進行中的 10:03 也保留
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("101")),
+                candles.get(1).close());
+        assertTrue(candles.get(3).closed());
+        assertEquals(T0.plusMinutes(4), minuteRows().stream()
+                .map(RateCandle::getStartAt).max(Comparator.naturalOrder()).orElseThrow());
+    }
+
+    @Test
+    void warmUp_shouldContinueOpenCandleAcrossRestart() {
+        tick(service, 0, "100");
+        tick(service, 20, "130");
+        tick(service, 40, "90"); // 10:00 進行中：O100 H130 L90 C90，3 筆
+
+        CandleService restarted = newService(new CandleProperties(1440, 720, 365));
+        restarted.warmUp();
+        tick(restarted, 40, "90"); // 重新啟動後重新套用同一時間點 → 不重複計數
+        tick(restarted, 50, "110");
+        tick(restarted, 65, "120"); // 10:00 收盤
+
+        CandleDtos.Candle minute = restarted.candles("USD", "1m", 2).candles().get(0);
+        assertEquals(T0, minute.start());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("100")), minute.open()); // 開盤沿用重新啟動前的
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("130")), minute.high());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("90")), minute.low());
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("110")), minute.close());
+        assertEquals(4, minute.count());
+        assertTrue(minute.closed());
+
+        CandleDtos.Candle hour = restarted.candles("USD", "1h", 1).candles().get(0);
+        assertEquals(FixedRate.fromBigDecimal(new BigDecimal("100")), hour.open());
+        assertEquals(5, hour.count());
+
+        RateCandle row = minuteRows().get(0); // MERGE 覆寫同一列，沒有另開一根
+        assertEquals(T0, row.getStartAt());
+        assertEquals(0, new BigDecimal("100").compareTo(row.getOpenRate()));
+        assertEquals(0, new BigDecimal("110").compareTo(row.getCloseRate()));
+        assertEquals(4, row.getTickCount());
+        assertEquals(2, minuteRows().size()); // 10:00 + 進行中的 10:01
+    }
+
+    private List<RateCandle> minuteRows() {
+        em.clear();
+        return candleRepo.findByResolutionAndStartAtGreaterThanEqualOrderByStartAtAsc("1m", T0.minusDays(1));
+    }
+
+    @Test
+    void candles_invalidRequest_shouldReturn4xx() {
+        tick(service, 0, "100");
+
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> service.candles("USD", "5m", 10)).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> service.candles("USD", "1m", 0)).getStatusCode().value());
+        assertEquals(404, assertThrows(ResponseStatusException.class, () -> service.candles("XYZ", "1m", 10)).getStatusCode().value());
+    }
+}
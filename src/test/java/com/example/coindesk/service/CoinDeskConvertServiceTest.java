@@ -3,6 +3,8 @@ package com.example.coindesk.service; // 定義這個類別所在的套件位置
 import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
 import com.example.coindesk.dto.ConvertedDtos; // 匯入轉換後回應 DTO
 import com.example.coindesk.repository.CurrencyRepository; // 匯入 Currency 資料存取
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，比對 DTO 序列化結果
 import org.junit.jupiter.api.BeforeEach; // 匯入 JUnit 5 的 @BeforeEach
 import org.junit.jupiter.api.Test; // 匯入 JUnit 5 的 @Test
 import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired 進行注入
@@ -10,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 
 import org.springframework.test.context.bean.override.mockito.MockitoBean; // 匯入 @MockitoBean 用來替換 Bean
 import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，確保交易一致性
 
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
 import java.util.Map; // 匯入 Map，用來快速建立查找表
 
 import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
@@ -25,7 +28,7 @@ import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given 語法
  *   2) 回傳幣別代碼 / 中文名稱（由 DB 對照）/ 匯率
  *
  * 作法：
- * - 用 @MockitoBean 取代 CoinDeskService，回傳固定的 Mock JSON
+ * - 用 @MockitoBean 取代 CoinDeskService，回傳固定 Mock JSON 解析後的快照
  * - 事前把 USD/GBP/EUR 的中文名寫入 H2，讓轉換服務可查到 nameZh
  */
 @SpringBootTest
@@ -38,6 +41,15 @@ class CoinDeskConvertServiceTest {
     @Autowired
     private CurrencyRepository currencyRepo; // 存放幣別中文名對照
 
+    @Autowired
+    private CoinDeskPayloadParser parser; // 將 Mock JSON 解析成快照
+
+    @Autowired
+    private CurrencyNameCache nameCache; // 中文名稱對照快取
+
+    @Autowired
+    private ObjectMapper mapper; // Spring 的 JSON 序列化器
+
     @MockitoBean
     private CoinDeskService coinDeskService; // 以 Mock 取代，避免對外打網路
 
@@ -57,15 +69,17 @@ class CoinDeskConvertServiceTest {
         }""";
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         // 安排：DB 先有幣別中文對照
         currencyRepo.deleteAll();
+        currencyRepo.flush(); // 先送出 DELETE（並讓二級快取中的舊項目失效），之後以相同代碼 save 才會被視為新資料
         currencyRepo.save(new Currency("USD", "美元"));
         currencyRepo.save(new Currency("GBP", "英鎊"));
         currencyRepo.save(new Currency("EUR", "歐元"));
+        nameCache.invalidate(); // 直接透過 Repository 寫入，不經過 CurrencyService → 手動失效
 
-        // Mock：讓 CoinDeskService 回傳作業給的 Mock JSON
-        given(coinDeskService.fetchRawJson()).willReturn(MOCK_JSON);
+        // Mock：讓 CoinDeskService 回傳作業給的 Mock JSON（解析後的快照）
+        given(coinDeskService.fetchSnapshot()).willReturn(parser.parse(MOCK_JSON.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Test
@@ -85,16 +99,39 @@ class CoinDeskConvertServiceTest {
         // USD
         assertTrue(map.containsKey("USD"));
         assertEquals("美元", map.get("USD").nameZh());
-        assertEquals(0, map.get("USD").rate().compareTo(new java.math.BigDecimal("23342.0112")));
+        assertEquals("23342.0112", FixedRate.toString(map.get("USD").rate()));
 
         // GBP
         assertTrue(map.containsKey("GBP"));
         assertEquals("英鎊", map.get("GBP").nameZh());
-        assertEquals(0, map.get("GBP").rate().compareTo(new java.math.BigDecimal("19504.3978")));
+        assertEquals("19504.3978", FixedRate.toString(map.get("GBP").rate()));
 
         // EUR
         assertTrue(map.containsKey("EUR"));
         assertEquals("歐元", map.get("EUR").nameZh());
-        assertEquals(0, map.get("EUR").rate().compareTo(new java.math.BigDecimal("22738.5269")));
+        assertEquals("22738.5269", FixedRate.toString(map.get("EUR").rate()));
+    }
+
+    @Test
+    void getConvertedJson_shouldReuseBytesUntilNamesChange() {
+        CoinDeskConvertService.RenderedResponse first = convertService.getConvertedJson();
+        assertSame(first, convertService.getConvertedJson()); // 版本未變 → 同一份序列化結果
+
+        currencyRepo.save(new Currency("USD", "美金"));
+        nameCache.invalidate(); // 中文名稱變動
+        CoinDeskConvertService.RenderedResponse second = convertService.getConvertedJson();
+
+        assertNotSame(first, second);
+        assertNotEquals(first.etag(), second.etag()); // 內容不同 → ETag 不同
+        assertTrue(new String(second.body(), StandardCharsets.UTF_8).contains("美金"));
+    }
+
+    @Test
+    void getConvertedJson_shouldMatchDtoSerialization() throws Exception {
+        byte[] dto = mapper.writeValueAsBytes(convertService.getConverted()); // 經 DTO + FixedRate.JsonSerializer
+        byte[] rendered = convertService.getConvertedJson().body(); // 直接以 JsonGenerator 寫出
+
+        assertEquals(new String(dto, StandardCharsets.UTF_8), new String(rendered, StandardCharsets.UTF_8));
+        assertTrue(new String(rendered, StandardCharsets.UTF_8).contains("\"rate\":23342.0112")); // 小數輸出，不是 scaled long
     }
 }
@@ -0,0 +1,150 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import com.fasterxml.jackson.databind.JsonNode; // 匯入 JsonNode，作為舊做法（readTree）的對照
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper
+import org.junit.jupiter.api.Test; // 匯入 @Test
+
+import java.lang.management.ManagementFactory; // 匯入 ManagementFactory，取得執行緒配置量統計
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime
+import java.util.Iterator; // 匯入 Iterator，走訪 bpi 欄位（舊做法）
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.junit.jupiter.api.Assumptions.assumeTrue; // 匯入 assumeTrue，JVM 不支援配置量統計時略過測試
+
+/**
+ * ===========================================
+ * CoinDesk 串流解析器測試 (CoinDeskPayloadParserTest)
+ * ===========================================
+ * 目的：
+ * - 驗證串流解析結果與原本 readTree + fieldNames() 的結果一致
+ * - 比較兩種做法每次解析的記憶體配置量（allocation），串流解析應較少
+ */
+class CoinDeskPayloadParserTest {
+
+    private static final String MOCK_JSON = """
+        {
+          "time": {
+            "updated": "Aug 3, 2022 20:25:00 UTC",
+            "updatedISO": "2022-08-03T20:25:00+00:00",
+            "updateduk": "Aug 3, 2022 at 21:25 BST"
+          },
+          "disclaimer": "This data was produced from the CoinDesk Bitcoin Price Index (USD).",
+          "chartName": "Bitcoin",
+          "bpi": {
+            "USD": { "code": "USD", "symbol": "$", "rate": "23,342.0112", "description": "US Dollar", "rate_float": 23342.0112 },
+            "GBP": { "code": "GBP", "symbol": "£", "rate": "19,504.3978", "description": "British Pound Sterling", "rate_float": 19504.3978 },
+            "EUR": { "code": "EUR", "symbol": "€", "rate": "22,738.5269", "description": "Euro", "rate_float": 22738.5269 }
+          }
+        }""";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final CoinDeskPayloadParser parser = new CoinDeskPayloadParser(mapper);
+
+    @Test
+    void parse_shouldExtractTimeAndRatesInOrder() throws Exception {
+        RateSnapshot s = parser.parse(MOCK_JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(OffsetDateTime.parse("2022-08-03T20:25:00+00:00"), s.updatedIso());
+        assertEquals("Aug 3, 2022 20:25:00 UTC", s.updated());
+        assertEquals(3, s.rates().size());
+        assertEquals("USD", s.rates().get(0).code());
+        assertEquals("GBP", s.rates().get(1).code());
+        assertEquals("EUR", s.rates().get(2).code());
+        assertEquals(23342_011200L, s.rates().get(0).rate()); // FixedRate：23342.0112 × 10^6
+    }
+
+    @Test
+    void parse_shouldMatchReadTreeResults() throws Exception {
+        String json = syntheticPayload(500);
+        RateSnapshot s = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        JsonNode bpi = mapper.readTree(json).path("bpi");
+        assertEquals(bpi.size(), s.rates().size());
+        int i = 0;
+        for (Iterator<String> it = bpi.fieldNames(); it.hasNext(); i++) {
+            String code = it.next();
+            assertEquals(code, s.rates().get(i).code());
+            assertEquals(FixedRate.fromBigDecimal(bpi.path(code).path("rate_float").decimalValue()), s.rates().get(i).rate()); // 與舊做法寫入 DECIMAL(18,6) 後的值相同
+        }
+    }
+
+    @Test
+    void parse_missingFields_shouldDefaultLikeJsonNode() throws Exception {
+        RateSnapshot s = parser.parse("{\"bpi\":{\"USD\":{\"code\":\"USD\"},\"JPY\":\"n/a\"}}".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(s.updatedIso());
+        assertNull(s.updated());
+        assertEquals(0L, s.rates().get(0).rate()); // 缺 rate_float → 0
+        assertEquals(0L, s.rates().get(1).rate()); // 幣別值不是物件 → 0
+    }
+
+    /**
+     * 配置量比較：舊做法（byte[] → String → readTree → 走訪樹）對照串流解析
+     * - 使用 com.sun.management.ThreadMXBean 量測目前執行緒的配置位元組數
+     */
+    @Test
+    void parse_shouldAllocateLessThanReadTree() throws Exception {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationMeasurable(threads);
+        byte[] body = syntheticPayload(200).getBytes(StandardCharsets.UTF_8);
+        int rounds = 200;
+
+        for (int i = 0; i < rounds; i++) { // 預熱：讓 JIT 與 Jackson 內部緩衝區穩定
+            readTreePath(body);
+            parser.parse(body);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < rounds; i++) {
+            readTreePath(body);
+        }
+        long treeBytes = (threads.getThreadAllocatedBytes(tid) - before) / rounds;
+
+        before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < rounds; i++) {
+            parser.parse(body);
+        }
+        long streamBytes = (threads.getThreadAllocatedBytes(tid) - before) / rounds;
+
+        assertTrue(streamBytes < treeBytes, () -> String.format(
+                "串流解析的配置量應少於 readTree（payload %d bytes，每次解析：readTree=%d B，streaming=%d B）",
+                body.length, treeBytes, streamBytes));
+    }
+
+    /**
+     * 原本的解析路徑（對照組）
+     */
+    private int readTreePath(byte[] body) throws Exception {
+        JsonNode root = mapper.readTree(new String(body, StandardCharsets.UTF_8));
+        root.path("time").path("updatedISO").asText(null);
+        JsonNode bpi = root.path("bpi");
+        int n = 0;
+        for (Iterator<String> it = bpi.fieldNames(); it.hasNext(); n++) {
+            bpi.path(it.next()).path("rate_float").decimalValue();
+        }
+        return n;
+    }
+
+    private static void assumeAllocationMeasurable(com.sun.management.ThreadMXBean threads) {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * 產生含 n 個幣別的合成 CoinDesk JSON
+     */
+    static String syntheticPayload(int n) {
+        StringBuilder sb = new StringBuilder("{\"time\":{\"updated\":\"Aug 3, 2022 20:25:00 UTC\",\"updatedISO\":\"2022-08-03T20:25:00+00:00\"},\"bpi\":{");
+        for (int i = 0; i < n; i++) {
+            String code = "C" + i;
+            if (i > 0) sb.append(',');
+            sb.append('"').append(code).append("\":{\"code\":\"").append(code)
+                    .append("\",\"symbol\":\"$\",\"rate\":\"1,234.5678\",\"description\":\"Currency ").append(i)
+                    .append("\",\"rate_float\":").append(1000 + i * 1.2345).append('}');
+        }
+        return sb.append("}}").toString();
+    }
+}
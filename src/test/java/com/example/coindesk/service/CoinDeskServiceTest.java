@@ -0,0 +1,237 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.CoinDeskProperties; // 匯入 CoinDesk 設定（快取 TTL、上游連線設定）
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，建立解析器
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry; // 匯入 SimpleMeterRegistry，記憶體內的指標註冊中心
+import org.junit.jupiter.api.Test; // 匯入 @Test
+
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.time.Duration; // 匯入 Duration，設定 TTL
+import java.util.ArrayList; // 匯入 ArrayList，收集並行結果
+import java.util.List; // 匯入 List
+import java.util.concurrent.CountDownLatch; // 匯入 CountDownLatch，控制並行起跑與上游延遲
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，模擬並行請求
+import java.util.concurrent.Executors; // 匯入 Executors，建立執行緒池
+import java.util.concurrent.Future; // 匯入 Future，取得每個並行請求的結果
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean; // 匯入 AtomicBoolean，切換上游成功 / 失敗
+import java.util.concurrent.atomic.AtomicInteger; // 匯入 AtomicInteger，計算上游呼叫次數
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * CoinDesk 快照快取測試 (CoinDeskServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 TTL 內的呼叫共用同一份快照，不會重複打上游
+ * - 驗證快取過期時，大量並行呼叫只會觸發一次上游請求（single-flight）
+ * - 驗證上游失敗時改用最後一次成功的資料；從未成功過才用 Mock
+ * - 驗證連續失敗後斷路器打開，不再呼叫上游；上游過慢時受總期限限制
+ *
+ * 作法：
+ * - 覆寫 fetchUpstream()，以計數器取代真正的 HTTP 呼叫
+ */
+class CoinDeskServiceTest {
+
+    /**
+     * 測試用 CoinDeskService：計算上游呼叫次數，並可讓上游「卡住」直到放行
+     */
+    static class CountingCoinDeskService extends CoinDeskService {
+        final AtomicInteger calls = new AtomicInteger(); // 上游呼叫次數
+        final CountDownLatch release; // 放行上游回應的門閂
+        final SimpleMeterRegistry registry; // 指標（驗證 fallback / 失敗次數）
+
+        CountingCoinDeskService(Duration ttl, CountDownLatch release) {
+            this(ttl, release, Duration.ofSeconds(5), 3, Duration.ofSeconds(30));
+        }
+
+        CountingCoinDeskService(Duration ttl, CountDownLatch release, Duration totalTimeout, int failureThreshold, Duration openDuration) {
+            this(ttl, release, totalTimeout, failureThreshold, openDuration, new SimpleMeterRegistry());
+        }
+
+        private CountingCoinDeskService(Duration ttl, CountDownLatch release, Duration totalTimeout, int failureThreshold,
+                                        Duration openDuration, SimpleMeterRegistry registry) {
+            super(new CoinDeskProperties(ttl, new CoinDeskProperties.Upstream("http://localhost/unused",
+                            Duration.ofSeconds(1), Duration.ofSeconds(1), totalTimeout, 2, failureThreshold, openDuration)),
+                    new CoinDeskPayloadParser(new ObjectMapper()), new CoinDeskMetrics(registry));
+            this.release = release;
+            this.registry = registry;
+        }
+
+        @Override
+        byte[] fetchUpstream() {
+            int n = calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS); // 模擬慢速上游
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ("{\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 測試用 CoinDeskService：可切換上游成功或失敗
+     */
+    static class FlakyCoinDeskService extends CountingCoinDeskService {
+        final AtomicBoolean failing = new AtomicBoolean(); // true → 上游拋出例外
+
+        FlakyCoinDeskService(int failureThreshold, Duration openDuration) {
+            super(Duration.ZERO, new CountDownLatch(0), Duration.ofSeconds(5), failureThreshold, openDuration); // TTL 0 → 每次呼叫都嘗試刷新
+        }
+
+        @Override
+        byte[] fetchUpstream() {
+            if (failing.get()) {
+                calls.incrementAndGet();
+                throw new IllegalStateException("upstream down");
+            }
+            return super.fetchUpstream();
+        }
+    }
+
+    @Test
+    void fetchRawJson_withinTtl_shouldHitUpstreamOnce() {
+        var service = new CountingCoinDeskService(Duration.ofMinutes(1), new CountDownLatch(0));
+
+        String first = service.fetchRawJson();
+        String second = service.fetchRawJson();
+
+        assertEquals(1, service.calls.get()); // TTL 內只打一次上游
+        assertEquals(first, second); // 回傳同一份快照
+    }
+
+    @Test
+    void fetchRawJson_expired_shouldRefresh() {
+        var service = new CountingCoinDeskService(Duration.ZERO, new CountDownLatch(0)); // TTL 0 → 每次都過期
+
+        service.fetchRawJson();
+        service.fetchRawJson();
+
+        assertEquals(2, service.calls.get());
+    }
+
+    @Test
+    void fetchRawJson_concurrentCallers_shouldShareSingleRefresh() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        var service = new CountingCoinDeskService(Duration.ofMinutes(1), release);
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.fetchRawJson();
+                }));
+            }
+            start.countDown(); // 所有執行緒同時起跑
+            Thread.sleep(200); // 讓所有呼叫者都進入等待
+            release.countDown(); // 放行上游回應
+
+            for (Future<String> f : results) {
+                assertEquals("{\"n\":1}", f.get(5, TimeUnit.SECONDS)); // 大家拿到同一次刷新的結果
+            }
+            assertEquals(1, service.calls.get()); // 上游只被呼叫一次
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void fetchRawJson_upstreamFails_shouldServeLastKnownGood() {
+        var service = new FlakyCoinDeskService(10, Duration.ofSeconds(30));
+
+        String good = service.fetchRawJson(); // 第一次成功
+        service.failing.set(true);
+        String afterFailure = service.fetchRawJson();
+
+        assertEquals("{\"n\":1}", good);
+        assertEquals(good, afterFailure); // 失敗時回傳最後一次成功的資料，而不是 Mock
+        assertEquals(1.0, service.registry.counter("coindesk.upstream.fallback", "source", "last_good", "reason", "failure").count());
+        assertEquals(1L, service.registry.timer("coindesk.upstream.latency", "outcome", "error").count());
+    }
+
+    @Test
+    void fetchSnapshot_sameBody_shouldSkipParseAndReuseSnapshot() {
+        var service = new FlakyCoinDeskService(10, Duration.ofSeconds(30)) {
+            @Override
+            byte[] fetchUpstream() {
+                calls.incrementAndGet();
+                if (failing.get()) {
+                    throw new IllegalStateException("upstream down");
+                }
+                return MOCK_JSON.getBytes(StandardCharsets.UTF_8); // 每次回傳相同內容
+            }
+        };
+
+        RateSnapshot first = service.fetchSnapshot();
+        RateSnapshot second = service.fetchSnapshot();
+
+        assertEquals(2, service.calls.get()); // TTL 0 → 兩次都呼叫上游
+        assertSame(first, second); // 內容相同 → 沿用同一個快照物件
+        assertEquals(1.0, service.registry.counter("coindesk.parse.skipped").count());
+        assertFalse(service.isServingFallback());
+        assertFalse(service.fetchQuote().fallback());
+
+        service.failing.set(true);
+        RateSource.Quote quote = service.fetchQuote();
+        assertSame(first, quote.snapshot());
+        assertTrue(quote.fallback()); // 失敗時為最後一次成功的資料，與快照一起標記
+        assertTrue(service.isServingFallback());
+    }
+
+    @Test
+    void fetchSnapshot_neverSucceeded_shouldServeMock() {
+        var service = new FlakyCoinDeskService(10, Duration.ofSeconds(30));
+        service.failing.set(true);
+
+        RateSnapshot snapshot = service.fetchSnapshot();
+
+        assertEquals(3, snapshot.rates().size()); // Mock：USD / GBP / EUR
+        assertEquals("USD", snapshot.rates().get(0).code());
+    }
+
+    @Test
+    void fetchRawJson_repeatedFailures_shouldOpenBreakerAndSkipUpstream() {
+        var service = new FlakyCoinDeskService(2, Duration.ofMinutes(1));
+        service.failing.set(true);
+
+        for (int i = 0; i < 5; i++) {
+            service.fetchRawJson();
+        }
+
+        assertEquals(2, service.calls.get()); // 兩次失敗後斷路器打開，後續不再呼叫上游
+        assertEquals(CircuitBreaker.State.OPEN, service.circuitState());
+        assertEquals(3.0, service.registry.counter("coindesk.upstream.fallback", "source", "mock", "reason", "circuit_open").count());
+    }
+
+    @Test
+    void fetchRawJson_breakerHalfOpen_shouldCloseAfterSuccessfulProbe() throws Exception {
+        var service = new FlakyCoinDeskService(1, Duration.ofMillis(50));
+        service.failing.set(true);
+        service.fetchRawJson(); // 一次失敗 → 打開
+        assertEquals(CircuitBreaker.State.OPEN, service.circuitState());
+
+        Thread.sleep(100); // 等待打開時間結束
+        service.failing.set(false);
+        service.fetchRawJson(); // 試探請求成功 → 關閉
+
+        assertEquals(CircuitBreaker.State.CLOSED, service.circuitState());
+    }
+
+    @Test
+    void fetchRawJson_slowUpstream_shouldBeBoundedByTotalTimeout() {
+        CountDownLatch never = new CountDownLatch(1); // 不放行 → 上游卡住 5 秒
+        var service = new CountingCoinDeskService(Duration.ofMinutes(1), never, Duration.ofMillis(200), 3, Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        RateSnapshot snapshot = service.fetchSnapshot();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 2000, "總期限應在約 200ms 後放棄等待，實際 " + elapsedMillis + " ms");
+        assertEquals(3, snapshot.rates().size()); // 逾時 → Mock
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體
+import com.example.coindesk.dto.ConvertDtos; // 匯入換算 DTO
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repo（以 Mockito 取代）
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.http.HttpStatus; // 匯入 HttpStatus
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.math.MathContext; // 匯入 MathContext，直接相除的對照值
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
+import static org.mockito.Mockito.mock; // 匯入 mock
+
+/**
+ * ===========================================
+ * 交叉匯率換算測試 (CrossRateServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證啟動時由 exchange_rate 建立矩陣，法幣之間的換算等於 rate[to] / rate[from]
+ * - 驗證以倒數相乘算出的交叉匯率與直接相除的誤差在有效位數內
+ * - 驗證匯率變動事件會替換矩陣，較舊的矩陣不會覆蓋較新的
+ * - 驗證未知幣別回 404
+ */
+class CrossRateServiceTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2022, 8, 3, 20, 25);
+    private ExchangeRateRepository repo;
+    private CrossRateService service;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ExchangeRateRepository.class);
+        given(repo.findAll()).willReturn(List.of(
+                new ExchangeRate("USD", new BigDecimal("20000"), T1),
+                new ExchangeRate("EUR", new BigDecimal("25000"), T1),
+                new ExchangeRate("GBP", new BigDecimal("16000"), T1)));
+        service = new CrossRateService(repo);
+    }
+
+    @Test
+    void convert_fiatToFiat_shouldUseCrossRateFromDatabase() {
+        ConvertDtos.Response r = service.convert("eur", "gbp", new BigDecimal("100"));
+
+        assertEquals("EUR", r.from());
+        assertEquals("GBP", r.to());
+        assertEquals(0, new BigDecimal("0.64").compareTo(r.rate())); // 16000 / 25000
+        assertEquals(new BigDecimal("64.000000"), r.result());
+        assertEquals(T1, r.asOf());
+    }
+
+    @Test
+    void convert_btcAndIdentity_shouldBeSupported() {
+        assertEquals(new BigDecimal("40000.000000"), service.convert("BTC", "USD", new BigDecimal("2")).result());
+        assertEquals(new BigDecimal("0.000050"), service.convert("USD", "BTC", BigDecimal.ONE).result());
+        assertEquals(BigDecimal.ONE, service.convert("USD", "USD", BigDecimal.ONE).rate());
+    }
+
+    @Test
+    void matrix_nonTerminatingCrossRate_shouldMatchDirectDivision() {
+        BigDecimal usd = new BigDecimal("23342.0112");
+        BigDecimal eur = new BigDecimal("22738.5269");
+        CrossRateMatrix m = CrossRateMatrix.of(List.of(new RateSnapshot.Rate("USD", FixedRate.fromBigDecimal(usd)),
+                new RateSnapshot.Rate("EUR", FixedRate.fromBigDecimal(eur))), T1);
+
+        BigDecimal expected = eur.divide(usd, MathContext.DECIMAL128);
+        BigDecimal error = m.rate("USD", "EUR").subtract(expected).abs().divide(expected, MathContext.DECIMAL64);
+        assertTrue(error.compareTo(new BigDecimal("1e-18")) < 0, "相對誤差 " + error);
+        assertEquals(0, eur.compareTo(m.rate("BTC", "EUR"))); // BTC → 法幣為原始匯率，沒有誤差
+    }
+
+    @Test
+    void onRatesChanged_shouldReplaceMatrixButIgnoreOlderSnapshot() {
+        LocalDateTime t2 = T1.plusMinutes(10);
+        service.onRatesChanged(new RatesChangedEvent(
+                new RateSnapshot(null, null, List.of(new RateSnapshot.Rate("USD", 30000 * FixedRate.ONE),
+                        new RateSnapshot.Rate("JPY", 3000000 * FixedRate.ONE))),
+                t2, Map.of("USD", new RatesChangedEvent.Change("USD", 20000 * FixedRate.ONE, 30000 * FixedRate.ONE),
+                        "JPY", new RatesChangedEvent.Change("JPY", 0, 3000000 * FixedRate.ONE))));
+        assertEquals(new BigDecimal("100.000000"), service.convert("USD", "JPY", BigDecimal.ONE).result());
+
+        service.onRatesChanged(new RatesChangedEvent(
+                new RateSnapshot(null, null, List.of(new RateSnapshot.Rate("USD", FixedRate.ONE))),
+                T1, Map.of("USD", new RatesChangedEvent.Change("USD", 30000 * FixedRate.ONE, FixedRate.ONE)))); // 較舊 → 忽略
+        assertEquals(t2, service.current().asOf());
+        assertTrue(service.current().contains("JPY"));
+    }
+
+    @Test
+    void convert_unknownCode_shouldReturn404() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.convert("USD", "XYZ", BigDecimal.ONE));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
+    @Test
+    void convert_noRates_shouldReturn503() {
+        given(repo.findAll()).willReturn(List.of());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> new CrossRateService(repo).convert("USD", "EUR", BigDecimal.ONE));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+    }
+}
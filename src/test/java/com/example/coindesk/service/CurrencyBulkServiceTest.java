@@ -0,0 +1,152 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import com.example.coindesk.dto.CurrencyDtos; // 匯入幣別 DTO
+import com.example.coindesk.repository.CurrencyRepository; // 匯入幣別 Repository，準備與清理測試資料
+import org.junit.jupiter.api.AfterEach; // 匯入 @AfterEach，每個測試後清理
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+
+import java.io.ByteArrayInputStream; // 匯入 ByteArrayInputStream，模擬請求內容
+import java.io.ByteArrayOutputStream; // 匯入 ByteArrayOutputStream，收集回應內容
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
+import java.util.Arrays; // 匯入 Arrays
+import java.util.List; // 匯入 List
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 幣別批次匯入 / 匯出測試 (CurrencyBulkServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 CSV 匯入：新增、更新、未變動、驗證失敗與重複代碼的統計
+ * - 驗證 NDJSON 匯入超過一批（500 筆）時，全部寫入且中文名稱快取已更新
+ * - 驗證匯出依代碼排序，CSV 含標題列
+ *
+ * 注意：
+ * - 此測試不加 @Transactional，讓每批交易真正 commit
+ * - 測試代碼皆以 X 開頭，結束後自行刪除
+ */
+@SpringBootTest
+class CurrencyBulkServiceTest {
+
+    @Autowired
+    private CurrencyBulkService service; // 測試目標
+
+    @Autowired
+    private CurrencyRepository repo; // 準備與清理測試資料
+
+    @Autowired
+    private CurrencyNameCache nameCache; // 驗證匯入後快取失效
+
+    @AfterEach
+    void tearDown() {
+        repo.deleteAll(repo.findAll().stream()
+                .filter(c -> c.getCode().startsWith("X"))
+                .toList());
+        nameCache.invalidate();
+    }
+
+    @Test
+    void importCsv_shouldInsertUpdateAndReportRejectedRows() throws Exception {
+        repo.save(new Currency("XAA", "舊名稱"));
+        repo.save(new Currency("XAB", "不變"));
+        String csv = """
+                code,nameZh
+                xaa,新名稱
+                XAB,不變
+                XAC,新增幣
+                X1,數字代碼
+                XAD,
+                XAC,重複
+                """;
+
+        CurrencyDtos.ImportResult result = service.importCurrencies(input(csv), true);
+
+        assertEquals(6, result.received());
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(4L, 5L, 6L), result.errors().stream().map(CurrencyDtos.ImportError::row).toList());
+        assertEquals("新名稱", repo.findById("XAA").orElseThrow().getNameZh()); // 小寫代碼轉大寫後更新
+        assertEquals("新增幣", repo.findById("XAC").orElseThrow().getNameZh()); // 重複代碼只採用第一筆
+        assertFalse(repo.existsByCode("X1"));
+        assertFalse(repo.existsByCode("XAD"));
+    }
+
+    @Test
+    void importNdjson_shouldWriteAllChunks() throws Exception {
+        nameCache.names(); // 先載入快取，驗證匯入後會失效
+        int n = CurrencyBulkService.CHUNK_SIZE + 120; // 超過一批
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            ndjson.append("{\"code\":\"").append(code(i)).append("\",\"nameZh\":\"幣").append(i).append("\"}\n");
+        }
+
+        CurrencyDtos.ImportResult result = service.importCurrencies(input(ndjson.toString()), false);
+
+        assertEquals(n, result.received());
+        assertEquals(n, result.inserted());
+        assertEquals(0, result.rejected());
+        assertEquals("幣" + (n - 1), nameCache.nameOf(code(n - 1))); // 第二批也已 commit 並反映到快取
+    }
+
+    @Test
+    void importNdjson_badlyTypedRow_shouldRejectOnlyThatRow() throws Exception {
+        String ndjson = """
+                {"code":"XBA","nameZh":"第一筆"}
+                {"code":{"value":"XBB"},"nameZh":"型別錯誤"}
+                {"code":"XBC","nameZh":"第三筆"}
+                """;
+
+        CurrencyDtos.ImportResult result = service.importCurrencies(input(ndjson), false);
+
+        assertEquals(3, result.received());
+        assertEquals(2, result.inserted()); // 錯誤之後的列照常匯入
+        assertEquals(1, result.rejected());
+        assertEquals(2L, result.errors().get(0).row());
+        assertTrue(result.errors().get(0).message().startsWith("欄位型別錯誤"));
+        assertTrue(repo.existsByCode("XBC"));
+    }
+
+    @Test
+    void importNdjson_malformedInput_shouldStopAndKeepEarlierRows() throws Exception {
+        String ndjson = "{\"code\":\"XBA\",\"nameZh\":\"第一筆\"}\n{\"code\":\"XBB\",\n";
+
+        CurrencyDtos.ImportResult result = service.importCurrencies(input(ndjson), false);
+
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.rejected());
+        assertTrue(result.errors().get(0).message().startsWith("格式錯誤"));
+        assertTrue(repo.existsByCode("XBA"));
+    }
+
+    @Test
+    void exportCsv_shouldStreamSortedRowsWithHeader() {
+        repo.save(new Currency("XZB", "乙"));
+        repo.save(new Currency("XZA", "甲"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.exportCurrencies(out, true);
+
+        List<String> lines = Arrays.asList(out.toString(StandardCharsets.UTF_8).split("\n"));
+        assertEquals("code,nameZh", lines.get(0));
+        assertEquals(rows, lines.size() - 1);
+        assertTrue(lines.indexOf("XZA,甲") > 0);
+        assertEquals(lines.indexOf("XZA,甲") + 1, lines.indexOf("XZB,乙")); // 依代碼排序
+    }
+
+    /**
+     * 產生僅含英文字母的測試代碼（XC + 3 碼）
+     */
+    private static String code(int i) {
+        return "XC" + (char) ('A' + i / 676) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+    }
+
+    private static ByteArrayInputStream input(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
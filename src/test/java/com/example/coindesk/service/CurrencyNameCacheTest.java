@@ -0,0 +1,101 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.dto.CurrencyDtos; // 匯入幣別 DTO
+import com.example.coindesk.repository.CurrencyRepository; // 匯入幣別 Repository，用於清理測試資料
+import org.junit.jupiter.api.AfterEach; // 匯入 @AfterEach，每個測試後清理
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.transaction.support.TransactionTemplate; // 匯入 TransactionTemplate，手動控制交易 commit / rollback
+
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.List; // 匯入 List
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，模擬並行請求
+import java.util.concurrent.Executors; // 匯入 Executors
+import java.util.concurrent.Future; // 匯入 Future
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.stream.IntStream; // 匯入 IntStream，產生測試代碼
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 幣別中文名稱快取測試 (CurrencyNameCacheTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 CurrencyService 新增/修改/刪除 commit 後，快取立即反映最新資料
+ * - 驗證交易回滾時，快取不會出現未 commit 的資料
+ * - 驗證並行新增時，快取最終包含所有已 commit 的幣別
+ *
+ * 注意：
+ * - 此測試刻意「不」加 @Transactional，讓 CurrencyService 的交易真正 commit，afterCommit 才會觸發
+ * - 測試代碼皆以 X 開頭，結束後自行刪除
+ */
+@SpringBootTest
+class CurrencyNameCacheTest {
+
+    @Autowired
+    private CurrencyService service; // 透過服務層異動，觸發快取失效
+
+    @Autowired
+    private CurrencyNameCache nameCache; // 測試目標：中文名稱對照快取
+
+    @Autowired
+    private CurrencyRepository repo; // 清理測試資料
+
+    @Autowired
+    private TransactionTemplate tx; // 手動控制交易
+
+    @AfterEach
+    void tearDown() {
+        repo.findAll().stream()
+                .filter(c -> c.getCode().startsWith("X"))
+                .forEach(repo::delete);
+        nameCache.invalidate();
+    }
+
+    @Test
+    void writes_shouldBeVisibleAfterCommit() {
+        service.create(new CurrencyDtos.CreateRequest("XTS", "測試幣"));
+        assertEquals("測試幣", nameCache.nameOf("XTS")); // 新增後可立即查到
+
+        service.update("XTS", new CurrencyDtos.UpdateRequest("測試幣二"));
+        assertEquals("測試幣二", nameCache.nameOf("XTS")); // 修改後為新名稱
+
+        service.delete("XTS");
+        assertEquals("", nameCache.nameOf("XTS")); // 刪除後查無資料
+    }
+
+    @Test
+    void rolledBackWrite_shouldNotReachCache() {
+        nameCache.names(); // 先載入一次
+        tx.executeWithoutResult(status -> {
+            service.create(new CurrencyDtos.CreateRequest("XRB", "回滾幣"));
+            status.setRollbackOnly(); // 交易回滾
+        });
+        assertEquals("", nameCache.nameOf("XRB"));
+    }
+
+    @Test
+    void concurrentCreates_shouldAllBeVisible() throws Exception {
+        List<String> codes = IntStream.range(0, 20).mapToObj(i -> "X" + (char) ('A' + i) + "C").toList();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String code : codes) {
+                futures.add(pool.submit(() -> {
+                    service.create(new CurrencyDtos.CreateRequest(code, "並行" + code));
+                    nameCache.names(); // 同時有讀取者在重載對照表
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (String code : codes) {
+            assertEquals("並行" + code, nameCache.nameOf(code)); // 所有已 commit 的幣別都在快取中
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.test.annotation.Rollback; // 匯入 @Rollback，可
 import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，讓每個測試在交易中執行
 import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，用於模擬 API 錯誤情境
 
+import java.io.ByteArrayOutputStream; // 匯入 ByteArrayOutputStream，收集串流輸出
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
 import java.util.List; // 匯入 List，用於存放多筆資料
 
 import static org.junit.jupiter.api.Assertions.*; // 匯入 JUnit 5 的斷言工具（assertEquals、assertThrows 等）
@@ -76,6 +78,32 @@ class CurrencyServiceTest {
         assertEquals("USD", list.get(2).code());
     }
 
+    /**
+     * 測試：page() 以代碼為游標分頁，最後一頁沒有 nextCursor
+     */
+    @Test
+    void page_shouldFollowCursorToLastPage() {
+        CurrencyDtos.Page first = service.page(null, 2);
+        assertEquals(List.of("EUR", "GBP"), first.items().stream().map(CurrencyDtos.Response::code).toList());
+        assertEquals("GBP", first.nextCursor());
+
+        CurrencyDtos.Page last = service.page(first.nextCursor(), 2);
+        assertEquals(List.of("USD"), last.items().stream().map(CurrencyDtos.Response::code).toList());
+        assertNull(last.nextCursor());
+    }
+
+    /**
+     * 測試：writeSorted() 以 JSON 陣列輸出，內容與 listSorted() 相同
+     */
+    @Test
+    void writeSorted_shouldMatchListSorted() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = service.writeSorted(out);
+        assertEquals(3, rows);
+        assertEquals("[{\"code\":\"EUR\",\"nameZh\":\"歐元\"},{\"code\":\"GBP\",\"nameZh\":\"英鎊\"},{\"code\":\"USD\",\"nameZh\":\"美元\"}]",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
     /**
      * 測試：能否正確查詢已存在的幣別
      */
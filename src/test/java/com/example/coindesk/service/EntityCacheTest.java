@@ -0,0 +1,162 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import com.example.coindesk.dto.CurrencyDtos; // 匯入幣別 DTO
+import com.example.coindesk.repository.CurrencyRepository; // 匯入幣別 Repository
+import jakarta.persistence.EntityManagerFactory; // 匯入 EntityManagerFactory，取得 Hibernate 統計
+import org.hibernate.SessionFactory; // 匯入 SessionFactory
+import org.hibernate.stat.Statistics; // 匯入 Statistics，二級快取 / 查詢快取 / SQL 執行次數
+import org.junit.jupiter.api.AfterEach; // 匯入 @AfterEach，每個測試後清理
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; // 匯入 @AutoConfigureMockMvc，建立 MockMvc
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.test.web.servlet.MockMvc; // 匯入 MockMvc，經由實際的 API 查詢
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，404
+
+import java.util.ArrayList; // 匯入 ArrayList
+import java.util.List; // 匯入 List
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService，模擬並行查詢
+import java.util.concurrent.Executors; // 匯入 Executors，建立執行緒池
+import java.util.concurrent.Future; // 匯入 Future，等待查詢執行緒結束
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean; // 匯入 AtomicBoolean，通知查詢執行緒停止
+import java.util.stream.IntStream; // 匯入 IntStream，產生測試代碼
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; // 匯入 GET 請求建構
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*; // 匯入回應驗證工具
+
+/**
+ * ===========================================
+ * 實體快取測試 (EntityCacheTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 getOne() 第二次查詢命中二級快取，不再執行 SQL
+ * - 驗證 GET /currencies?after=...&limit=...（keyset 分頁）命中查詢快取，且資料異動後自動失效
+ * - 驗證查無資料的代碼第二次直接回 404，不再查 DB；新增後即可查到
+ * - 驗證並行查詢在新增 commit 前讀到「查無資料」時，commit 後不會再把代碼記為不存在
+ *
+ * 注意：
+ * - 此測試不加 @Transactional，讓每次查詢都在獨立交易內，才會經過二級快取
+ * - 測試代碼皆以 X 開頭，結束後自行刪除
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EntityCacheTest {
+
+    @Autowired
+    private MockMvc mvc; // 模擬 HTTP 請求
+
+    @Autowired
+    private CurrencyService service; // 透過服務層查詢
+
+    @Autowired
+    private CurrencyRepository repo; // 準備與清理測試資料
+
+    @Autowired
+    private UnknownCurrencyCache unknownCodes; // 查無資料的負向快取
+
+    @Autowired
+    private EntityManagerFactory emf; // 取得 Hibernate 統計
+
+    private Statistics stats; // Hibernate 統計
+
+    @BeforeEach
+    void setUp() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repo.deleteAll(repo.findAll().stream()
+                .filter(c -> c.getCode().startsWith("X"))
+                .toList());
+    }
+
+    @Test
+    void getOne_secondCall_shouldHitSecondLevelCache() {
+        repo.save(new Currency("XCA", "快取幣"));
+        service.getOne("XCA"); // 第一次：查 DB 並放入快取（或由寫入時放入）
+
+        long statements = stats.getPrepareStatementCount();
+        long hits = stats.getSecondLevelCacheHitCount();
+        assertEquals("快取幣", service.getOne("XCA").nameZh());
+
+        assertEquals(statements, stats.getPrepareStatementCount()); // 沒有執行 SQL
+        assertTrue(stats.getSecondLevelCacheHitCount() > hits);
+    }
+
+    @Test
+    void pagedList_shouldUseQueryCacheUntilTableChanges() throws Exception {
+        repo.save(new Currency("XCA", "快取幣"));
+        mvc.perform(get("/currencies").param("after", "X").param("limit", "50"))
+                .andExpect(status().isOk()); // 放入查詢快取
+        long statements = stats.getPrepareStatementCount();
+        long queryHits = stats.getQueryCacheHitCount();
+
+        mvc.perform(get("/currencies").param("after", "X").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.code == 'XCA')]").exists());
+        assertEquals(statements, stats.getPrepareStatementCount()); // 沒有執行 SQL
+        assertEquals(queryHits + 1, stats.getQueryCacheHitCount());
+
+        repo.save(new Currency("XCB", "新幣")); // currency 表異動 → 查詢快取失效
+        mvc.perform(get("/currencies").param("after", "X").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.code == 'XCB')]").exists());
+    }
+
+    @Test
+    void unknownCode_shouldBeNegativelyCachedUntilCreated() {
+        assertThrows(ResponseStatusException.class, () -> service.getOne("XCZ")); // 查 DB，記入負向快取
+        long statements = stats.getPrepareStatementCount();
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.getOne("XCZ"));
+        assertEquals(404, ex.getStatusCode().value());
+        assertEquals(statements, stats.getPrepareStatementCount()); // 第二次不查 DB
+
+        service.create(new CurrencyDtos.CreateRequest("XCZ", "後來新增"));
+        assertEquals("後來新增", service.getOne("XCZ").nameZh()); // 新增後不再視為查無資料
+    }
+
+    @Test
+    void markUnknown_afterCodeWasForgotten_shouldBeIgnored() {
+        long generation = unknownCodes.generation(); // 查詢讀 DB 前
+        unknownCodes.forgetAfterCommit("XCR"); // 讀 DB 期間另一個交易新增並 commit
+        unknownCodes.markUnknown("XCR", generation); // 查詢讀到的是 commit 前的結果
+
+        assertFalse(unknownCodes.isUnknown("XCR"));
+    }
+
+    @Test
+    void concurrentLookups_shouldNotHideCreatedCode() throws Exception {
+        List<String> codes = IntStream.range(0, 20).mapToObj(i -> "XR" + (char) ('A' + i)).toList();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (String code : codes) {
+                AtomicBoolean created = new AtomicBoolean();
+                List<Future<?>> readers = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    readers.add(pool.submit(() -> {
+                        while (!created.get()) {
+                            try {
+                                service.getOne(code); // 新增前查無資料 → 記入負向快取
+                            } catch (ResponseStatusException ignored) {
+                            }
+                        }
+                    }));
+                }
+                service.create(new CurrencyDtos.CreateRequest(code, "並行" + code)); // 回傳時已 commit
+                created.set(true);
+                for (Future<?> f : readers) {
+                    f.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals("並行" + code, service.getOne(code).nameZh()); // 不能因 commit 前的查詢而回 404
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.RateSourceProperties; // 匯入多來源聚合設定
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry; // 匯入 SimpleMeterRegistry，記憶體內的指標註冊中心
+import org.junit.jupiter.api.Test; // 匯入 @Test
+
+import java.time.Duration; // 匯入 Duration，設定共同期限
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，快照更新時間
+import java.util.List; // 匯入 List
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 多來源匯率聚合測試 (RateAggregatorTest)
+ * ===========================================
+ * 目的：
+ * - 驗證依幣別取中位數，偏離中位數過多的來源被剔除
+ * - 驗證各來源並行抓取：總耗時接近最慢的來源，而不是總和；超過期限的來源不列入
+ * - 驗證失敗的來源被略過；沒有即時來源時採用第一個來源的 fallback 資料
+ * - 驗證所有來源皆缺值的幣別不列入（不以 0 覆寫上一次的匯率）
+ *
+ * 作法：
+ * - 以本機 StubSource 取代真正的上游，可設定延遲、匯率或失敗
+ */
+class RateAggregatorTest {
+
+    private static final OffsetDateTime T1 = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+    private static final OffsetDateTime T2 = OffsetDateTime.parse("2024-01-01T00:01:00Z");
+
+    /**
+     * 測試用匯率來源：延遲指定時間後回傳固定快照（或拋出例外）
+     */
+    record StubSource(String name, long delayMillis, RateSource.Quote quote) implements RateSource {
+        @Override
+        public Quote fetch() throws Exception {
+            Thread.sleep(delayMillis); // 模擬上游延遲（被取消時會中斷）
+            if (quote == null) {
+                throw new IllegalStateException(name + " 失敗");
+            }
+            return quote;
+        }
+    }
+
+    @Test
+    void fetch_shouldTakeMedianAndRejectOutliers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateAggregator aggregator = aggregator(Duration.ofSeconds(2), registry,
+                source("a", 0, T1, "USD", 100.0, "EUR", 90.0),
+                source("b", 0, T2, "USD", 101.0, "EUR", 91.0),
+                source("c", 0, T1, "USD", 150.0, "EUR", 90.5, "JPY", 15000.0));
+
+        RateSnapshot s = aggregator.fetch().snapshot();
+
+        assertEquals(List.of("USD", "EUR", "JPY"), s.rates().stream().map(RateSnapshot.Rate::code).toList());
+        assertEquals(100_500_000L, rate(s, "USD")); // 150 被剔除，取 100 與 101 的中位數
+        assertEquals(90_500_000L, rate(s, "EUR")); // 三者皆在 5% 內，取中位數
+        assertEquals(15_000_000_000L, rate(s, "JPY")); // 只有一個來源提供
+        assertEquals(T2, s.updatedIso()); // 取最新的更新時間
+        assertEquals(1.0, registry.get("coindesk.source.outliers").tag("source", "c").counter().count());
+    }
+
+    @Test
+    void fetch_shouldRunSourcesInParallelAndDropLateOnes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateAggregator aggregator = aggregator(Duration.ofMillis(1500), registry,
+                source("a", 400, T1, "USD", 100.0),
+                source("b", 400, T1, "USD", 102.0),
+                source("c", 400, T1, "USD", 101.0),
+                source("slow", 10_000, T1, "USD", 999.0));
+
+        long start = System.nanoTime();
+        RateSnapshot s = aggregator.fetch().snapshot();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(101_000_000L, rate(s, "USD")); // 逾時的來源不列入
+        assertTrue(elapsedMillis < 1200 + 1500, "總耗時受共同期限限制：" + elapsedMillis + " ms"); // 依序執行需 1200 ms + 10 s
+        assertTrue(elapsedMillis >= 1400, "最慢的來源等到期限為止：" + elapsedMillis + " ms");
+        assertEquals(1, registry.get("coindesk.source.latency").tag("source", "slow").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void fetch_failedSourceShouldBeSkipped() {
+        RateAggregator aggregator = aggregator(Duration.ofSeconds(2), new SimpleMeterRegistry(),
+                new StubSource("broken", 0, null),
+                source("a", 0, T1, "USD", 100.0));
+
+        assertEquals(100_000_000L, rate(aggregator.fetch().snapshot(), "USD"));
+    }
+
+    @Test
+    void fetch_codeMissingFromAllSources_shouldBeOmitted() {
+        RateAggregator aggregator = aggregator(Duration.ofSeconds(2), new SimpleMeterRegistry(),
+                source("a", 0, T1, "USD", 100.0, "EUR", 0.0),
+                source("b", 0, T1, "USD", 101.0, "EUR", 0.0));
+
+        RateSnapshot s = aggregator.fetch().snapshot();
+
+        assertEquals(List.of("USD"), s.rates().stream().map(RateSnapshot.Rate::code).toList()); // EUR 皆缺值 → 不列入
+    }
+
+    @Test
+    void fetch_shouldPreferLiveSourcesOverFallback() {
+        RateSnapshot mock = snapshot(T1, "USD", 1.0);
+        RateAggregator aggregator = aggregator(Duration.ofSeconds(2), new SimpleMeterRegistry(),
+                new StubSource("coindesk", 0, new RateSource.Quote(mock, true)),
+                source("a", 0, T2, "USD", 100.0));
+        assertEquals(100_000_000L, rate(aggregator.fetch().snapshot(), "USD")); // fallback 資料不參與聚合
+
+        RateAggregator onlyFallback = aggregator(Duration.ofSeconds(2), new SimpleMeterRegistry(),
+                new StubSource("coindesk", 0, new RateSource.Quote(mock, true)),
+                new StubSource("broken", 0, null));
+        RateSource.Quote q = onlyFallback.fetch();
+        assertSame(mock, q.snapshot()); // 沒有即時來源 → 採用第一個來源的 fallback
+        assertTrue(q.fallback());
+    }
+
+    @Test
+    void fetch_noSourceResponding_shouldThrow() {
+        RateAggregator aggregator = aggregator(Duration.ofMillis(200), new SimpleMeterRegistry(),
+                new StubSource("broken", 0, null),
+                source("slow", 5_000, T1, "USD", 100.0));
+
+        assertThrows(IllegalStateException.class, aggregator::fetch);
+    }
+
+    private static RateAggregator aggregator(Duration deadline, SimpleMeterRegistry registry, RateSource... sources) {
+        return new RateAggregator(List.of(sources), new RateSourceProperties(deadline, 0.05), new CoinDeskMetrics(registry));
+    }
+
+    /**
+     * 建立即時來源；codeAndRates 依序為 幣別, 匯率, 幣別, 匯率, ...
+     */
+    private static StubSource source(String name, long delayMillis, OffsetDateTime updated, Object... codeAndRates) {
+        return new StubSource(name, delayMillis, RateSource.Quote.live(snapshot(updated, codeAndRates)));
+    }
+
+    private static RateSnapshot snapshot(OffsetDateTime updated, Object... codeAndRates) {
+        RateSnapshot.Rate[] rates = new RateSnapshot.Rate[codeAndRates.length / 2];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = new RateSnapshot.Rate((String) codeAndRates[2 * i],
+                    Math.round((Double) codeAndRates[2 * i + 1] * FixedRate.ONE));
+        }
+        return new RateSnapshot(updated, null, List.of(rates));
+    }
+
+    private static long rate(RateSnapshot s, String code) {
+        return s.rates().stream().filter(r -> r.code().equals(code)).findFirst().orElseThrow().rate();
+    }
+}
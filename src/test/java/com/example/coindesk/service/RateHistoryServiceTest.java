@@ -0,0 +1,96 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.dto.RateHistoryDtos; // 匯入匯率歷史 DTO
+import com.example.coindesk.repository.ExchangeRateHistoryRepository; // 匯入匯率歷史 Repository
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
+import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional，測試結束自動回滾
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.time.Duration; // 匯入 Duration
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 匯率歷史服務測試 (RateHistoryServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證 append() 為 append-only 且同一時間點不重複
+ * - 驗證 history() 依時間桶回傳 last/avg/min/max/count，並只包含區間內的資料
+ * - 驗證參數錯誤時回傳 400
+ */
+@SpringBootTest
+@Transactional
+class RateHistoryServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2022, 8, 3, 0, 0); // 測試基準時間
+
+    @Autowired
+    private RateHistoryService historyService; // 測試目標：匯率歷史服務
+
+    @Autowired
+    private ExchangeRateHistoryRepository historyRepo; // 用來驗證 DB 結果
+
+    @BeforeEach
+    void setUp() {
+        historyRepo.deleteAllInBatch(); // 清空，避免殘留資料影響
+    }
+
+    private void tick(int minutes, String usd) {
+        historyService.append(T0.plusMinutes(minutes), List.of(new RateSnapshot.Rate("USD", FixedRate.fromBigDecimal(new BigDecimal(usd)))));
+    }
+
+    @Test
+    void append_sameTimestamp_shouldNotDuplicate() {
+        tick(0, "100");
+        tick(0, "100");
+        assertEquals(1, historyRepo.count());
+    }
+
+    @Test
+    void history_shouldDownsamplePerBucket() {
+        // 第一個小時：3 筆；第二個小時：沒有資料；第三個小時：1 筆；區間外：1 筆
+        tick(0, "100");
+        tick(20, "130");
+        tick(40, "110");
+        tick(125, "200");
+        tick(24 * 60, "999"); // 超出查詢區間
+
+        RateHistoryDtos.Response res = historyService.history("usd", T0, T0.plusHours(3), Duration.ofHours(1));
+
+        assertEquals("USD", res.code());
+        assertEquals(3600, res.stepSeconds());
+        assertEquals(2, res.buckets().size()); // 沒有資料的桶不回傳
+
+        RateHistoryDtos.Bucket first = res.buckets().get(0);
+        assertEquals(T0, first.start());
+        assertEquals(3, first.count());
+        assertEquals(0, first.last().compareTo(new BigDecimal("110")));
+        assertEquals(0, first.min().compareTo(new BigDecimal("100")));
+        assertEquals(0, first.max().compareTo(new BigDecimal("130")));
+        assertEquals(0, first.avg().compareTo(new BigDecimal("113.333333")));
+
+        RateHistoryDtos.Bucket third = res.buckets().get(1);
+        assertEquals(T0.plusHours(2), third.start());
+        assertEquals(1, third.count());
+        assertEquals(0, third.last().compareTo(new BigDecimal("200")));
+    }
+
+    @Test
+    void history_invalidRange_shouldThrow400() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> historyService.history("USD", T0, T0, Duration.ofHours(1)));
+        assertEquals(400, ex.getStatusCode().value());
+
+        ex = assertThrows(ResponseStatusException.class,
+                () -> historyService.history("USD", T0, T0.plusDays(365), Duration.ofSeconds(1))); // 桶數過多
+        assertEquals(400, ex.getStatusCode().value());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體
+import com.example.coindesk.dto.RateDtos; // 匯入目前匯率 DTO
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repo（以 Mockito 取代）
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
+import static org.mockito.Mockito.mock; // 匯入 mock
+import static org.mockito.Mockito.times; // 匯入 times
+import static org.mockito.Mockito.verify; // 匯入 verify
+
+/**
+ * ===========================================
+ * 目前匯率讀取端測試 (RateStoreTest)
+ * ===========================================
+ * 目的：
+ * - 驗證啟動時由 exchange_rate 建立快照，讀取依代碼排序且不再查 DB
+ * - 驗證匯率變動事件只替換有變動的幣別，較舊的變動不會覆蓋較新的
+ * - 驗證未知幣別回 404
+ */
+class RateStoreTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2022, 8, 3, 20, 25);
+    private ExchangeRateRepository repo;
+    private RateStore store;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ExchangeRateRepository.class);
+        given(repo.findAll()).willReturn(List.of(
+                new ExchangeRate("USD", new BigDecimal("20000"), T1),
+                new ExchangeRate("EUR", new BigDecimal("25000"), T1.minusMinutes(5))));
+        store = new RateStore(repo);
+        store.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void reads_shouldBeServedFromSnapshotBuiltAtStartup() {
+        RateDtos.Response all = store.all();
+        assertEquals(List.of("EUR", "USD"), all.rates().stream().map(RateDtos.Rate::code).toList());
+        assertEquals(T1, all.asOf());
+        assertEquals(20000 * FixedRate.ONE, store.get(" usd ").rate());
+        assertSame(all, store.all()); // 回應物件預先建立，不會每次重新組裝
+
+        verify(repo, times(1)).findAll(); // 只有啟動時查 DB
+    }
+
+    @Test
+    void onRatesChanged_shouldReplaceChangedCodesOnly_andIgnoreOlderChanges() {
+        LocalDateTime t2 = T1.plusMinutes(10);
+        store.onRatesChanged(new RatesChangedEvent(
+                new RateSnapshot(null, null, List.of(new RateSnapshot.Rate("USD", 30000 * FixedRate.ONE),
+                        new RateSnapshot.Rate("JPY", 3000000 * FixedRate.ONE))),
+                t2, Map.of("USD", new RatesChangedEvent.Change("USD", 20000 * FixedRate.ONE, 30000 * FixedRate.ONE),
+                        "JPY", new RatesChangedEvent.Change("JPY", 0, 3000000 * FixedRate.ONE))));
+
+        assertEquals(30000 * FixedRate.ONE, store.get("USD").rate());
+        assertEquals(t2, store.get("JPY").updatedAt());
+        assertEquals(T1.minusMinutes(5), store.get("EUR").updatedAt()); // 未變動的幣別沿用原本的項目
+        assertEquals(3, store.all().rates().size());
+
+        store.onRatesChanged(new RatesChangedEvent(
+                new RateSnapshot(null, null, List.of(new RateSnapshot.Rate("USD", FixedRate.ONE))),
+                T1, Map.of("USD", new RatesChangedEvent.Change("USD", 30000 * FixedRate.ONE, FixedRate.ONE)))); // 較舊 → 忽略
+        assertEquals(30000 * FixedRate.ONE, store.get("USD").rate());
+        assertEquals(t2, store.all().asOf());
+    }
+
+    @Test
+    void get_unknownCode_shouldReturn404() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> store.get("XYZ"));
+        assertEquals(404, ex.getStatusCode().value());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.RateStreamProperties; // 匯入 SSE 推播設定
+import com.example.coindesk.dto.ConvertedDtos; // 匯入轉換後回應 DTO
+import org.junit.jupiter.api.AfterEach; // 匯入 @AfterEach
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter; // 匯入 ResponseBodyEmitter，取出送出的資料
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // 匯入 SseEmitter
+
+import java.time.Duration; // 匯入 Duration
+import java.util.List; // 匯入 List
+import java.util.concurrent.CopyOnWriteArrayList; // 匯入 CopyOnWriteArrayList，記錄送出的事件
+import java.util.concurrent.CountDownLatch; // 匯入 CountDownLatch，模擬卡住的用戶端
+import java.util.concurrent.TimeUnit; // 匯入 TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean; // 匯入 AtomicBoolean，記錄執行緒是否被中斷
+import java.util.concurrent.atomic.AtomicReference; // 匯入 AtomicReference，取得執行緒建立的權杖
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.Mockito.mock; // 匯入 mock，建立轉換服務替身
+
+/**
+ * ===========================================
+ * 匯率推播服務測試 (RateStreamServiceTest)
+ * ===========================================
+ * 目的：
+ * - 驗證慢速訂閱者的事件會被合併，只收到最新狀態
+ * - 驗證長時間卡住的訂閱者會被中斷，不會無限累積
+ * - 驗證送出超過 send-timeout 的訂閱者會被移除，送出執行緒得以服務其他訂閱者
+ * - 驗證中斷只會落在仍在進行的那次 send()，已結束的 send() 不會中斷執行緒後續的工作
+ *
+ * 作法：
+ * - 以覆寫 send() 的 SseEmitter 模擬用戶端，可讓送出「卡住」直到放行
+ */
+class RateStreamServiceTest {
+
+    private final RateStreamService service = new RateStreamService(
+            mock(CoinDeskConvertService.class), new RateStreamProperties(Duration.ofMinutes(1), 3, 4, Duration.ofMinutes(1)));
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    /**
+     * 測試用 SseEmitter：記錄送出次數，第一次送出會卡住直到 release 放行
+     */
+    static class SlowEmitter extends SseEmitter {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final List<String> sent = new CopyOnWriteArrayList<>(); // 送出事件的 updatedTime
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (ResponseBodyEmitter.DataWithMediaType d : builder.build()) {
+                if (d.getData() instanceof ConvertedDtos.Response r) {
+                    sent.add(r.updatedTime());
+                }
+            }
+            firstSendStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static ConvertedDtos.Response response(String time) {
+        return new ConvertedDtos.Response(time, List.of());
+    }
+
+    @Test
+    void slowSubscriber_shouldReceiveCoalescedLatest() throws Exception {
+        SlowEmitter emitter = new SlowEmitter();
+        service.register(emitter);
+
+        service.broadcast(response("t1"));
+        assertTrue(emitter.firstSendStarted.await(5, TimeUnit.SECONDS)); // t1 送出中（卡住）
+        service.broadcast(response("t2"));
+        service.broadcast(response("t3")); // t2 被 t3 覆蓋
+        emitter.release.countDown();
+
+        waitUntil(() -> emitter.sent.size() == 2);
+        assertEquals(List.of("t1", "t3"), emitter.sent); // t1 + 合併後的 t3
+        assertEquals(1, service.subscriberCount());
+    }
+
+    @Test
+    void stuckSubscriber_shouldBeDropped() throws Exception {
+        SlowEmitter emitter = new SlowEmitter();
+        service.register(emitter);
+
+        service.broadcast(response("t0"));
+        assertTrue(emitter.firstSendStarted.await(5, TimeUnit.SECONDS)); // 送出卡住
+        for (int i = 1; i <= 5; i++) {
+            service.broadcast(response("t" + i)); // 超過 maxCoalesced（3）
+        }
+
+        assertEquals(0, service.subscriberCount()); // 已被移除
+        waitUntil(() -> emitter.completed);
+        assertTrue(emitter.completed); // 連線已結束
+        emitter.release.countDown();
+    }
+
+    @Test
+    void stalledSubscriber_shouldTimeOutAndFreeSenderThread() throws Exception {
+        RateStreamService single = new RateStreamService( // 只有 1 個送出執行緒，卡住的訂閱者若不釋放，其他訂閱者就收不到
+                mock(CoinDeskConvertService.class), new RateStreamProperties(Duration.ofMinutes(1), 3, 1, Duration.ofMillis(200)));
+        try {
+            SlowEmitter stalled = new SlowEmitter(); // 不放行：直到被中斷前都卡在 send()
+            single.register(stalled);
+            single.broadcast(response("t1"));
+            assertTrue(stalled.firstSendStarted.await(5, TimeUnit.SECONDS));
+
+            SlowEmitter healthy = new SlowEmitter();
+            healthy.release.countDown(); // 正常的訂閱者：送出立即完成
+            single.register(healthy);
+            single.broadcast(response("t2"));
+
+            waitUntil(() -> stalled.completed && healthy.sent.contains("t2"));
+            assertTrue(stalled.completed); // 逾時 → 連線已結束
+            assertEquals(List.of("t2"), healthy.sent); // 送出執行緒已釋放，其他訂閱者照常收到
+            assertEquals(1, single.subscriberCount());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void sendToken_shouldInterruptOnlyWhileSending() throws Exception {
+        AtomicReference<RateStreamService.SendToken> token = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interruptedWhileSending = new AtomicBoolean();
+        AtomicBoolean flagClearedAfterFinish = new AtomicBoolean();
+        Thread worker = new Thread(() -> {
+            RateStreamService.SendToken t = new RateStreamService.SendToken();
+            token.set(t);
+            started.countDown();
+            try {
+                Thread.sleep(5_000); // 模擬卡住的 send()
+            } catch (InterruptedException ex) {
+                interruptedWhileSending.set(true);
+                Thread.currentThread().interrupt(); // 與 Servlet 寫出時相同：中斷旗標可能仍留著
+            }
+            t.finish();
+            flagClearedAfterFinish.set(!Thread.currentThread().isInterrupted());
+        });
+        worker.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        token.get().interrupt();
+        worker.join(5_000);
+
+        assertTrue(interruptedWhileSending.get());
+        assertTrue(flagClearedAfterFinish.get()); // 下一次 send() 不會一開始就被中斷
+    }
+
+    @Test
+    void finishedSendToken_shouldNotInterruptLaterWork() throws Exception {
+        AtomicReference<RateStreamService.SendToken> token = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean laterWorkInterrupted = new AtomicBoolean();
+        Thread worker = new Thread(() -> {
+            RateStreamService.SendToken t = new RateStreamService.SendToken();
+            token.set(t);
+            t.finish(); // 這次 send() 已結束
+            finished.countDown();
+            try {
+                Thread.sleep(300); // 執行緒已在處理其他訂閱者的 send()
+            } catch (InterruptedException ex) {
+                laterWorkInterrupted.set(true);
+            }
+        });
+        worker.start();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        token.get().interrupt(); // drop() 讀到的是已結束的權杖
+        worker.join(5_000);
+
+        assertFalse(laterWorkInterrupted.get());
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.CoindeskApplication; // 匯入主程式，啟動兩個獨立的 Context
+import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體
+import com.example.coindesk.dto.CurrencyDtos; // 匯入幣別 DTO
+import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repository
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import org.junit.jupiter.api.AfterAll; // 匯入 @AfterAll，關閉兩個節點
+import org.junit.jupiter.api.BeforeAll; // 匯入 @BeforeAll，啟動兩個節點
+import org.junit.jupiter.api.MethodOrderer; // 匯入 MethodOrderer，依序執行情境
+import org.junit.jupiter.api.Order; // 匯入 @Order
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.junit.jupiter.api.TestMethodOrder; // 匯入 @TestMethodOrder
+import org.junit.jupiter.api.io.TempDir; // 匯入 @TempDir，共用的 H2 檔案放在暫存目錄
+import org.springframework.boot.WebApplicationType; // 匯入 WebApplicationType，節點不需要啟動 Web 伺服器
+import org.springframework.boot.builder.SpringApplicationBuilder; // 匯入 SpringApplicationBuilder，以程式啟動 Context
+import org.springframework.context.ConfigurableApplicationContext; // 匯入 ConfigurableApplicationContext
+import org.springframework.jdbc.core.JdbcTemplate; // 匯入 JdbcTemplate，查詢租約持有者
+import org.springframework.web.server.ResponseStatusException; // 匯入 ResponseStatusException，404
+
+import java.math.BigDecimal; // 匯入 BigDecimal
+import java.nio.file.Path; // 匯入 Path
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime，固定的上游更新時間
+import java.util.List; // 匯入 List
+import java.util.concurrent.Callable; // 匯入 Callable，同時搶租約
+import java.util.concurrent.ExecutorService; // 匯入 ExecutorService
+import java.util.concurrent.Executors; // 匯入 Executors
+import java.util.concurrent.Future; // 匯入 Future
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 多節點排程同步測試 (RateSyncClusterTest)
+ * ===========================================
+ * 目的：
+ * - 兩個 Spring Context（node-a、node-b）共用同一個 H2 檔案，模擬兩個節點
+ * - 驗證同一時間只有一個節點取得租約並同步，另一個節點由 DB 重新載入（含清除本機二級快取）
+ * - 驗證 leader 停止續約、租約到期後由另一個節點接手
+ * - 驗證另一個節點的幣別異動在下一次排程後可見（二級快取、中文名稱對照、負向快取）
+ *
+ * 作法：
+ * - CoinDesk 上游指向無法連線的位址（只有 fallback 資料，同步不會寫入），另加入固定回傳即時資料的 StubSource
+ * - 排程停用，由測試直接呼叫 RateSyncScheduler.run()
+ * - 每個節點使用各自的二級快取 CacheManager，與實際多台機器相同
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class RateSyncClusterTest {
+
+    private static final long LEASE_MILLIS = 2000; // 測試用短租約
+
+    @TempDir
+    static Path dir; // 共用的 H2 檔案位置
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        String url = "jdbc:h2:file:" + dir.resolve("cluster").toAbsolutePath() + ";MODE=MySQL";
+        nodeA = start("node-a", url); // 依序啟動，避免同時建立資料表
+        nodeB = start("node-b", url);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    @Order(1)
+    void onlyLeaderSyncs_followerRefreshesFromDatabase() {
+        scheduler(nodeA).run(); // node-a 取得租約 → 同步（StubSource 的即時資料）
+        scheduler(nodeB).run(); // 租約未到期 → node-b 為 follower
+
+        assertEquals("node-a", lockOwner());
+        assertTrue(nodeA.getBean(SyncLeaseLock.class).isLeader());
+        assertFalse(nodeB.getBean(SyncLeaseLock.class).isLeader());
+        assertEquals(3, nodeB.getBean(ExchangeRateRepository.class).count());
+        assertTrue(nodeB.getBean(CrossRateService.class).current().contains("USD")); // follower 的記憶體矩陣已更新
+    }
+
+    @Test
+    @Order(2)
+    void followerRefresh_shouldSeeLeaderWritesDespiteSecondLevelCache() {
+        scheduler(nodeA).run(); // node-a 續約（快照未變 → 不寫入）
+        ExchangeRateRepository repoB = nodeB.getBean(ExchangeRateRepository.class);
+        assertNotNull(repoB.findById("USD").orElseThrow()); // 放進 node-b 的二級快取
+
+        ExchangeRateRepository repoA = nodeA.getBean(ExchangeRateRepository.class);
+        ExchangeRate usd = repoA.findById("USD").orElseThrow();
+        usd.setRate(new BigDecimal("30000.000000"));
+        repoA.save(usd); // 模擬 leader 寫入新匯率（只更新 node-a 自己的二級快取）
+
+        scheduler(nodeB).run(); // 租約仍由 node-a 持有 → node-b 由 DB 重新載入
+
+        assertEquals(0, new BigDecimal("30000").compareTo(repoB.findById("USD").orElseThrow().getRate()));
+        assertEquals(0, new BigDecimal("30000").compareTo(
+                nodeB.getBean(CrossRateService.class).current().rate("BTC", "USD")));
+    }
+
+    @Test
+    @Order(3)
+    void expiredLease_shouldBeTakenOverByExactlyOneNode() throws Exception {
+        scheduler(nodeA).run();
+        assertEquals("node-a", lockOwner());
+
+        Thread.sleep(LEASE_MILLIS + 200); // node-a 停止續約（例如當機），租約到期
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Boolean> a = () -> nodeA.getBean(SyncLeaseLock.class).tryAcquire();
+            Callable<Boolean> b = () -> nodeB.getBean(SyncLeaseLock.class).tryAcquire();
+            Future<Boolean> fa = pool.submit(a);
+            Future<Boolean> fb = pool.submit(b);
+            assertTrue(fa.get() ^ fb.get(), "同時搶租約時只有一個節點成功");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Thread.sleep(LEASE_MILLIS + 200);
+        scheduler(nodeB).run(); // 到期後 node-b 接手
+        assertEquals("node-b", lockOwner());
+        assertFalse(nodeA.getBean(SyncLeaseLock.class).tryAcquire()); // node-b 持有中 → node-a 為 follower
+    }
+
+    @Test
+    @Order(4)
+    void currencyChangesOnOtherNode_shouldBeVisibleAfterNextRun() {
+        CurrencyService currenciesA = nodeA.getBean(CurrencyService.class);
+        CurrencyService currenciesB = nodeB.getBean(CurrencyService.class);
+        CurrencyNameCache namesA = nodeA.getBean(CurrencyNameCache.class);
+        assertThrows(ResponseStatusException.class, () -> currenciesA.getOne("XCN")); // node-a 記入負向快取
+        assertEquals("", namesA.nameOf("XCN")); // node-a 載入中文名稱對照
+
+        currenciesB.create(new CurrencyDtos.CreateRequest("XCN", "叢集幣"));
+        assertThrows(ResponseStatusException.class, () -> currenciesA.getOne("XCN")); // 尚未排程：node-a 仍使用本機快取
+
+        scheduler(nodeA).run(); // node-a 為 follower
+        assertEquals("叢集幣", currenciesA.getOne("XCN").nameZh()); // 放進 node-a 的二級快取
+        assertEquals("叢集幣", namesA.nameOf("XCN"));
+
+        currenciesB.update("XCN", new CurrencyDtos.UpdateRequest("叢集幣二"));
+        scheduler(nodeB).run(); // leader 也會清除本機快取
+        scheduler(nodeA).run();
+        assertEquals("叢集幣二", currenciesA.getOne("XCN").nameZh());
+        assertEquals("叢集幣二", namesA.nameOf("XCN"));
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId, String url) {
+        return new SpringApplicationBuilder(CoindeskApplication.class, StubSource.class) // StubSource 註冊為額外的匯率來源
+                .web(WebApplicationType.NONE)
+                .run( // 以命令列參數傳入，優先於 application.yml
+                        "--spring.datasource.url=" + url,
+                        "--spring.jpa.show-sql=false",
+                        "--coindesk.upstream.url=http://127.0.0.1:1/unreachable", // 連線立即失敗 → CoinDesk 只有 fallback
+                        "--coindesk.cache-ttl=0s", // 每次同步都重新取得（fallback 也不快取）
+                        "--coindesk.sync.schedule.enabled=false", // 停用排程，由測試觸發
+                        "--coindesk.sync.lock.node-id=" + nodeId,
+                        "--coindesk.sync.lock.lease-duration=" + LEASE_MILLIS + "ms",
+                        "--coindesk.entity-cache.manager-name=cluster-test-" + nodeId); // 各節點使用自己的二級快取
+    }
+
+    private static RateSyncScheduler scheduler(ConfigurableApplicationContext node) {
+        return node.getBean(RateSyncScheduler.class);
+    }
+
+    private static String lockOwner() {
+        return nodeA.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT owner FROM sync_lock WHERE name = ?", String.class, SyncLeaseLock.RATE_SYNC);
+    }
+
+    /**
+     * 固定回傳同一份即時快照的匯率來源（不加 @Component，避免被其他測試的元件掃描載入）
+     */
+    static class StubSource implements RateSource {
+        private static final RateSnapshot SNAPSHOT = new RateSnapshot(
+                OffsetDateTime.parse("2022-08-03T20:25:00+00:00"), "Aug 3, 2022 20:25:00 UTC",
+                List.of(new RateSnapshot.Rate("USD", FixedRate.fromBigDecimal(new BigDecimal("23342.0112"))),
+                        new RateSnapshot.Rate("GBP", FixedRate.fromBigDecimal(new BigDecimal("19504.3978"))),
+                        new RateSnapshot.Rate("EUR", FixedRate.fromBigDecimal(new BigDecimal("22738.5269")))));
+
+        @Override
+        public String name() {
+            return "stub";
+        }
+
+        @Override
+        public Quote fetch() {
+            return Quote.live(SNAPSHOT);
+        }
+    }
+}
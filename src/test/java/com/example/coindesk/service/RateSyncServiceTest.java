@@ -1,18 +1,39 @@
 package com.example.coindesk.service; // 定義這個類別所在的套件位置
 
 import com.example.coindesk.domain.ExchangeRate; // 匯入匯率實體
+import com.example.coindesk.repository.ExchangeRateHistoryRepository; // 匯入匯率歷史 Repo
 import com.example.coindesk.repository.ExchangeRateRepository; // 匯入匯率 Repo
+import com.example.coindesk.util.FixedRate; // 匯入 FixedRate，匯率以 scaled long 表示
+import io.micrometer.core.instrument.Gauge; // 匯入 Gauge，讀取 staleness 指標
+import io.micrometer.core.instrument.MeterRegistry; // 匯入 MeterRegistry，驗證同步指標
+import jakarta.persistence.EntityManager; // 匯入 EntityManager，手動 flush / clear
+import org.hibernate.SessionFactory; // 匯入 Hibernate SessionFactory，取得 SQL 統計
+import org.hibernate.stat.Statistics; // 匯入 Hibernate Statistics，計算送出的語句數
 import org.junit.jupiter.api.BeforeEach; // 匯入 @BeforeEach
 import org.junit.jupiter.api.Test; // 匯入 @Test
 import org.springframework.beans.factory.annotation.Autowired; // 匯入 @Autowired
 import org.springframework.boot.test.context.SpringBootTest; // 啟動 Spring 測試環境
+import org.springframework.jdbc.core.JdbcTemplate; // 匯入 JdbcTemplate，清除殘留的同步租約
 import org.springframework.test.context.bean.override.mockito.MockitoBean; // 匯入 @MockitoBean
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean; // 匯入 @MockitoSpyBean，讓歷史寫入失敗
+import org.springframework.test.context.event.ApplicationEvents; // 匯入 ApplicationEvents，取得測試期間發布的事件
+import org.springframework.test.context.event.RecordApplicationEvents; // 匯入 @RecordApplicationEvents，記錄發布的事件
+import org.springframework.transaction.annotation.Propagation; // 匯入 Propagation，讓個別測試不使用外層交易
 import org.springframework.transaction.annotation.Transactional; // 匯入 @Transactional
 
+import java.math.BigDecimal; // 匯入 BigDecimal，預先建立既有匯率
+import java.nio.charset.StandardCharsets; // 匯入 UTF-8 編碼
 import java.time.LocalDateTime; // 匯入 LocalDateTime
+import java.time.OffsetDateTime; // 匯入 OffsetDateTime
+import java.util.List; // 匯入 List
+import java.util.Set; // 匯入 Set
+import java.util.stream.IntStream; // 匯入 IntStream，產生大量合成幣別
 
 import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.ArgumentMatchers.any; // 匯入 any，比對任意參數
 import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
+import static org.mockito.BDDMockito.willReturn; // 匯入 willReturn，改寫已 stub 的回傳值
+import static org.mockito.BDDMockito.willThrow; // 匯入 willThrow，模擬寫入失敗
 
 /**
  * ===========================================
@@ -23,13 +44,17 @@ import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
  *   1) 從 CoinDesk JSON 解析匯率
  *   2) 以幣別為主鍵 upsert 至 DB
  *   3) 解析 updatedISO 成 LocalDateTime 寫入 updatedAt
+ *   4) 批次寫入：語句數不隨幣別數量逐筆成長
+ *   5) 變動偵測：只寫入有變動的幣別；快照與上一次 commit 的相同時整個略過
+ *   6) 只拿到 fallback 資料時不寫入
  *
  * 作法：
- * - 用 @MockitoBean 取代 CoinDeskService 回傳固定 Mock JSON
+ * - 用 @MockitoBean 取代 CoinDeskService 回傳固定 Mock JSON 解析後的快照
  * - 呼叫 syncOnce() 後驗證 ExchangeRateRepository 的資料
  */
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true") // 開啟 Hibernate 統計，計算語句數
 @Transactional
+@RecordApplicationEvents // 記錄 RatesChangedEvent
 class RateSyncServiceTest {
 
     @Autowired
@@ -38,6 +63,33 @@ class RateSyncServiceTest {
     @Autowired
     private ExchangeRateRepository rateRepo; // 用來驗證 DB 結果
 
+    @MockitoSpyBean
+    private RateHistoryService historyService; // 真實的歷史服務，個別測試讓它失敗
+
+    @Autowired
+    private RateSyncScheduler rateSyncScheduler; // 排程入口（經由代理呼叫 syncOnce）
+
+    @Autowired
+    private SyncLeaseLock lock; // 測試結束後釋放租約
+
+    @Autowired
+    private JdbcTemplate jdbc; // 清除殘留的同步租約
+
+    @Autowired
+    private CoinDeskPayloadParser parser; // 將 Mock JSON 解析成快照
+
+    @Autowired
+    private ExchangeRateHistoryRepository historyRepo; // 用來驗證歷史資料
+
+    @Autowired
+    private ApplicationEvents events; // 測試期間發布的事件
+
+    @Autowired
+    private EntityManager em; // 手動 flush / clear，讓語句在量測區間內送出
+
+    @Autowired
+    private MeterRegistry registry; // 驗證同步指標
+
     @MockitoBean
     private CoinDeskService coinDeskService; // Mock 外呼來源
 
@@ -56,9 +108,11 @@ class RateSyncServiceTest {
         }""";
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         rateRepo.deleteAll(); // 清空，避免殘留資料影響
-        given(coinDeskService.fetchRawJson()).willReturn(MOCK_JSON); // Mock 回傳 JSON
+        historyRepo.deleteAllInBatch();
+        given(coinDeskService.fetchSnapshot()).willReturn(parser.parse(MOCK_JSON.getBytes(StandardCharsets.UTF_8))); // Mock 回傳解析後的快照
+        given(coinDeskService.fetchQuote()).willAnswer(inv -> RateSource.Quote.live(coinDeskService.fetchSnapshot())); // 匯率來源取得目前 Mock 的快照（即時資料）
     }
 
     @Test
@@ -85,4 +139,211 @@ class RateSyncServiceTest {
         assertEquals(expected, gbp.getUpdatedAt());
         assertEquals(expected, eur.getUpdatedAt());
     }
+
+    /**
+     * 測試：有變動時發布 RatesChangedEvent；匯率沒有變動時不發布
+     */
+    @Test
+    void syncOnce_shouldPublishChangedCodesOnlyWhenRatesChange() {
+        rateSyncService.syncOnce();
+        rateSyncService.syncOnce(); // 匯率相同 → 不發布
+
+        List<RatesChangedEvent> published = events.stream(RatesChangedEvent.class).toList();
+        assertEquals(1, published.size());
+        assertEquals(Set.of("USD", "GBP", "EUR"), published.get(0).changedCodes());
+    }
+
+    /**
+     * 測試：只寫入匯率有變動的幣別，事件附上變動前後的匯率；未變動的幣別保留原本的更新時間
+     */
+    @Test
+    void syncOnce_shouldWriteOnlyChangedCodes() {
+        rateSyncService.syncOnce();
+        RateSnapshot first = coinDeskService.fetchSnapshot();
+        OffsetDateTime later = first.updatedIso().plusMinutes(1);
+        given(coinDeskService.fetchSnapshot()).willReturn(new RateSnapshot(later, null, List.of(
+                new RateSnapshot.Rate("USD", 23400 * FixedRate.ONE), // 只有 USD 變動
+                first.rates().get(1),
+                first.rates().get(2))));
+
+        Statistics stats = measure(() -> rateSyncService.syncOnce());
+
+        assertEquals(1, stats.getEntityUpdateCount());
+        List<RatesChangedEvent> published = events.stream(RatesChangedEvent.class).toList();
+        assertEquals(2, published.size());
+        assertEquals(Set.of("USD"), published.get(1).changedCodes());
+        RatesChangedEvent.Change usd = published.get(1).changes().get("USD");
+        assertEquals(23342_011200L, usd.previous());
+        assertEquals(23400 * FixedRate.ONE, usd.current());
+        assertFalse(usd.added());
+        assertEquals(later.toLocalDateTime(), rateRepo.findById("USD").orElseThrow().getUpdatedAt());
+        assertEquals(first.updatedIso().toLocalDateTime(), rateRepo.findById("GBP").orElseThrow().getUpdatedAt()); // 未變動 → 不寫入
+        assertEquals(6, historyRepo.count()); // 新的時間點仍記錄所有幣別
+    }
+
+    /**
+     * 測試：快照與上一次 commit 的相同時不查詢也不寫入 DB
+     * - 需要真正 commit，因此這個測試不使用外層交易，結束後自行清理
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void syncOnce_unchangedSnapshot_shouldSkipDatabase() {
+        try {
+            rateSyncService.syncOnce();
+            long skippedBefore = registry.timer("coindesk.sync.duration", "outcome", "unchanged").count();
+            Statistics stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+            stats.clear();
+
+            rateSyncService.syncOnce();
+
+            assertEquals(skippedBefore + 1, registry.timer("coindesk.sync.duration", "outcome", "unchanged").count());
+            assertEquals(0, stats.getPrepareStatementCount());
+            assertEquals(3, rateRepo.count());
+        } finally {
+            rateRepo.deleteAll();
+            historyRepo.deleteAllInBatch();
+            rateSyncService.forgetLastApplied(); // DB 已清空，讓其他測試重新比對
+        }
+    }
+
+    /**
+     * 測試：由排程入口（RateSyncScheduler.run）觸發時，既有資料列的匯率會被更新
+     * - 排程經由 RateSyncService 的代理呼叫 syncOnce()，交易才會開啟，dirty checking 的 UPDATE 才會 flush
+     * - 需要真正 commit 才看得出差異，因此這個測試不使用外層交易，結束後自行清理
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void scheduledRun_shouldUpdateExistingRow() {
+        jdbc.update("DELETE FROM sync_lock WHERE name = ?", SyncLeaseLock.RATE_SYNC); // 避免其他 Context 殘留的租約讓本節點成為 follower
+        LocalDateTime old = LocalDateTime.of(2022, 8, 3, 20, 0);
+        rateRepo.save(new ExchangeRate("USD", new BigDecimal("20000.000000"), old)); // 既有資料列
+        try {
+            SyncResult result = rateSyncScheduler.run();
+
+            assertEquals(SyncResult.Outcome.CHANGED, result.outcome());
+            ExchangeRate usd = rateRepo.findById("USD").orElseThrow(); // 在新的 Session 讀取 → 只看得到已 commit 的值
+            assertEquals(0, usd.getRate().compareTo(new BigDecimal("23342.0112")));
+            assertEquals(OffsetDateTime.parse("2022-08-03T20:25:00+00:00").toLocalDateTime(), usd.getUpdatedAt());
+        } finally {
+            lock.release();
+            rateRepo.deleteAll();
+            historyRepo.deleteAllInBatch();
+            rateSyncService.forgetLastApplied();
+        }
+    }
+
+    /**
+     * 測試：匯率已 flush 後寫入歷史失敗 → 整個交易回滾，exchange_rate 維持原值，也不發布事件
+     * - 需要真正 commit / 回滾，因此這個測試不使用外層交易，結束後自行清理
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void syncOnce_historyFailure_shouldRollBackRates() {
+        rateRepo.save(new ExchangeRate("USD", new BigDecimal("20000.000000"), LocalDateTime.of(2022, 8, 3, 20, 0)));
+        willThrow(new IllegalStateException("history down")).given(historyService).append(any(), any());
+        try {
+            SyncResult result = rateSyncService.syncOnce();
+
+            assertEquals(SyncResult.Outcome.FAILURE, result.outcome());
+            assertEquals(0, rateRepo.findById("USD").orElseThrow().getRate().compareTo(new BigDecimal("20000")));
+            assertFalse(rateRepo.findById("GBP").isPresent()); // 新增的幣別也一併回滾
+            assertEquals(0, events.stream(RatesChangedEvent.class).count());
+        } finally {
+            rateRepo.deleteAll();
+            historyRepo.deleteAllInBatch();
+            rateSyncService.forgetLastApplied();
+        }
+    }
+
+    /**
+     * 測試：沒有即時來源（只拿到 fallback 資料）時回傳 FALLBACK，不寫入匯率與歷史，也不發布事件
+     */
+    @Test
+    void syncOnce_fallbackQuote_shouldNotWrite() throws Exception {
+        RateSnapshot mock = parser.parse(MOCK_JSON.getBytes(StandardCharsets.UTF_8));
+        willReturn(new RateSource.Quote(mock, true)).given(coinDeskService).fetchQuote(); // 上游失敗，改用 Mock
+
+        SyncResult result = rateSyncService.syncOnce();
+
+        assertEquals(SyncResult.Outcome.FALLBACK, result.outcome());
+        assertEquals(0, rateRepo.count());
+        assertEquals(0, historyRepo.count());
+        assertEquals(0, events.stream(RatesChangedEvent.class).count());
+    }
+
+    /**
+     * 測試：同步會寫入匯率歷史，且同一上游時間點重複同步不會重複寫入
+     */
+    @Test
+    void syncOnce_shouldAppendHistoryOncePerTimestamp() {
+        rateSyncService.syncOnce();
+        rateSyncService.syncOnce(); // 上游時間相同 → 不新增歷史
+
+        assertEquals(3, historyRepo.count());
+    }
+
+    /**
+     * 測試：同步 3 筆與 2000 筆幣別時，語句數相同（不隨幣別數量成長）
+     * - 第一次同步：1 個 SELECT（IN 查詢）+ 1 個 INSERT 語句（以 JDBC batch 重複執行）
+     * - 歷史資料另以 1 個 JDBC 批次 MERGE 寫入（不經過 Hibernate，不計入統計）
+     * - 第二次同步：1 個 SELECT（IN 查詢）+ 1 個 UPDATE 語句（以 JDBC batch 重複執行）
+     */
+    @Test
+    void syncOnce_shouldUseOneQueryAndBatchedWrites() {
+        for (int n : new int[]{3, 2000}) {
+            rateRepo.deleteAll();
+            given(coinDeskService.fetchSnapshot()).willReturn(syntheticSnapshot(n, 0));
+
+            Statistics inserts = measure(() -> rateSyncService.syncOnce());
+            assertEquals(n, inserts.getEntityInsertCount());
+            assertEquals(0, inserts.getEntityLoadCount()); // 第一次同步沒有既有資料可載入
+            assertEquals(2, inserts.getPrepareStatementCount(), "INSERT：1 個查詢 + 1 個批次 INSERT 語句");
+
+            given(coinDeskService.fetchSnapshot()).willReturn(syntheticSnapshot(n, 1)); // 匯率變動 → 產生 UPDATE
+            Statistics updates = measure(() -> rateSyncService.syncOnce());
+            assertEquals(n, updates.getEntityUpdateCount());
+            assertEquals(n, updates.getEntityLoadCount()); // 一次查詢載入全部既有資料
+            assertEquals(2, updates.getPrepareStatementCount(), "UPDATE：1 個查詢 + 1 個批次 UPDATE 語句");
+        }
+    }
+
+    /**
+     * 測試：同步會記錄耗時、寫入列數與各幣別資料年齡
+     */
+    @Test
+    void syncOnce_shouldRecordMetrics() {
+        long syncsBefore = registry.timer("coindesk.sync.duration", "outcome", "success").count();
+        double insertsBefore = registry.counter("coindesk.sync.rows", "op", "insert").count();
+
+        rateSyncService.syncOnce();
+
+        assertEquals(syncsBefore + 1, registry.timer("coindesk.sync.duration", "outcome", "success").count());
+        assertEquals(insertsBefore + 3, registry.counter("coindesk.sync.rows", "op", "insert").count());
+        Gauge staleness = registry.get("coindesk.rate.staleness").tag("code", "USD").gauge();
+        assertTrue(staleness.value() > 0); // Mock 的 updatedISO 為 2022 年 → 資料年齡大於 0
+    }
+
+    /**
+     * 執行一次動作並回傳期間的 Hibernate 統計
+     * - 先 flush / clear，排除前置步驟的語句；動作後 flush，讓寫入在量測區間內送出
+     */
+    private Statistics measure(Runnable action) {
+        em.flush();
+        em.clear();
+        Statistics stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        action.run();
+        em.flush();
+        return stats;
+    }
+
+    /**
+     * 產生含 n 個幣別的合成快照（offset 不同時匯率不同，用來觸發 UPDATE）
+     */
+    private static RateSnapshot syntheticSnapshot(int n, int offset) {
+        List<RateSnapshot.Rate> rates = IntStream.range(0, n)
+                .mapToObj(i -> new RateSnapshot.Rate("C" + i, (100000 + i * 10L + offset) * 10_000L)) // 小數 2 位的匯率（FixedRate）
+                .toList();
+        return new RateSnapshot(OffsetDateTime.parse("2022-08-03T20:25:00+00:00"), null, rates);
+    }
 }
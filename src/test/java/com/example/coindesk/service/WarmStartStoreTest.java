@@ -0,0 +1,97 @@
+package com.example.coindesk.service; // 定義這個類別所在的套件位置
+
+import com.example.coindesk.config.WarmStartProperties; // 匯入暖啟動設定
+import com.example.coindesk.domain.Currency; // 匯入 Currency 實體類別
+import com.example.coindesk.repository.CurrencyRepository; // 匯入幣別 Repo（以 Mockito 取代）
+import com.fasterxml.jackson.databind.ObjectMapper; // 匯入 ObjectMapper，建立解析器
+import org.junit.jupiter.api.Test; // 匯入 @Test
+import org.junit.jupiter.api.io.TempDir; // 匯入 @TempDir，每個測試使用獨立的暫存目錄
+
+import java.nio.file.Files; // 匯入 Files，破壞檔案內容
+import java.nio.file.Path; // 匯入 Path
+import java.time.Duration; // 匯入 Duration
+import java.util.List; // 匯入 List
+import java.util.Map; // 匯入 Map
+import java.util.concurrent.CountDownLatch; // 匯入 CountDownLatch，讓上游卡住直到放行
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+import static org.mockito.BDDMockito.given; // 匯入 Mockito 的 given
+import static org.mockito.Mockito.mock; // 匯入 mock
+import static org.mockito.Mockito.never; // 匯入 never
+import static org.mockito.Mockito.verify; // 匯入 verify
+
+/**
+ * ===========================================
+ * 暖啟動測試 (WarmStartStoreTest)
+ * ===========================================
+ * 目的：
+ * - 驗證保存的上游快照與中文名稱在啟動時載入，上游尚未回應前即可由記憶體提供
+ * - 驗證載入後會在背景向上游刷新
+ * - 驗證檔案損毀或不存在時略過（冷啟動）
+ */
+class WarmStartStoreTest {
+
+    @TempDir
+    Path dir; // 暫存目錄
+
+    @Test
+    void warmStart_shouldServeSavedSnapshotBeforeUpstreamResponds() throws Exception {
+        Path file = dir.resolve("warm-start.bin");
+        store(file, new CoinDeskServiceTest.CountingCoinDeskService(Duration.ofSeconds(60), new CountDownLatch(0)), new CurrencyNameCache(mock(CurrencyRepository.class)))
+                .write(CoinDeskService.MOCK_JSON, Map.of("USD", "美元", "EUR", "歐元"));
+
+        CountDownLatch release = new CountDownLatch(1); // 上游卡住
+        CoinDeskServiceTest.CountingCoinDeskService service = new CoinDeskServiceTest.CountingCoinDeskService(Duration.ofSeconds(60), release);
+        CurrencyRepository repo = mock(CurrencyRepository.class);
+        CurrencyNameCache names = new CurrencyNameCache(repo);
+
+        assertTrue(store(file, service, names).warmStart());
+
+        String json = assertTimeoutPreemptively(Duration.ofSeconds(1), service::fetchRawJson); // 不必等上游
+        assertEquals(CoinDeskService.MOCK_JSON, json);
+        assertEquals(3, service.fetchSnapshot().rates().size());
+        assertTrue(service.isServingFallback()); // 保存的資料不視為即時資料
+        assertEquals("美元", names.nameOf("USD"));
+        verify(repo, never()).findAll(); // 名稱由檔案提供，不查 DB
+
+        release.countDown();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (service.calls.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, service.calls.get()); // 背景刷新已呼叫上游
+    }
+
+    @Test
+    void save_withoutUpstreamData_shouldKeepNamesOnly() {
+        Path file = dir.resolve("warm-start.bin");
+        CurrencyRepository repo = mock(CurrencyRepository.class);
+        given(repo.findAll()).willReturn(List.of(new Currency("USD", "美元")));
+        WarmStartStore store = store(file, new CoinDeskServiceTest.CountingCoinDeskService(Duration.ofSeconds(60), new CountDownLatch(0)), new CurrencyNameCache(repo));
+
+        store.save();
+
+        WarmStartStore.Saved saved = store.read().orElseThrow();
+        assertNull(saved.json());
+        assertEquals(Map.of("USD", "美元"), saved.names());
+    }
+
+    @Test
+    void read_corruptedOrMissingFile_shouldFallBackToColdStart() throws Exception {
+        Path file = dir.resolve("warm-start.bin");
+        WarmStartStore store = store(file, new CoinDeskServiceTest.CountingCoinDeskService(Duration.ofSeconds(60), new CountDownLatch(0)), new CurrencyNameCache(mock(CurrencyRepository.class)));
+        assertTrue(store.read().isEmpty());
+
+        store.write(CoinDeskService.MOCK_JSON, Map.of("USD", "美元"));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01; // 破壞一個位元
+        Files.write(file, bytes);
+
+        assertTrue(store.read().isEmpty());
+        assertFalse(store.warmStart());
+    }
+
+    private static WarmStartStore store(Path file, CoinDeskService service, CurrencyNameCache names) {
+        return new WarmStartStore(new WarmStartProperties(true, file), service, new CoinDeskPayloadParser(new ObjectMapper()), names);
+    }
+}
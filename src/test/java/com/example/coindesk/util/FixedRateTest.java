@@ -0,0 +1,87 @@
+package com.example.coindesk.util; // 定義這個類別所在的套件位置
+
+import org.junit.jupiter.api.Test; // 匯入 @Test
+
+import java.lang.management.ManagementFactory; // 匯入 ManagementFactory，取得執行緒配置量
+import java.math.BigDecimal; // 匯入 BigDecimal，對照舊做法
+import java.util.Random; // 匯入 Random，產生隨機匯率
+
+import static org.junit.jupiter.api.Assertions.*; // 匯入斷言工具
+
+/**
+ * ===========================================
+ * 定點數匯率測試 (FixedRateTest)
+ * ===========================================
+ * 目的：
+ * - 驗證解析結果與舊做法（BigDecimal.valueOf(double) 寫入 DECIMAL(18,6)，HALF_UP）相同
+ * - 驗證輸出格式：一般小數、去除尾端 0、至少 1 位小數
+ * - 驗證超出 precision 18 時拋出例外，解析 / 輸出不配置記憶體
+ */
+class FixedRateTest {
+
+    @Test
+    void parse_shouldMatchBigDecimalHalfUpAtScale6() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double d = random.nextDouble() * Math.pow(10, random.nextInt(10)) * (random.nextBoolean() ? 1 : -1);
+            String text = Double.toString(d); // 上游 rate_float 的文字形式
+            if (text.contains("E")) {
+                continue; // 科學記號另外驗證
+            }
+            long expected = FixedRate.fromBigDecimal(BigDecimal.valueOf(d)); // 舊做法：BigDecimal → DECIMAL(18,6)
+            assertEquals(expected, parse(text), text);
+        }
+    }
+
+    @Test
+    void parse_shouldRoundHalfUpOnSeventhDecimal() {
+        assertEquals(1_000_001L, parse("1.0000005"));
+        assertEquals(1_000_000L, parse("1.00000049999"));
+        assertEquals(-1_000_001L, parse("-1.0000005")); // HALF_UP：遠離 0
+        assertEquals(12_000_000L, parse("12"));
+        assertEquals(2_500_000_000L, parse("2.5e3"));
+        assertEquals(0L, parse("0.0000004"));
+    }
+
+    @Test
+    void parse_outOfRange_shouldThrow() {
+        assertThrows(ArithmeticException.class, () -> parse("1000000000000")); // 13 位整數
+        assertThrows(ArithmeticException.class, () -> parse("999999999999.9999995")); // 進位後超出
+        assertThrows(NumberFormatException.class, () -> parse("1.2.3"));
+    }
+
+    @Test
+    void toString_shouldStripTrailingZerosKeepingOneFractionDigit() {
+        assertEquals("23342.0112", FixedRate.toString(23342_011200L));
+        assertEquals("1.0", FixedRate.toString(FixedRate.ONE));
+        assertEquals("0.0", FixedRate.toString(0));
+        assertEquals("-1.5", FixedRate.toString(-1_500_000L));
+        assertEquals("0.000001", FixedRate.toString(1));
+        assertEquals("999999999999.999999", FixedRate.toString(999_999_999_999_999_999L));
+    }
+
+    @Test
+    void parseAndFormat_shouldNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        char[] text = "23342.0112".toCharArray();
+        char[] out = new char[24];
+        long sink = 0;
+        for (int i = 0; i < 20_000; i++) { // 預熱
+            sink += FixedRate.format(FixedRate.parse(text, 0, text.length), out);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 100_000; i++) {
+            sink += FixedRate.format(FixedRate.parse(text, 0, text.length), out);
+        }
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+
+        assertTrue(sink > 0);
+        assertTrue(allocated < 1024, "解析 + 輸出 10 萬次應不配置記憶體，實際 " + allocated + " B");
+    }
+
+    private static long parse(String text) {
+        return FixedRate.parse(text.toCharArray(), 0, text.length());
+    }
+}